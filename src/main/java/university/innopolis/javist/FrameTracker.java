@@ -0,0 +1,499 @@
+package university.innopolis.javist;
+
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import university.innopolis.javist.ast.Parameter;
+import university.innopolis.javist.symantic.symbol.TypeRef;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Follows the code of a method as it is generated and works out what the {@link org.objectweb.asm.ClassWriter}
+ * would otherwise compute by analysing the finished method: the size of the operand stack, the number of
+ * local variable slots and a stack map frame at every label that is jumped to.
+ * <p>
+ * The types come from the analysis, so nothing is inferred: every instruction pushes a value of a known type,
+ * and a local variable has the type {@link #visitLocalVariable} declares it with until its end label,
+ * after which its slot is free again. The state at a label is the one control falls into it with,
+ * merged with the states of the jumps to it; a slot the states disagree on holds nothing usable there.
+ * Labels with no instruction between them share one frame, the state after the last of them.
+ * Code that cannot be reached, such as a jump after a return, is dropped instead of being written without a frame.
+ * <p>
+ * Whether a label is jumped to is only known once every loop back to it is generated, so the code of a method
+ * is kept and written with its frames by {@link #visitMaxs}. Types are kept in the form of
+ * {@link MethodVisitor#visitFrame}; the locals are kept per slot, the second slot of a double holding
+ * {@link Opcodes#TOP}.
+ */
+public class FrameTracker extends MethodVisitor {
+    private final String className;
+
+    private final List<Object> locals = new ArrayList<>();
+
+    /**
+     * For every slot, the type of the variable in scope in it, or null.
+     */
+    private final List<Object> declared = new ArrayList<>();
+
+    private final List<Object> stack = new ArrayList<>();
+
+    /**
+     * Labels jumped to, with the states at the jumps merged.
+     */
+    private final Map<Label, State> targets = new HashMap<>();
+
+    /**
+     * The state at every label control can reach.
+     */
+    private final Map<Label, State> frames = new HashMap<>();
+
+    /**
+     * For every end label of a variable, the slots whose variables end there.
+     */
+    private final Map<Label, List<Integer>> scopeEnds = new HashMap<>();
+
+    /**
+     * The code of the method, written to the next visitor by {@link #visitMaxs}.
+     */
+    private final List<Runnable> code = new ArrayList<>();
+
+    private final List<Runnable> localVariables = new ArrayList<>();
+
+    private int stackSize = 0;
+
+    private int maxStack = 0;
+
+    private int maxLocals = 0;
+
+    private boolean reachable = true;
+
+    /**
+     * The labels visited since the last instruction. They are all at the same offset, where the JVM takes
+     * one frame, so they share the state control has after the last of them.
+     */
+    private final List<Label> sameOffset = new ArrayList<>();
+
+    /**
+     * Whether a frame was written and no instruction after it, so another frame would be at the same offset.
+     */
+    private boolean framed = false;
+
+    /**
+     * The local variables and the operand stack at some point of the method.
+     */
+    private record State(Object[] locals, Object[] stack) {
+        /**
+         * Merges the states two paths reach the same point with. A slot or a value keeps its type
+         * if both paths agree on it and holds nothing usable otherwise.
+         */
+        State merge(State other) {
+            Object[] mergedLocals = new Object[Math.min(locals.length, other.locals.length)];
+            for (int i = 0; i < mergedLocals.length; i++) {
+                mergedLocals[i] = locals[i].equals(other.locals[i]) ? locals[i] : Opcodes.TOP;
+            }
+            Object[] mergedStack = stack.clone();
+            for (int i = 0; i < mergedStack.length; i++) {
+                if (!mergedStack[i].equals(other.stack[i])) {
+                    mergedStack[i] = Opcodes.TOP;
+                }
+            }
+            return new State(mergedLocals, mergedStack);
+        }
+    }
+
+    /**
+     * @param methodVisitor The visitor the code is written to.
+     * @param className     The internal name of the class of the method.
+     * @param constructor   Whether the method is a constructor, in which {@code this} is uninitialized
+     *                      until the constructor of the superclass is called on it.
+     * @param parameters    The parameters of the method.
+     */
+    public FrameTracker(MethodVisitor methodVisitor, String className, boolean constructor, List<Parameter> parameters) {
+        super(Opcodes.ASM9, methodVisitor);
+        this.className = className;
+        declare(0, constructor ? Opcodes.UNINITIALIZED_THIS : className);
+        int slot = 1;
+        for (Parameter parameter : parameters) {
+            TypeRef type = TypeRef.of(parameter.type());
+            declare(slot, frameType(type));
+            slot += type.getSlotSize();
+        }
+    }
+
+    /**
+     * Gets the type of a value in a frame.
+     *
+     * @param type The type, or null if the analysis found none.
+     * @return {@link Opcodes#INTEGER} for {@code Integer} and {@code Boolean}, {@link Opcodes#DOUBLE} for
+     * {@code Real}, the descriptor of an array and the internal name of any other class;
+     * {@link Opcodes#TOP} if the type is unknown.
+     */
+    public static Object frameType(TypeRef type) {
+        if (type == null) {
+            return Opcodes.TOP;
+        }
+        if (type == TypeRef.REAL) {
+            return Opcodes.DOUBLE;
+        }
+        if (type.isValue()) {
+            return Opcodes.INTEGER;
+        }
+        return type.getInternalName();
+    }
+
+    /**
+     * @return Whether control can reach the point the code is generated at.
+     */
+    public boolean isReachable() {
+        return reachable;
+    }
+
+    @Override
+    public void visitLabel(Label label) {
+        State jumps = targets.get(label);
+        if (jumps != null) {
+            setState(reachable ? state().merge(jumps) : jumps);
+            reachable = true;
+        }
+        List<Integer> ended = scopeEnds.remove(label);
+        if (ended != null) {
+            for (int slot : ended) {
+                declared.set(slot, null);
+                set(slot, Opcodes.TOP);
+            }
+        }
+        sameOffset.add(label);
+        if (reachable) {
+            State state = state();
+            for (Label other : sameOffset) {
+                frames.put(other, state);
+            }
+        }
+        code.add(() -> {
+            super.visitLabel(label);
+            State frame = frames.get(label);
+            if (frame != null && targets.containsKey(label) && !framed) {
+                Object[] frameLocals = frameLocals(frame.locals());
+                super.visitFrame(Opcodes.F_NEW, frameLocals.length, frameLocals, frame.stack().length, frame.stack());
+                framed = true;
+            }
+        });
+    }
+
+    @Override
+    public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+        /* Frames are only written at the labels that are jumped to. */
+    }
+
+    @Override
+    public void visitInsn(int opcode) {
+        if (!reachable) {
+            return;
+        }
+        switch (opcode) {
+            case Opcodes.NOP -> {
+            }
+            case Opcodes.ACONST_NULL -> push(Opcodes.NULL);
+            case Opcodes.ICONST_M1, Opcodes.ICONST_0, Opcodes.ICONST_1, Opcodes.ICONST_2, Opcodes.ICONST_3,
+                    Opcodes.ICONST_4, Opcodes.ICONST_5 -> push(Opcodes.INTEGER);
+            case Opcodes.DCONST_0, Opcodes.DCONST_1 -> push(Opcodes.DOUBLE);
+            case Opcodes.IADD, Opcodes.ISUB, Opcodes.IMUL, Opcodes.IDIV, Opcodes.IREM -> {
+                pop();
+                pop();
+                push(Opcodes.INTEGER);
+            }
+            case Opcodes.DADD, Opcodes.DSUB, Opcodes.DMUL, Opcodes.DDIV, Opcodes.DREM -> {
+                pop();
+                pop();
+                push(Opcodes.DOUBLE);
+            }
+            case Opcodes.DCMPL, Opcodes.DCMPG -> {
+                pop();
+                pop();
+                push(Opcodes.INTEGER);
+            }
+            case Opcodes.INEG, Opcodes.DNEG -> push(pop());
+            case Opcodes.I2D -> {
+                pop();
+                push(Opcodes.DOUBLE);
+            }
+            case Opcodes.D2I -> {
+                pop();
+                push(Opcodes.INTEGER);
+            }
+            case Opcodes.DUP -> {
+                Object type = pop();
+                push(type);
+                push(type);
+            }
+            case Opcodes.IRETURN, Opcodes.DRETURN, Opcodes.ARETURN, Opcodes.ATHROW -> {
+                pop();
+                reachable = false;
+            }
+            case Opcodes.RETURN -> reachable = false;
+            case Opcodes.POP, Opcodes.POP2 -> pop();
+            default -> throw new IllegalStateException("Instruction " + opcode + " is not supported.");
+        }
+        emit(() -> super.visitInsn(opcode));
+    }
+
+    @Override
+    public void visitIntInsn(int opcode, int operand) {
+        if (!reachable) {
+            return;
+        }
+        switch (opcode) {
+            case Opcodes.BIPUSH, Opcodes.SIPUSH -> push(Opcodes.INTEGER);
+            default -> throw new IllegalStateException("Instruction " + opcode + " is not supported.");
+        }
+        emit(() -> super.visitIntInsn(opcode, operand));
+    }
+
+    /**
+     * Follows {@code NEW}. Until its constructor is called the object is uninitialized,
+     * which a frame tells by the label of the {@code NEW} instruction.
+     */
+    @Override
+    public void visitTypeInsn(int opcode, String type) {
+        if (!reachable) {
+            return;
+        }
+        if (opcode != Opcodes.NEW) {
+            throw new IllegalStateException("Instruction " + opcode + " is not supported.");
+        }
+        Label label = new Label();
+        push(label);
+        emit(() -> {
+            super.visitLabel(label);
+            super.visitTypeInsn(opcode, type);
+        });
+    }
+
+    /**
+     * Follows loads and stores. A value stored in the slot of a variable in scope takes the type of the variable,
+     * so that a {@code null} stored in a variable of a class does not make the frames disagree.
+     */
+    @Override
+    public void visitVarInsn(int opcode, int varIndex) {
+        if (!reachable) {
+            return;
+        }
+        switch (opcode) {
+            case Opcodes.ILOAD -> push(Opcodes.INTEGER);
+            case Opcodes.DLOAD -> push(Opcodes.DOUBLE);
+            case Opcodes.ALOAD -> push(varIndex < locals.size() ? locals.get(varIndex) : Opcodes.TOP);
+            case Opcodes.ISTORE, Opcodes.DSTORE, Opcodes.ASTORE -> {
+                Object type = pop();
+                Object variableType = varIndex < declared.size() ? declared.get(varIndex) : null;
+                set(varIndex, variableType != null ? variableType : type);
+            }
+            default -> throw new IllegalStateException("Instruction " + opcode + " is not supported.");
+        }
+        maxLocals = Math.max(maxLocals, varIndex + (opcode == Opcodes.DLOAD || opcode == Opcodes.DSTORE ? 2 : 1));
+        emit(() -> super.visitVarInsn(opcode, varIndex));
+    }
+
+    @Override
+    public void visitLdcInsn(Object value) {
+        if (!reachable) {
+            return;
+        }
+        if (value instanceof Integer || value instanceof Boolean) {
+            push(Opcodes.INTEGER);
+        } else if (value instanceof Double) {
+            push(Opcodes.DOUBLE);
+        } else if (value instanceof String) {
+            push("java/lang/String");
+        } else {
+            throw new IllegalStateException("Constant " + value + " is not supported.");
+        }
+        emit(() -> super.visitLdcInsn(value));
+    }
+
+    @Override
+    public void visitJumpInsn(int opcode, Label label) {
+        if (!reachable) {
+            return;
+        }
+        switch (opcode) {
+            case Opcodes.IFEQ, Opcodes.IFNE, Opcodes.IFLT, Opcodes.IFGE, Opcodes.IFGT, Opcodes.IFLE -> pop();
+            case Opcodes.IF_ICMPEQ, Opcodes.IF_ICMPNE, Opcodes.IF_ICMPLT, Opcodes.IF_ICMPGE, Opcodes.IF_ICMPGT,
+                    Opcodes.IF_ICMPLE -> {
+                pop();
+                pop();
+            }
+            case Opcodes.GOTO -> reachable = false;
+            default -> throw new IllegalStateException("Instruction " + opcode + " is not supported.");
+        }
+        targets.merge(label, state(), State::merge);
+        emit(() -> super.visitJumpInsn(opcode, label));
+    }
+
+    @Override
+    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+        if (!reachable) {
+            return;
+        }
+        switch (opcode) {
+            case Opcodes.GETFIELD -> {
+                pop();
+                push(frameType(descriptor));
+            }
+            case Opcodes.PUTFIELD -> {
+                pop();
+                pop();
+            }
+            default -> throw new IllegalStateException("Instruction " + opcode + " is not supported.");
+        }
+        emit(() -> super.visitFieldInsn(opcode, owner, name, descriptor));
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        if (!reachable) {
+            return;
+        }
+        for (int i = Type.getArgumentTypes(descriptor).length; i > 0; i--) {
+            pop();
+        }
+        if (opcode != Opcodes.INVOKESTATIC) {
+            Object receiver = pop();
+            if (name.equals("<init>")) {
+                Object initialized = receiver == Opcodes.UNINITIALIZED_THIS ? className : owner;
+                stack.replaceAll(type -> type == receiver ? initialized : type);
+                locals.replaceAll(type -> type == receiver ? initialized : type);
+            }
+        }
+        Type returnType = Type.getReturnType(descriptor);
+        if (returnType.getSort() != Type.VOID) {
+            push(frameType(returnType.getDescriptor()));
+        }
+        emit(() -> super.visitMethodInsn(opcode, owner, name, descriptor, isInterface));
+    }
+
+    /**
+     * Puts a variable in scope in its slot until its end label. A variable is declared once it holds a value,
+     * so its start label is the current position.
+     */
+    @Override
+    public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+        declare(index, frameType(descriptor));
+        scopeEnds.computeIfAbsent(end, label -> new ArrayList<>()).add(index);
+        localVariables.add(() -> super.visitLocalVariable(name, descriptor, signature, start, end, index));
+    }
+
+    /**
+     * Writes the code of the method with its frames, then its local variables and the maximum stack and locals.
+     */
+    @Override
+    public void visitMaxs(int maxStack, int maxLocals) {
+        for (Runnable instruction : code) {
+            instruction.run();
+        }
+        for (Runnable localVariable : localVariables) {
+            localVariable.run();
+        }
+        super.visitMaxs(this.maxStack, this.maxLocals);
+    }
+
+    private static Object frameType(String descriptor) {
+        return switch (descriptor.charAt(0)) {
+            case 'Z', 'B', 'C', 'S', 'I' -> Opcodes.INTEGER;
+            case 'D' -> Opcodes.DOUBLE;
+            case 'J' -> Opcodes.LONG;
+            case 'F' -> Opcodes.FLOAT;
+            case 'L' -> descriptor.substring(1, descriptor.length() - 1);
+            case '[' -> descriptor;
+            default -> Opcodes.TOP;
+        };
+    }
+
+    /**
+     * Turns the locals per slot into the locals of a frame, where a double is one entry,
+     * leaving out the free slots at the end.
+     */
+    private static Object[] frameLocals(Object[] slots) {
+        List<Object> entries = new ArrayList<>();
+        int used = 0;
+        for (int slot = 0; slot < slots.length; slot += size(slots[slot])) {
+            entries.add(slots[slot]);
+            if (slots[slot] != Opcodes.TOP) {
+                used = entries.size();
+            }
+        }
+        return entries.subList(0, used).toArray();
+    }
+
+    private State state() {
+        return new State(locals.toArray(), stack.toArray());
+    }
+
+    private void setState(State state) {
+        locals.clear();
+        Collections.addAll(locals, state.locals());
+        stack.clear();
+        stackSize = 0;
+        for (Object type : state.stack()) {
+            stack.add(type);
+            stackSize += size(type);
+        }
+    }
+
+    private void declare(int slot, Object type) {
+        while (declared.size() <= slot) {
+            declared.add(null);
+        }
+        declared.set(slot, type);
+        set(slot, type);
+        maxLocals = Math.max(maxLocals, slot + size(type));
+    }
+
+    /**
+     * Puts a value in a slot. A double takes the next slot too, and a double whose second slot is overwritten
+     * is lost.
+     */
+    private void set(int slot, Object type) {
+        while (locals.size() < slot + size(type)) {
+            locals.add(Opcodes.TOP);
+        }
+        if (slot > 0 && size(locals.get(slot - 1)) == 2) {
+            locals.set(slot - 1, Opcodes.TOP);
+        }
+        locals.set(slot, type);
+        if (size(type) == 2) {
+            locals.set(slot + 1, Opcodes.TOP);
+        }
+    }
+
+    private void emit(Runnable instruction) {
+        sameOffset.clear();
+        code.add(() -> {
+            framed = false;
+            instruction.run();
+        });
+    }
+
+    private void push(Object type) {
+        stack.add(type);
+        stackSize += size(type);
+        maxStack = Math.max(maxStack, stackSize);
+    }
+
+    private Object pop() {
+        if (stack.isEmpty()) {
+            throw new IllegalStateException("Nothing on the operand stack to take.");
+        }
+        Object type = stack.remove(stack.size() - 1);
+        stackSize -= size(type);
+        return type;
+    }
+
+    private static int size(Object type) {
+        return type == Opcodes.DOUBLE || type == Opcodes.LONG ? 2 : 1;
+    }
+}
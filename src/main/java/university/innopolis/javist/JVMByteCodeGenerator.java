@@ -1,106 +1,186 @@
 package university.innopolis.javist;
-//
-//import com.sun.tools.jconsole.JConsoleContext;
+
 import org.objectweb.asm.*;
-import university.innopolis.javist.errors.Constants;
-import university.innopolis.javist.errors.SemanticError;
+import university.innopolis.javist.ast.*;
 import university.innopolis.javist.lexer.Token;
-import university.innopolis.javist.symantic.Scope;
-import university.innopolis.javist.symantic.symbol.ClassSymbol;
+import university.innopolis.javist.symantic.Attribution;
+import university.innopolis.javist.symantic.SemanticAnalyzer;
+import university.innopolis.javist.symantic.symbol.ConstructorSymbol;
 import university.innopolis.javist.symantic.symbol.MethodSymbol;
+import university.innopolis.javist.symantic.symbol.ParameterSymbol;
+import university.innopolis.javist.symantic.symbol.TypeRef;
 import university.innopolis.javist.symantic.symbol.VariableSymbol;
-import university.innopolis.javist.syntax.NodeValue;
 import university.innopolis.javist.syntax.ProgramTree;
-import university.innopolis.javist.syntax.SyntaxComponent;
-import university.innopolis.javist.syntax.TokenLexemaPair;
 
-import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.stream.IntStream;
 
 public class JVMByteCodeGenerator {
-    private static final String CLASS_NAME = "Power";
-    private static final String SUPER_CLASS = "java/lang/Object";
-
     public static void run(ProgramTree tree) throws Exception {
+        run(tree, Path.of(""));
+    }
+
+    public static void run(ProgramTree tree, Path outputDirectory) throws Exception {
         /*
         run: This method is the main entry point of the class.
-        It takes a ProgramTree object as input and generates the bytecode for all the class declarations in the program using the generateClassDeclaration method.
-        It then writes the generated bytecode to a file named "Power.class".
+        It takes a ProgramTree object as input and analyzes it,
+        so that the types and the symbols the code is generated from are known.
+        No code is generated for a program the analysis found an error in.
+         */
+        SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(tree);
+        semanticAnalyzer.analyzePredefinedLibraries();
+        semanticAnalyzer.analyze();
+        run(semanticAnalyzer.getProgram(), semanticAnalyzer.getAttribution(), outputDirectory);
+    }
+
+    public static void run(Program program, Attribution attribution, Path outputDirectory) throws Exception {
+        /*
+        It generates a JVM class for every class declaration in the analyzed program using the generateClass method,
+        and writes it to a file named after the class in the output directory.
+        Types and variables are read from the attribution of the analysis, nothing is resolved again.
+        Every class has a ClassWriter of its own and the generation only reads the program and the attribution,
+        so the classes are generated in parallel. If several classes fail, the error of the first one is thrown.
+        Nothing is written unless every class is generated, so a failed run leaves no classes behind.
          */
         System.out.println("------------- Code generation Started --------------------------");
-        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
-        cw.visit(51, Opcodes.ACC_PUBLIC, CLASS_NAME, null, SUPER_CLASS, null);
+        List<ClassDeclaration> classes = program.classes();
+        byte[][] generated = new byte[classes.size()][];
+        List<Exception> errors = IntStream.range(0, classes.size()).parallel()
+                .mapToObj(i -> {
+                    try {
+                        generated[i] = generateClass(classes.get(i), attribution);
+                        return null;
+                    } catch (Exception e) {
+                        return e;
+                    }
+                })
+                .toList();
+        for (Exception error : errors) {
+            if (error != null) {
+                throw error;
+            }
+        }
 
-        for (ProgramTree classDeclaration : tree.getChildren()) {
-            generateClassDeclaration(classDeclaration, cw);
+        Files.createDirectories(outputDirectory);
+        for (int i = 0; i < classes.size(); i++) {
+            Files.write(outputDirectory.resolve(classes.get(i).name().name().name() + ".class"), generated[i]);
         }
+        System.out.println("------------- Code generation Done --------------------------");
+    }
 
+    public static byte[] generateClass(ClassDeclaration classDeclaration, Attribution attribution) throws Exception {
+        /*
+        A class extends the JVM class of its parent, or java/lang/Object if it has none.
+        The analysis only lets a class extend a class of the program, never a predefined one.
+        The ClassWriter computes nothing: the maximum stack, the locals and the frames of every method
+        are worked out by a FrameTracker while the code is generated.
+         */
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, classDeclaration.name().name().name(), null,
+                getSuperName(classDeclaration), null);
+        generateClassDeclaration(classDeclaration, attribution, cw);
         cw.visitEnd();
-
-
-        FileOutputStream fos = new FileOutputStream("Power.class");
-        fos.write(cw.toByteArray());
-        fos.close();
-        System.out.println("------------- Code generation Done --------------------------");
+        return cw.toByteArray();
     }
 
-    public static void generateClassDeclaration(ProgramTree classDeclaration, ClassWriter classWriter) throws Exception {
+    public static void generateClassDeclaration(ClassDeclaration classDeclaration, Attribution attribution, ClassWriter classWriter) throws Exception {
         /*
-        We enter the findFirstInChildren method, and it
-        allows us to find the position of the MEMBER_DECLARATIONS.
-        Now, why do we need member declarations ?
-        Because member declarations, inside member declaration we either have
-        VARIABLE_DECLARATION
-        METHOD_DECLARATION
-        CONSTRUCTOR_DECLARATION
+        A class consists of members, each of which is either a
+        VariableDeclaration
+        MethodDeclaration
+        ConstructorDeclaration
         inside of which we want to go.
          */
-
-        Integer classBodyPosition = findFirstInChildren(classDeclaration, SyntaxComponent.MEMBER_DECLARATIONS);
-
-        if (classBodyPosition == null) {
-            throw new IllegalArgumentException("Class declarations can not be found.");
+        /*
+        Every constructor initializes the fields, so they are collected first.
+        A class without a constructor gets one without parameters.
+         */
+        String className = classDeclaration.name().name().name();
+        String superName = getSuperName(classDeclaration);
+        List<VariableDeclaration> fields = new ArrayList<>();
+        boolean hasConstructor = false;
+        for (Member member : classDeclaration.members()) {
+            if (member instanceof VariableDeclaration variableDeclaration) {
+                fields.add(variableDeclaration);
+            } else if (member instanceof ConstructorDeclaration) {
+                hasConstructor = true;
+            }
         }
-
-        for (ProgramTree memberDeclaration : classDeclaration.getChild(classBodyPosition).getChildren()) {
-            if (memberDeclaration.getChild(0).getValue() == SyntaxComponent.VARIABLE_DECLARATION) {
-                generateVariableDeclaration(memberDeclaration.getChild(0), classWriter);
-            } else if (memberDeclaration.getChild(0).getValue() == SyntaxComponent.METHOD_DECLARATION) {
-                generateMethodDeclaration(memberDeclaration.getChild(0), classWriter);
-            } else if (memberDeclaration.getChild(0).getValue() == SyntaxComponent.CONSTRUCTOR_DECLARATION) {
-                generateConstructorDeclaration(memberDeclaration.getChild(0), classWriter);
+        for (Member member : classDeclaration.members()) {
+            if (member instanceof VariableDeclaration variableDeclaration) {
+                generateVariableDeclaration(variableDeclaration, attribution, classWriter);
+            } else if (member instanceof MethodDeclaration methodDeclaration) {
+                generateMethodDeclaration(methodDeclaration, className, attribution, classWriter);
+            } else if (member instanceof ConstructorDeclaration constructorDeclaration) {
+                generateConstructorDeclaration(constructorDeclaration, className, superName, fields, attribution, classWriter);
             }
         }
+        if (!hasConstructor) {
+            generateConstructor(List.of(), List.of(), className, superName, fields, attribution, classWriter);
+        }
     }
 
-    public static void generateVariableDeclaration(ProgramTree variableDeclaration, ClassWriter classWriter) throws Exception {
+    public static void generateVariableDeclaration(VariableDeclaration variableDeclaration, Attribution attribution, ClassWriter classWriter) throws Exception {
         /*
         The generateVariableDeclaration method generates the bytecode for a field declaration.
+        A field is protected, as the methods of subclasses read and write it too.
          */
-        FieldVisitor fv = classWriter.visitField(Opcodes.ACC_PRIVATE,
-                ((TokenLexemaPair) variableDeclaration.getChild(findFirstInChildren(variableDeclaration, Token.TK_IDENTIFIER)).getValue()).getLexema(),
-                getTypeDescriptorExpression(variableDeclaration.getChild(findFirstInChildren(variableDeclaration, SyntaxComponent.EXPRESSION))),
+        FieldVisitor fv = classWriter.visitField(Opcodes.ACC_PROTECTED,
+                variableDeclaration.name().name(),
+                getVariableDescriptor(attribution.variableOf(variableDeclaration)),
                 null,
                 null);
 
         fv.visitEnd();
     }
 
-    public static void generateVariableDeclaration(ProgramTree variableDeclaration, MethodVisitor methodVisitor) throws Exception {
-
-        // Get the identifier token for the variable declaration.
-        TokenLexemaPair identifierToken = (TokenLexemaPair) variableDeclaration.getChild(findFirstInChildren(variableDeclaration, Token.TK_IDENTIFIER)).getValue();
-        System.out.println(identifierToken.getLexema());
-        // Determine the descriptor for the variable based on its expression.
-        String variableDescriptor = getTypeDescriptorExpression(variableDeclaration.getChild(findFirstInChildren(variableDeclaration, SyntaxComponent.EXPRESSION)));
-        System.out.println(variableDescriptor);
-
-        methodVisitor.visitLocalVariable(identifierToken.getLexema(), "I", null, new Label(), new Label(), 0);
+    public static void generateVariableDeclaration(VariableDeclaration variableDeclaration, String className, Attribution attribution, Label endLabel, MethodVisitor methodVisitor) throws Exception {
+        /*
+        A local variable lives in the slot the analysis gave it, from its declaration to the end of its block,
+        endLabel. The slots of a block are given out again after it, so variables of disjoint blocks share them.
+        A variable declared with only its class, var x : Integer, starts with the default value of the class.
+         */
+        VariableSymbol variable = attribution.variableOf(variableDeclaration);
+        if (variable == null || !variable.isLocal()) {
+            throw new IllegalStateException("Variable " + variableDeclaration.name().name() + " was not resolved.");
+        }
+        Type type = jvmType(variable.getType());
+        if (variableDeclaration.value() instanceof Reference reference && attribution.variableOf(reference) == null) {
+            switch (type.getSort()) {
+                case Type.DOUBLE -> methodVisitor.visitInsn(Opcodes.DCONST_0);
+                case Type.OBJECT, Type.ARRAY -> methodVisitor.visitInsn(Opcodes.ACONST_NULL);
+                default -> methodVisitor.visitInsn(Opcodes.ICONST_0);
+            }
+        } else {
+            generateExpression(variableDeclaration.value(), className, attribution, methodVisitor);
+        }
+        methodVisitor.visitVarInsn(type.getOpcode(Opcodes.ISTORE), variable.getSlot());
 
+        Label startLabel = new Label();
+        methodVisitor.visitLabel(startLabel);
+        methodVisitor.visitLocalVariable(variable.getName(), getVariableDescriptor(variable), null,
+                startLabel, endLabel, variable.getSlot());
     }
 
+    private static void generateParameters(List<Parameter> parameters, String className, Label startLabel, Label endLabel, MethodVisitor methodVisitor) {
+        /*
+        this and the parameters are in scope all through the method, in the slots after one another.
+         */
+        methodVisitor.visitLocalVariable("this", "L" + className + ";", null, startLabel, endLabel, 0);
+        int slot = 1;
+        for (Parameter parameter : parameters) {
+            TypeRef type = TypeRef.of(parameter.type());
+            methodVisitor.visitLocalVariable(parameter.name().name(), type.getDescriptor(), null, startLabel, endLabel, slot);
+            slot += type.getSlotSize();
+        }
+    }
 
-    public static void generateMethodDeclaration(ProgramTree methodDeclaration, ClassWriter classWriter) throws Exception {
+    public static void generateMethodDeclaration(MethodDeclaration methodDeclaration, String className, Attribution attribution, ClassWriter classWriter) throws Exception {
         /*
         The generateMethodDeclaration method generates the bytecode for a method declaration.
         It's goal is to generate correct arguments for the method, the return type of the method, and it's visibility.
@@ -109,8 +189,8 @@ public class JVMByteCodeGenerator {
         This is responsible for generation of the name of the method.
          */
 
-        TokenLexemaPair lexemaPair = (TokenLexemaPair) methodDeclaration.getChild(findFirstInChildren(methodDeclaration, Token.TK_IDENTIFIER)).getValue();
-        if (lexemaPair.getLexema() == null) {
+        String methodName = methodDeclaration.name().name();
+        if (methodName == null) {
             throw new IllegalArgumentException("Name of the method is null null.");
         }
 
@@ -119,208 +199,475 @@ public class JVMByteCodeGenerator {
         getMethodDescriptor() provides a descriptor.
         And a descriptor is something that describes receiving type, and return type.
          */
-        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC,
-                lexemaPair.getLexema(),
-                getMethodDescriptor(methodDeclaration),
+        FrameTracker mv = new FrameTracker(classWriter.visitMethod(Opcodes.ACC_PUBLIC,
+                methodName,
+                getMethodDescriptor(methodDeclaration.parameters(), methodDeclaration.returnType()),
                 null,
-                null);
+                null), className, false, methodDeclaration.parameters());
 
+        Label startLabel = new Label();
+        Label endLabel = new Label();
         mv.visitCode();
-        Integer statementsPosition = findFirstInChildren(methodDeclaration, SyntaxComponent.STATEMENTS);
-        if (statementsPosition == null) {
-            throw new IllegalArgumentException("No statements position");
-        }
-        for (ProgramTree statement : methodDeclaration.getChild(statementsPosition).getChildren()) {
-            generateBySyntaxComponent(mv, statement);
-        }
+        mv.visitLabel(startLabel);
+        generateBody(methodDeclaration.body(), className, attribution, mv);
 
-        mv.visitInsn(Opcodes.RETURN);
-        //mv.visitMaxs(0, 3);
+        /*
+        A method with a return type returns a value on every path, which the analysis checks;
+        one that could fall off its end would fail verification.
+         */
+        if (methodDeclaration.returnType() == null) {
+            mv.visitInsn(Opcodes.RETURN);
+        } else if (mv.isReachable()) {
+            throw new IllegalStateException("Method " + methodName + " can end without returning a value.");
+        }
+        mv.visitLabel(endLabel);
+        generateParameters(methodDeclaration.parameters(), className, startLabel, endLabel, mv);
+        mv.visitMaxs(0, 0);
         mv.visitEnd();
     }
 
-    public static void generateConstructorDeclaration(ProgramTree constructorDeclaration, ClassWriter classWriter) throws Exception {
+    public static void generateConstructorDeclaration(ConstructorDeclaration constructorDeclaration, String className, String superName, List<VariableDeclaration> fields, Attribution attribution, ClassWriter classWriter) throws Exception {
         /*
         The generateConstructorDeclaration method generates the bytecode for a constructor declaration.
-        It also calls the generateBySyntaxComponent method for each statement in the constructor body.
+        It also calls the generateStatement method for each statement in the constructor body.
          */
-        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", getMethodDescriptor(constructorDeclaration), null, null);
-        mv.visitCode();
+        generateConstructor(constructorDeclaration.parameters(), constructorDeclaration.body(), className, superName,
+                fields, attribution, classWriter);
+    }
 
-        Integer statementsPosition = findFirstInChildren(constructorDeclaration, SyntaxComponent.STATEMENTS);
-        for (ProgramTree statement : constructorDeclaration.getChild(statementsPosition).getChildren()) {
-            generateBySyntaxComponent(mv, statement);
+    private static void generateConstructor(List<Parameter> parameters, List<Statement> body, String className, String superName, List<VariableDeclaration> fields, Attribution attribution, ClassWriter classWriter) throws Exception {
+        /*
+        A constructor first calls the constructor without parameters of the superclass, which initializes this
+        and the fields of the superclass, then gives the fields of the class their initial values
+        in the order they are declared, and then runs its body.
+         */
+        MethodVisitor mv = new FrameTracker(classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+                getMethodDescriptor(parameters, null), null, null),
+                className, true, parameters);
+        Label startLabel = new Label();
+        Label endLabel = new Label();
+        mv.visitCode();
+        mv.visitLabel(startLabel);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        for (VariableDeclaration field : fields) {
+            generateFieldInitializer(field, className, attribution, mv);
         }
 
+        generateBody(body, className, attribution, mv);
+
         mv.visitInsn(Opcodes.RETURN);
-        mv.visitMaxs(1, 1);
+        mv.visitLabel(endLabel);
+        generateParameters(parameters, className, startLabel, endLabel, mv);
+        mv.visitMaxs(0, 0);
         mv.visitEnd();
     }
 
-    public static void generateAssignment(ProgramTree assignment, MethodVisitor methodVisitor) throws Exception {
+    private static void generateFieldInitializer(VariableDeclaration variableDeclaration, String className, Attribution attribution, MethodVisitor methodVisitor) throws Exception {
+        /*
+        A field declared with only its class, var x : Integer, keeps the default value the JVM gives it.
+         */
+        if (variableDeclaration.value() instanceof Reference reference && attribution.variableOf(reference) == null) {
+            return;
+        }
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        generateExpression(variableDeclaration.value(), className, attribution, methodVisitor);
+        methodVisitor.visitFieldInsn(Opcodes.PUTFIELD, className, variableDeclaration.name().name(),
+                getVariableDescriptor(attribution.variableOf(variableDeclaration)));
+    }
+
+    public static void generateAssignment(Assignment assignment, String className, Attribution attribution, MethodVisitor methodVisitor) throws Exception {
         /*
         generateAssignment: This method generates bytecode for an assignment statement.
          */
         /*
          Example of assignment that this function will have to deal with -
-         ASSIGNMENT
-                {TK_IDENTIFIER : currentPow}
-                {TK_ASSIGN : :=}
-                EXPRESSION
-                  {TK_INTEGER_LITERAL : 0}
+         currentPow := 0
         We just need to add the assignment of specific value to a variable with specific name.
+        A parameter or a local variable is stored in its slot, a field of this object with PUTFIELD.
          */
+        VariableSymbol variable = attribution.variableOf(assignment);
+        if (variable != null && variable.isLocal()) {
+            generateExpression(assignment.value(), className, attribution, methodVisitor);
+            methodVisitor.visitVarInsn(jvmType(variable.getType()).getOpcode(Opcodes.ISTORE), variable.getSlot());
+            return;
+        }
         methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
-        Integer expressionPosition = findFirstInChildren(assignment, SyntaxComponent.EXPRESSION);
-        generateExpression(assignment.getChild(expressionPosition), methodVisitor);
-        methodVisitor.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, ((TokenLexemaPair) assignment.getChild(findFirstInChildren(assignment, Token.TK_IDENTIFIER)).getValue()).getLexema(), getTypeDescriptorExpression(assignment.getChild(expressionPosition)));
+        generateExpression(assignment.value(), className, attribution, methodVisitor);
+        methodVisitor.visitFieldInsn(Opcodes.PUTFIELD, className, assignment.target().name(), getVariableDescriptor(variable));
     }
 
-    public static void generateWhileLoop(ProgramTree whileLoop, MethodVisitor methodVisitor) throws Exception {
+    /*
+    A step of the generation of a body that is left to do.
+     */
+    private interface Step {
+        void generate(MethodVisitor methodVisitor) throws Exception;
+    }
+
+    private static void generateWhileLoop(WhileLoop whileLoop, String className, Attribution attribution, MethodVisitor methodVisitor, Deque<Step> steps) throws Exception {
         /*
         This method generates bytecode for a while loop statement.
+        The body and the jump back are left on the stack of steps.
          */
         Label startLabel = new Label();
         Label endLabel = new Label();
 
         methodVisitor.visitLabel(startLabel);
-        Integer expressionPosition = findFirstInChildren(whileLoop, SyntaxComponent.EXPRESSION);
-        Integer statementsPosition = findFirstInChildren(whileLoop, SyntaxComponent.STATEMENTS);
-        generateExpression(whileLoop.getChild(expressionPosition), methodVisitor);
-        methodVisitor.visitJumpInsn(Opcodes.IFEQ, endLabel);
+        generateCondition(whileLoop.condition(), endLabel, className, attribution, methodVisitor);
 
-        generateBody(whileLoop.getChild(statementsPosition).getChildren(), methodVisitor);
-        methodVisitor.visitJumpInsn(Opcodes.GOTO, startLabel);
-
-        methodVisitor.visitLabel(endLabel);
+        steps.push(mv -> {
+            mv.visitJumpInsn(Opcodes.GOTO, startLabel);
+            mv.visitLabel(endLabel);
+        });
+        pushBody(whileLoop.body(), className, attribution, steps);
     }
 
-    public static void generateIfStatement(ProgramTree ifStatement, MethodVisitor methodVisitor) throws Exception {
+    private static void generateIfStatement(IfStatement ifStatement, String className, Attribution attribution, MethodVisitor methodVisitor, Deque<Step> steps) throws Exception {
+        /*
+        The else branch starts at the label the condition jumps to, so that every jump has a target
+        a frame can be written at.
+         */
         Label elseLabel = new Label();
         Label endLabel = new Label();
 
-        Integer expressionPosition = findFirstInChildren(ifStatement, SyntaxComponent.EXPRESSION);
-        Integer statementsPosition = findFirstInChildren(ifStatement, SyntaxComponent.STATEMENTS);
-
-        generateExpression(ifStatement.getChild(expressionPosition), methodVisitor);
-        methodVisitor.visitJumpInsn(Opcodes.IFEQ, elseLabel);
-
-        generateBody(ifStatement.getChild(statementsPosition).getChildren(), methodVisitor);
-        methodVisitor.visitJumpInsn(Opcodes.GOTO, endLabel);
+        generateCondition(ifStatement.condition(), elseLabel, className, attribution, methodVisitor);
 
+        steps.push(mv -> mv.visitLabel(endLabel));
+        if (ifStatement.elseBody() != null) {
+            pushBody(ifStatement.elseBody(), className, attribution, steps);
+        }
+        steps.push(mv -> {
+            mv.visitJumpInsn(Opcodes.GOTO, endLabel);
+            mv.visitLabel(elseLabel);
+        });
+        pushBody(ifStatement.thenBody(), className, attribution, steps);
+    }
 
-        methodVisitor.visitLabel(endLabel);
+    public static void generateReturnStatement(ReturnStatement returnStatement, String className, Attribution attribution, MethodVisitor methodVisitor) throws Exception {
+        /*
+        The return instruction is the one of the type of the value: IRETURN for Integer and Boolean,
+        DRETURN for Real and ARETURN for any other class.
+         */
+        if (returnStatement.value() == null) {
+            methodVisitor.visitInsn(Opcodes.RETURN);
+            return;
+        }
+        generateExpression(returnStatement.value(), className, attribution, methodVisitor);
+        methodVisitor.visitInsn(jvmType(attribution.typeOf(returnStatement.value())).getOpcode(Opcodes.IRETURN));
     }
 
-    public static void generateReturnStatement(ProgramTree returnStatement, MethodVisitor methodVisitor) throws Exception {
-        Integer expressionPosition = findFirstInChildren(returnStatement, SyntaxComponent.EXPRESSION);
-        generateExpression(returnStatement.getChild(expressionPosition), methodVisitor);
-        methodVisitor.visitInsn(Opcodes.IRETURN);
+    public static void generateBody(List<Statement> body, String className, Attribution attribution, MethodVisitor methodVisitor) throws Exception {
+        /*
+        Nested loops and ifs are generated from an explicit stack of steps rather than recursively,
+        so deeply nested bodies do not overflow the call stack.
+         */
+        Deque<Step> steps = new ArrayDeque<>();
+        pushBody(body, className, attribution, steps);
+        while (!steps.isEmpty()) {
+            steps.pop().generate(methodVisitor);
+        }
     }
 
-    public static void generateBody(List<ProgramTree> body, MethodVisitor methodVisitor) throws Exception {
-        for (ProgramTree statement : body) {
-            generateBySyntaxComponent(methodVisitor, statement);
+    private static void pushBody(List<Statement> body, String className, Attribution attribution, Deque<Step> steps) {
+        /*
+        The variables declared in a body are in scope until the label after its last statement.
+         */
+        Label endLabel = new Label();
+        steps.push(mv -> mv.visitLabel(endLabel));
+        for (int i = body.size() - 1; i >= 0; i--) {
+            Statement statement = body.get(i);
+            steps.push(mv -> generateStatement(mv, className, attribution, statement, endLabel, steps));
         }
     }
 
-    private static void generateBySyntaxComponent(MethodVisitor methodVisitor, ProgramTree statement) throws Exception {
-        if (statement.getChild(0).getValue() == SyntaxComponent.VARIABLE_DECLARATION) {
-            generateVariableDeclaration(statement.getChild(0), methodVisitor);
-        } else if (statement.getChild(0).getValue() == SyntaxComponent.ASSIGNMENT) {
-            generateAssignment(statement.getChild(0), methodVisitor);
-        } else if (statement.getChild(0).getValue() == SyntaxComponent.WHILE_LOOP) {
-            generateWhileLoop(statement.getChild(0), methodVisitor);
-        } else if (statement.getChild(0).getValue() == SyntaxComponent.IF_STATEMENT) {
-            generateIfStatement(statement.getChild(0), methodVisitor);
-        } else if (statement.getChild(0).getValue() == SyntaxComponent.RETURN_STATEMENT) {
-            generateReturnStatement(statement.getChild(0), methodVisitor);
+    private static void generateStatement(MethodVisitor methodVisitor, String className, Attribution attribution, Statement statement, Label endLabel, Deque<Step> steps) throws Exception {
+        if (statement instanceof VariableDeclaration variableDeclaration) {
+            generateVariableDeclaration(variableDeclaration, className, attribution, endLabel, methodVisitor);
+        } else if (statement instanceof Assignment assignment) {
+            generateAssignment(assignment, className, attribution, methodVisitor);
+        } else if (statement instanceof WhileLoop whileLoop) {
+            generateWhileLoop(whileLoop, className, attribution, methodVisitor, steps);
+        } else if (statement instanceof IfStatement ifStatement) {
+            generateIfStatement(ifStatement, className, attribution, methodVisitor, steps);
+        } else if (statement instanceof ReturnStatement returnStatement) {
+            generateReturnStatement(returnStatement, className, attribution, methodVisitor);
         }
     }
 
-    public static void generateExpression(ProgramTree expression, MethodVisitor methodVisitor) throws Exception {
-        generatePrimary(expression.getChild(0), methodVisitor);
+    public static void generateExpression(Expression expression, String className, Attribution attribution, MethodVisitor methodVisitor) throws Exception {
+        /*
+        A chain a.f(x).g(y) is nested to the left. Its primary is generated first and then every call in a loop,
+        each applied to the value the one before it left on the stack, so long chains do not overflow the call stack.
+         */
+        List<Call> chain = new ArrayList<>();
+        Expression target = expression;
+        while (target instanceof Call call) {
+            chain.add(call);
+            target = call.target();
+        }
+        generatePrimary(target, className, attribution, methodVisitor);
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            generateCall(chain.get(i), className, attribution, methodVisitor);
+        }
     }
 
-    public static void generatePrimary(ProgramTree primary, MethodVisitor methodVisitor) {
-        if (primary.getValue() instanceof TokenLexemaPair) {
-            if (((TokenLexemaPair) primary.getValue()).getToken() == Token.TK_THIS) {
-                methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+    public static void generatePrimary(Expression primary, String className, Attribution attribution, MethodVisitor methodVisitor) {
+        /*
+        Integer, Real and Boolean are held as int, double and int (0 or 1) values.
+        A name is a parameter or a local variable in its slot, a field of this object, or a class, which has no value.
+         */
+        if (primary instanceof This) {
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        } else if (primary instanceof Literal literal) {
+            if (literal.kind() == Token.TK_BOOLEAN_LITERAL) {
+                methodVisitor.visitInsn(Boolean.parseBoolean(literal.text()) ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+            } else if (literal.kind() == Token.TK_REAL_LITERAL) {
+                generateReal(Double.parseDouble(literal.text()), methodVisitor);
+            } else if (literal.kind() == Token.TK_INTEGER_LITERAL) {
+                generateInteger(Integer.parseInt(literal.text()), methodVisitor);
             }
-            else if (((TokenLexemaPair) primary.getValue()).getToken() == Token.TK_BOOLEAN_LITERAL) {
-                methodVisitor.visitLdcInsn(Boolean.valueOf(((TokenLexemaPair) primary.getValue()).getLexema()));
-            } else if (((TokenLexemaPair) primary.getValue()).getToken() == Token.TK_REAL_LITERAL) {
-                methodVisitor.visitLdcInsn(Double.valueOf(((TokenLexemaPair) primary.getValue()).getLexema()));
-            } else if (((TokenLexemaPair) primary.getValue()).getToken() == Token.TK_INTEGER_LITERAL) {
-                methodVisitor.visitLdcInsn(Integer.valueOf(((TokenLexemaPair) primary.getValue()).getLexema()));
+        } else if (primary instanceof Reference reference) {
+            VariableSymbol variable = attribution.variableOf(reference);
+            if (variable == null) {
+                return;
+            }
+            if (variable.isLocal()) {
+                methodVisitor.visitVarInsn(jvmType(variable.getType()).getOpcode(Opcodes.ILOAD), variable.getSlot());
+            } else {
+                methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+                methodVisitor.visitFieldInsn(Opcodes.GETFIELD, className, variable.getName(), getVariableDescriptor(variable));
             }
         }
     }
 
-    public static String getMethodDescriptor(ProgramTree methodDeclaration) throws Exception {
-        StringBuilder descriptor = new StringBuilder("(");
-        Integer parametersPosition = findFirstInChildren(methodDeclaration, SyntaxComponent.PARAMETERS);
-        for (ProgramTree parameter : methodDeclaration.getChild(parametersPosition).getChildren()) {
-            if (parameter.getValue() == SyntaxComponent.VARIABLE_DECLARATION) {
-                Integer classNamePosition = findFirstInChildren(parameter, SyntaxComponent.CLASS_NAME);
-                descriptor.append(getTypeDescriptorExpression(parameter.getChild(classNamePosition)));
+    private static void generateCall(Call call, String className, Attribution attribution, MethodVisitor methodVisitor) throws Exception {
+        /*
+        The methods of Integer and Real are built in: they are lowered to the instructions doing the arithmetic
+        on the values instead of being called. Any other method is called on the object.
+        A class applied to arguments, Foo(x), makes a new object; Integer(x) and Real(x) convert the value.
+         */
+        TypeRef targetType = attribution.typeOf(call.target());
+        if (call.method() == null) {
+            if (targetType != null && targetType.isValue()) {
+                for (Expression argument : call.arguments()) {
+                    generateExpression(argument, className, attribution, methodVisitor);
+                    generateConversion(attribution.typeOf(argument), targetType, methodVisitor);
+                }
+                return;
+            }
+            ConstructorSymbol constructor = attribution.constructorOf(call);
+            if (constructor == null) {
+                return;
             }
+            methodVisitor.visitTypeInsn(Opcodes.NEW, targetType.getInternalName());
+            methodVisitor.visitInsn(Opcodes.DUP);
+            generateArguments(call, className, attribution, methodVisitor);
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, targetType.getInternalName(), "<init>",
+                    getMethodDescriptor(constructor.getParameters(), null), false);
+            return;
         }
-        descriptor.append(")");
-        Integer returnTypePosition = findFirstInChildren(methodDeclaration, Token.TK_COLON);
-        if(returnTypePosition == null){
-            descriptor.append("V");
+
+        MethodSymbol method = attribution.methodOf(call);
+        if (method == null) {
+            throw new IllegalStateException("The call of " + call.method().name() + " is not resolved.");
         }
-        else{
-            descriptor.append(getTypeDescriptorExpression(methodDeclaration.getChild(returnTypePosition + 1)));
+        if (targetType.isValue()) {
+            generateIntrinsic(call, method, targetType, className, attribution, methodVisitor);
+            return;
         }
-        return descriptor.toString();
+        generateArguments(call, className, attribution, methodVisitor);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, targetType.getInternalName(), method.getName(),
+                getMethodDescriptor(method.getParameters(), method.getReturnType()), false);
     }
 
-    public static String getTypeDescriptorExpression(ProgramTree expression) throws Exception {
-        if (expression.getChildrenCount() == 0) {
-            if (expression.getValue() instanceof TokenLexemaPair) {
-                if(((TokenLexemaPair) expression.getValue()).getToken() == Token.TK_INTEGER) {
-                    return "Ljava/lang/Integer;";
-                }
-                return ((TokenLexemaPair) expression.getValue()).getLexema();
+    private static void generateArguments(Call call, String className, Attribution attribution, MethodVisitor methodVisitor) throws Exception {
+        for (Expression argument : call.arguments()) {
+            generateExpression(argument, className, attribution, methodVisitor);
+        }
+    }
+
+    private static void generateIntrinsic(Call call, MethodSymbol method, TypeRef targetType, String className, Attribution attribution, MethodVisitor methodVisitor) throws Exception {
+        /*
+        The target is on the stack. An operation with a Real and an Integer is done on doubles,
+        the Integer converted with I2D; a comparison leaves 1 or 0.
+         */
+        String name = method.getName();
+        switch (name) {
+            case "toReal", "toInteger" -> generateConversion(targetType, method.getReturnType(), methodVisitor);
+            case "UnaryMinus" -> methodVisitor.visitInsn(jvmType(targetType).getOpcode(Opcodes.INEG));
+            case "Plus", "Minus", "Mult", "Div", "Rem" -> {
+                TypeRef operandType = operandType(method, targetType);
+                generateConversion(targetType, operandType, methodVisitor);
+                Expression argument = call.arguments().get(0);
+                generateExpression(argument, className, attribution, methodVisitor);
+                generateConversion(attribution.typeOf(argument), operandType, methodVisitor);
+                int opcode = switch (name) {
+                    case "Plus" -> Opcodes.IADD;
+                    case "Minus" -> Opcodes.ISUB;
+                    case "Mult" -> Opcodes.IMUL;
+                    case "Div" -> Opcodes.IDIV;
+                    default -> Opcodes.IREM;
+                };
+                methodVisitor.visitInsn(jvmType(operandType).getOpcode(opcode));
             }
-            return "";
-        }
-        if (expression.getChild(0).getValue() instanceof TokenLexemaPair && ((TokenLexemaPair) expression.getChild(0).getValue()).getToken() == Token.TK_BOOLEAN_LITERAL) {
-            return "Z";
-        } else if (expression.getChild(0).getValue() instanceof TokenLexemaPair && ((TokenLexemaPair) expression.getChild(0).getValue()).getToken() == Token.TK_INTEGER_LITERAL) {
-            return "I";
-        } else if (expression.getChild(0).getValue() instanceof TokenLexemaPair && ((TokenLexemaPair) expression.getChild(0).getValue()).getToken() == Token.TK_REAL_LITERAL) {
-            return "D";
-        } else if (expression.getChild(0).getValue() instanceof TokenLexemaPair && ((TokenLexemaPair) expression.getChild(0).getValue()).getToken() == Token.TK_THIS) {
-            return "L" + CLASS_NAME + ";";
-        } else if (expression.getChild(0).getValue() instanceof TokenLexemaPair && ((TokenLexemaPair) expression.getChild(0).getValue()).getToken() == Token.TK_IDENTIFIER) {
-            return "L" + ((TokenLexemaPair) expression.getChild(0).getValue()).getLexema() + ";";
-        } else if (expression.getChild(0).getValue() instanceof TokenLexemaPair && ((TokenLexemaPair) expression.getChild(0).getValue()).getToken() == Token.TK_INTEGER) {
-            return "Ljava/lang/Integer;";
-        }
-        return "V";
-    }
-
-    private static Integer findFirstInChildren(ProgramTree parent, Token token) {
-        for (int i = 0; i < parent.getChildrenCount(); i++) {
-            NodeValue current = parent.getChild(i).getValue();
-            if (current instanceof TokenLexemaPair) {
-                if (((TokenLexemaPair) current).getToken() == token) {
-                    return i;
-                }
+            case "toBoolean", "Less", "LessEqual", "Greater", "GreaterEqual", "Equal", "NotEqual" -> {
+                Label falseLabel = new Label();
+                Label endLabel = new Label();
+                generateComparison(call, method, targetType, falseLabel, className, attribution, methodVisitor);
+                methodVisitor.visitInsn(Opcodes.ICONST_1);
+                methodVisitor.visitJumpInsn(Opcodes.GOTO, endLabel);
+                methodVisitor.visitLabel(falseLabel);
+                methodVisitor.visitInsn(Opcodes.ICONST_0);
+                methodVisitor.visitLabel(endLabel);
             }
+            default -> throw new IllegalStateException("Method " + name + " of " + targetType + " is not built in.");
         }
-        return null;
     }
 
-    private static Integer findFirstInChildren(ProgramTree parent, SyntaxComponent syntaxComponent) {
-        for (int i = 0; i < parent.getChildrenCount(); i++) {
-            if (parent.getChild(i).getValue() == syntaxComponent) {
-                return i;
+    private static void generateCondition(Expression condition, Label falseLabel, String className, Attribution attribution, MethodVisitor methodVisitor) throws Exception {
+        /*
+        A condition jumps to falseLabel if it does not hold. A comparison of Integers or Reals
+        jumps on the comparison itself, with no Boolean made in between.
+         */
+        if (condition instanceof Call call && call.method() != null && isComparison(call.method().name())) {
+            MethodSymbol method = attribution.methodOf(call);
+            TypeRef targetType = attribution.typeOf(call.target());
+            if (method != null && targetType != null && targetType.isValue()) {
+                generateExpression(call.target(), className, attribution, methodVisitor);
+                generateComparison(call, method, targetType, falseLabel, className, attribution, methodVisitor);
+                return;
             }
         }
-        return null;
+        generateExpression(condition, className, attribution, methodVisitor);
+        methodVisitor.visitJumpInsn(Opcodes.IFEQ, falseLabel);
+    }
+
+    private static void generateComparison(Call call, MethodSymbol method, TypeRef targetType, Label falseLabel, String className, Attribution attribution, MethodVisitor methodVisitor) throws Exception {
+        /*
+        The target is on the stack. Integers are compared by IF_ICMP jumps. Reals are compared by DCMPG for
+        Less and LessEqual and by DCMPL otherwise, so that a comparison with NaN does not hold, but NotEqual does.
+         */
+        String name = method.getName();
+        if (name.equals("toBoolean")) {
+            methodVisitor.visitJumpInsn(Opcodes.IFEQ, falseLabel);
+            return;
+        }
+        TypeRef operandType = operandType(method, targetType);
+        generateConversion(targetType, operandType, methodVisitor);
+        Expression argument = call.arguments().get(0);
+        generateExpression(argument, className, attribution, methodVisitor);
+        generateConversion(attribution.typeOf(argument), operandType, methodVisitor);
+
+        int jump = switch (name) {
+            case "Less" -> Opcodes.IFGE;
+            case "LessEqual" -> Opcodes.IFGT;
+            case "Greater" -> Opcodes.IFLE;
+            case "GreaterEqual" -> Opcodes.IFLT;
+            case "NotEqual" -> Opcodes.IFEQ;
+            default -> Opcodes.IFNE;
+        };
+        if (operandType == TypeRef.REAL) {
+            methodVisitor.visitInsn(name.startsWith("Less") ? Opcodes.DCMPG : Opcodes.DCMPL);
+            methodVisitor.visitJumpInsn(jump, falseLabel);
+        } else {
+            methodVisitor.visitJumpInsn(jump - Opcodes.IFEQ + Opcodes.IF_ICMPEQ, falseLabel);
+        }
+    }
+
+    private static boolean isComparison(String name) {
+        return switch (name) {
+            case "toBoolean", "Less", "LessEqual", "Greater", "GreaterEqual", "Equal", "NotEqual" -> true;
+            default -> false;
+        };
+    }
+
+    /*
+    The type an operation of a built-in method is done in: Real if the target or the argument is a Real.
+     */
+    private static TypeRef operandType(MethodSymbol method, TypeRef targetType) {
+        TypeRef argumentType = method.getParameters().get(0).getType();
+        return targetType == TypeRef.REAL || argumentType == TypeRef.REAL ? TypeRef.REAL : targetType;
+    }
+
+    private static void generateConversion(TypeRef from, TypeRef to, MethodVisitor methodVisitor) {
+        if (from == TypeRef.INTEGER && to == TypeRef.REAL) {
+            methodVisitor.visitInsn(Opcodes.I2D);
+        } else if (from == TypeRef.REAL && to == TypeRef.INTEGER) {
+            methodVisitor.visitInsn(Opcodes.D2I);
+        }
+    }
+
+    private static void generateInteger(int value, MethodVisitor methodVisitor) {
+        if (value >= -1 && value <= 5) {
+            methodVisitor.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            methodVisitor.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            methodVisitor.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            methodVisitor.visitLdcInsn(value);
+        }
+    }
+
+    private static void generateReal(double value, MethodVisitor methodVisitor) {
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            methodVisitor.visitInsn(Opcodes.DCONST_0);
+        } else if (value == 1.0) {
+            methodVisitor.visitInsn(Opcodes.DCONST_1);
+        } else {
+            methodVisitor.visitLdcInsn(value);
+        }
+    }
+
+    /*
+    The internal name of the JVM class a class extends: the one of its parent, or java/lang/Object.
+     */
+    private static String getSuperName(ClassDeclaration classDeclaration) {
+        TypeName parent = classDeclaration.superclass();
+        return parent == null ? Type.getInternalName(Object.class) : parent.name().name();
+    }
+
+    private static String getMethodDescriptor(List<ParameterSymbol> parameters, TypeRef returnType) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (ParameterSymbol parameter : parameters) {
+            descriptor.append(parameter.getType().getDescriptor());
+        }
+        return descriptor.append(")").append(returnType == null ? "V" : returnType.getDescriptor()).toString();
+    }
+
+    public static String getMethodDescriptor(List<Parameter> parameters, Identifier returnType) throws Exception {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Parameter parameter : parameters) {
+            descriptor.append(TypeRef.of(parameter.type()).getDescriptor());
+        }
+        descriptor.append(")");
+        if (returnType == null) {
+            descriptor.append("V");
+        } else {
+            descriptor.append(TypeRef.of(returnType.name()).getDescriptor());
+        }
+        return descriptor.toString();
+    }
+
+    public static String getTypeDescriptorExpression(Expression expression, Attribution attribution) throws Exception {
+        return getTypeDescriptor(attribution.typeOf(expression));
+    }
+
+    /*
+    The descriptor of a variable the analysis bound a node to; "V" if it did not bind it.
+     */
+    private static String getVariableDescriptor(VariableSymbol variable) {
+        return getTypeDescriptor(variable == null ? null : variable.getType());
+    }
+
+    private static String getTypeDescriptor(TypeRef type) {
+        return type == null ? "V" : type.getDescriptor();
+    }
+
+    /*
+    The JVM type of a value, for picking the instruction of its kind, e.g. ILOAD, DLOAD or ALOAD.
+     */
+    private static Type jvmType(TypeRef type) {
+        return Type.getType(type == null ? "Ljava/lang/Object;" : type.getDescriptor());
     }
-}
\ No newline at end of file
+}
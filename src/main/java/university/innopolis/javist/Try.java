@@ -1,11 +1,15 @@
 package university.innopolis.javist;
 
+import university.innopolis.javist.errors.SemanticError;
 import university.innopolis.javist.errors.SyntaxError;
 import university.innopolis.javist.lexer.Lexer;
+import university.innopolis.javist.lexer.ParallelLexer;
 import university.innopolis.javist.symantic.SemanticAnalyzer;
 import university.innopolis.javist.syntax.ProgramTree;
 import university.innopolis.javist.syntax.SyntaxAnalyzer;
 
+import java.util.ArrayDeque;
+
 public class Try {
 
     public static void main(String[] args) throws Exception {
@@ -21,8 +25,7 @@ public class Try {
 
     public static void testSyntaxAnalyzer(String filePath) {
         try {
-            var lexer = new Lexer(filePath);
-            var syntaxAnalyser = new SyntaxAnalyzer(lexer);
+            var syntaxAnalyser = new SyntaxAnalyzer(new ParallelLexer().tokenize(filePath));
             printAST(syntaxAnalyser.makeTree(), 0);
         } catch (SyntaxError e) {
             System.out.println("SyntaxError: " + e.getMessage());
@@ -32,9 +35,7 @@ public class Try {
 
     public static void testSemanticAnalyzer(String filepath) throws Exception {
         ProgramTree tree;
-        Lexer lexer = new Lexer(filepath);
-        SyntaxAnalyzer syntaxAnalyzer = new SyntaxAnalyzer(lexer);
-        tree =  new SyntaxAnalyzer(lexer).makeTree();
+        tree = new SyntaxAnalyzer(new ParallelLexer().tokenize(filepath)).makeTree();
         SemanticAnalyzer semanticAnalyzer;
         try{
             semanticAnalyzer = new SemanticAnalyzer(tree);
@@ -42,16 +43,31 @@ public class Try {
             System.out.println("SyntaxError: " + e.getMessage());
             return;
         }
-        semanticAnalyzer.analyzePredefinedLibraries("src/main/resources/sources/Libraries.txt");
-        semanticAnalyzer.analyze();
+        semanticAnalyzer.analyzePredefinedLibraries();
+        try {
+            semanticAnalyzer.analyze();
+        } catch (SemanticError e) {
+            System.out.println("Semantic Error: " + e.getMessage());
+        }
     }
 
+    /**
+     * Prints the tree, a node per line, indented by its depth.
+     * The nodes are visited from an explicit stack, so deeply nested trees do not overflow the call stack.
+     */
     public static void printAST(ProgramTree node, int depth) {
-        String indent = "  ".repeat(depth);
-
-        System.out.println(indent + node.toString());
-        for (int i = 0; i < node.getChildrenCount(); i++) {
-            printAST(node.getChild(i), depth + 1);
+        ArrayDeque<ProgramTree> nodes = new ArrayDeque<>();
+        ArrayDeque<Integer> depths = new ArrayDeque<>();
+        nodes.push(node);
+        depths.push(depth);
+        while (!nodes.isEmpty()) {
+            ProgramTree current = nodes.pop();
+            int currentDepth = depths.pop();
+            System.out.println("  ".repeat(currentDepth) + current.toString());
+            for (int i = current.getChildrenCount() - 1; i >= 0; i--) {
+                nodes.push(current.getChild(i));
+                depths.push(currentDepth + 1);
+            }
         }
     }
 
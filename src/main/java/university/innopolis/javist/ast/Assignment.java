@@ -0,0 +1,8 @@
+package university.innopolis.javist.ast;
+
+public record Assignment(Identifier target, Expression value, int line, int column) implements Statement {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitAssignment(this, parameter);
+    }
+}
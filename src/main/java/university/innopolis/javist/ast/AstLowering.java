@@ -0,0 +1,314 @@
+package university.innopolis.javist.ast;
+
+import university.innopolis.javist.errors.Constants;
+import university.innopolis.javist.errors.SemanticError;
+import university.innopolis.javist.lexer.IdentifierTable;
+import university.innopolis.javist.lexer.Token;
+import university.innopolis.javist.syntax.ProgramTree;
+import university.innopolis.javist.syntax.SyntaxComponent;
+import university.innopolis.javist.syntax.TokenLexemaPair;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Makes the typed AST from the concrete tree built by the {@link university.innopolis.javist.syntax.SyntaxAnalyzer}.
+ * Children are read by their kind, so the later passes do not search for them or index them by position.
+ * The concrete tree is only read, and the lists of the typed AST cannot be modified,
+ * so the passes over it may share both without copying.
+ */
+public class AstLowering {
+    /**
+     * Lowers a whole program.
+     * @param root The PROGRAM node.
+     * @return The typed program.
+     * @throws SemanticError if the root is not a program or a class is not a class declaration.
+     */
+    public Program lower(ProgramTree root) throws SemanticError {
+        if (root.getValue() != SyntaxComponent.PROGRAM) {
+            throw new SemanticError(Constants.INVALID_ROOT, root.getLine(), root.getColumn());
+        }
+
+        List<ClassDeclaration> classes = new ArrayList<>(root.getChildrenCount());
+        for (ProgramTree child : root.getChildren()) {
+            if (child.getValue() != SyntaxComponent.CLASS_DECLARATION) {
+                throw new SemanticError(Constants.CLASS_DECLARATION_NOT_FOUND, child.getLine(), child.getColumn());
+            }
+            classes.add(lowerClass(child));
+        }
+        return new Program(Collections.unmodifiableList(classes), root.getLine(), root.getColumn());
+    }
+
+    private ClassDeclaration lowerClass(ProgramTree node) {
+        TypeName name = null;
+        TypeName parent = null;
+        List<Member> members = new ArrayList<>();
+
+        for (ProgramTree child : node.getChildren()) {
+            if (child.getValue() == SyntaxComponent.CLASS_NAME) {
+                if (name == null) {
+                    name = lowerTypeName(child);
+                } else {
+                    parent = lowerTypeName(child);
+                }
+            } else if (child.getValue() == SyntaxComponent.MEMBER_DECLARATIONS) {
+                for (ProgramTree member : child.getChildren()) {
+                    members.add(lowerMember(member));
+                }
+            }
+        }
+        return new ClassDeclaration(name, parent, Collections.unmodifiableList(members), node.getLine(), node.getColumn());
+    }
+
+    private Member lowerMember(ProgramTree node) {
+        ProgramTree declaration = node.getChild(0);
+        if (declaration.getValue() == SyntaxComponent.VARIABLE_DECLARATION) {
+            return lowerVariable(declaration);
+        }
+        if (declaration.getValue() == SyntaxComponent.METHOD_DECLARATION) {
+            return lowerMethod(declaration);
+        }
+        if (declaration.getValue() == SyntaxComponent.CONSTRUCTOR_DECLARATION) {
+            return new ConstructorDeclaration(lowerParameters(declaration), lowerBody(declaration, 0),
+                    declaration.getLine(), declaration.getColumn());
+        }
+        throw new SemanticError("Class body can contain only variable, method and constructor declarations",
+                node.getLine(), node.getColumn());
+    }
+
+    private VariableDeclaration lowerVariable(ProgramTree node) {
+        return new VariableDeclaration(identifier(node.getChild(1)), lowerExpression(node.getChild(3)),
+                node.getLine(), node.getColumn());
+    }
+
+    private MethodDeclaration lowerMethod(ProgramTree node) {
+        Identifier returnType = null;
+        for (int i = 0; i < node.getChildrenCount(); i++) {
+            if (token(node.getChild(i)) == Token.TK_COLON) {
+                returnType = identifier(node.getChild(i + 1));
+            }
+        }
+        return new MethodDeclaration(identifier(node.getChild(1)), lowerParameters(node), returnType,
+                lowerBody(node, 0), node.getLine(), node.getColumn());
+    }
+
+    private List<Parameter> lowerParameters(ProgramTree declaration) {
+        List<Parameter> parameters = new ArrayList<>();
+        for (ProgramTree child : declaration.getChildren()) {
+            if (child.getValue() != SyntaxComponent.PARAMETERS) {
+                continue;
+            }
+            for (ProgramTree parameter : child.getChildren()) {
+                if (parameter.getValue() == SyntaxComponent.VARIABLE_DECLARATION) {
+                    parameters.add(new Parameter(identifier(parameter.getChild(0)), lowerTypeName(parameter.getChild(2)),
+                            parameter.getLine(), parameter.getColumn()));
+                }
+            }
+        }
+        return Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * Lowers a list of statements of a node. Nested bodies are lowered without recursion: all bodies are listed
+     * outermost first, then lowered innermost first, so the bodies of an if or a loop are ready before it.
+     * @param node The node.
+     * @param n    Which of the STATEMENTS children to take, 0 for the first.
+     * @return The statements, or null if the node has no such child.
+     */
+    private List<Statement> lowerBody(ProgramTree node, int n) {
+        ProgramTree body = statements(node, n);
+        if (body == null) {
+            return null;
+        }
+
+        List<ProgramTree> bodies = new ArrayList<>();
+        Deque<ProgramTree> work = new ArrayDeque<>();
+        work.push(body);
+        while (!work.isEmpty()) {
+            ProgramTree statements = work.pop();
+            bodies.add(statements);
+            for (ProgramTree statement : statements.getChildren()) {
+                for (ProgramTree child : statement.getChild(0).getChildren()) {
+                    if (child.getValue() == SyntaxComponent.STATEMENTS) {
+                        work.push(child);
+                    }
+                }
+            }
+        }
+
+        Map<ProgramTree, List<Statement>> lowered = new IdentityHashMap<>();
+        for (int i = bodies.size() - 1; i >= 0; i--) {
+            ProgramTree statements = bodies.get(i);
+            List<Statement> result = new ArrayList<>(statements.getChildrenCount());
+            for (ProgramTree statement : statements.getChildren()) {
+                result.add(lowerStatement(statement.getChild(0), lowered));
+            }
+            lowered.put(statements, Collections.unmodifiableList(result));
+        }
+        return lowered.get(body);
+    }
+
+    /**
+     * Finds a STATEMENTS child of a node.
+     * @param n Which of the STATEMENTS children to take, 0 for the first.
+     * @return The child, or null if the node has no such child.
+     */
+    private static ProgramTree statements(ProgramTree node, int n) {
+        for (ProgramTree child : node.getChildren()) {
+            if (child.getValue() == SyntaxComponent.STATEMENTS && n-- == 0) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lowers a statement whose bodies, if it has any, are lowered already.
+     * @param lowered The lowered bodies by their STATEMENTS nodes; the ones of the statement are taken out.
+     */
+    private Statement lowerStatement(ProgramTree node, Map<ProgramTree, List<Statement>> lowered) {
+        SyntaxComponent kind = (SyntaxComponent) node.getValue();
+        return switch (kind) {
+            case VARIABLE_DECLARATION -> lowerVariable(node);
+            case ASSIGNMENT -> new Assignment(identifier(node.getChild(0)), lowerExpression(node.getChild(2)),
+                    node.getLine(), node.getColumn());
+            case WHILE_LOOP -> new WhileLoop(lowerExpression(node.getChild(1)), lowered.remove(statements(node, 0)),
+                    node.getLine(), node.getColumn());
+            case IF_STATEMENT -> {
+                ProgramTree elseBody = statements(node, 1);
+                yield new IfStatement(lowerExpression(node.getChild(1)), lowered.remove(statements(node, 0)),
+                        elseBody == null ? null : lowered.remove(elseBody), node.getLine(), node.getColumn());
+            }
+            case RETURN_STATEMENT -> new ReturnStatement(lowerExpression(node.getChild(1)),
+                    node.getLine(), node.getColumn());
+            default -> throw new IllegalArgumentException("Not a statement: " + kind);
+        };
+    }
+
+    /**
+     * Lowers an EXPRESSION node: a primary followed by either arguments or a chain of method calls,
+     * or an operator with its operands.
+     */
+    private Expression lowerExpression(ProgramTree node) {
+        if (isOperator(node.getChild(0))) {
+            return lowerOperators(node);
+        }
+        Expression result = lowerPrimary(node.getChild(0), node.getLine(), node.getColumn());
+
+        for (int i = 1; i < node.getChildrenCount(); i++) {
+            ProgramTree child = node.getChild(i);
+            if (child.getValue() == SyntaxComponent.ARGUMENTS) {
+                result = new Call(result, null, lowerArguments(child), child.getLine(), child.getColumn(),
+                        child.getLine(), child.getColumn());
+            } else {
+                ProgramTree arguments = node.getChild(i + 2);
+                result = new Call(result, identifier(node.getChild(i + 1)), lowerArguments(arguments),
+                        arguments.getLine(), arguments.getColumn(), child.getLine(), child.getColumn());
+                i += 2;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lowers an operator to the call of the method of its left operand that does it, so {@code a + b * c}
+     * is {@code a.Plus(b.Mult(c))} and {@code -a} is {@code a.UnaryMinus()}, positioned at the operator.
+     * A row {@code a + b + c} is nested to the left; it is walked down to its first operand in a loop,
+     * so long rows do not overflow the stack.
+     */
+    private Expression lowerOperators(ProgramTree node) {
+        List<ProgramTree> operators = new ArrayList<>();
+        while (node.getValue() == SyntaxComponent.EXPRESSION && isOperator(node.getChild(0))
+                && node.getChild(0).getChildrenCount() == 2) {
+            operators.add(node.getChild(0));
+            node = node.getChild(0).getChild(0);
+        }
+
+        Expression result;
+        if (node.getValue() == SyntaxComponent.EXPRESSION && isOperator(node.getChild(0))) {
+            ProgramTree operator = node.getChild(0);
+            result = new Call(lowerExpression(operator.getChild(0)), operatorMethod(operator, "UnaryMinus"),
+                    List.of(), operator.getLine(), operator.getColumn(), operator.getLine(), operator.getColumn());
+        } else {
+            result = lowerExpression(node);
+        }
+
+        for (int i = operators.size() - 1; i >= 0; i--) {
+            ProgramTree operator = operators.get(i);
+            String method = switch (token(operator)) {
+                case TK_PLUS -> "Plus";
+                case TK_MINUS -> "Minus";
+                case TK_MUL -> "Mult";
+                case TK_DIV -> "Div";
+                case TK_MOD -> "Rem";
+                case TK_LT -> "Less";
+                case TK_LTE -> "LessEqual";
+                case TK_GT -> "Greater";
+                case TK_GTE -> "GreaterEqual";
+                case TK_EQ -> "Equal";
+                case TK_NEQ -> "NotEqual";
+                default -> throw new IllegalArgumentException("Not an operator: " + token(operator));
+            };
+            result = new Call(result, operatorMethod(operator, method), List.of(lowerExpression(operator.getChild(1))),
+                    operator.getLine(), operator.getColumn(), operator.getLine(), operator.getColumn());
+        }
+        return result;
+    }
+
+    private static boolean isOperator(ProgramTree node) {
+        return node.getValue() instanceof TokenLexemaPair && node.getChildrenCount() > 0;
+    }
+
+    private static Identifier operatorMethod(ProgramTree operator, String method) {
+        return new Identifier(Token.TK_IDENTIFIER, method, IdentifierTable.GLOBAL.intern(method),
+                operator.getLine(), operator.getColumn());
+    }
+
+    private Expression lowerPrimary(ProgramTree node, int line, int column) {
+        if (node.getValue() == SyntaxComponent.EXPRESSION) {
+            return lowerExpression(node);
+        }
+        if (node.getValue() == SyntaxComponent.CLASS_NAME) {
+            return new Reference(lowerTypeName(node), line, column);
+        }
+        TokenLexemaPair pair = (TokenLexemaPair) node.getValue();
+        if (pair.getToken() == Token.TK_THIS) {
+            return new This(line, column);
+        }
+        return new Literal(pair.getToken(), pair.getLexema(), line, column);
+    }
+
+    private List<Expression> lowerArguments(ProgramTree node) {
+        List<Expression> arguments = new ArrayList<>();
+        for (ProgramTree child : node.getChildren()) {
+            if (child.getValue() == SyntaxComponent.EXPRESSION) {
+                arguments.add(lowerExpression(child));
+            }
+        }
+        return Collections.unmodifiableList(arguments);
+    }
+
+    private TypeName lowerTypeName(ProgramTree node) {
+        TypeName argument = null;
+        for (int i = 1; i < node.getChildrenCount(); i++) {
+            if (node.getChild(i).getValue() == SyntaxComponent.CLASS_NAME) {
+                argument = lowerTypeName(node.getChild(i));
+            }
+        }
+        return new TypeName(identifier(node.getChild(0)), argument, node.getLine(), node.getColumn());
+    }
+
+    private static Identifier identifier(ProgramTree leaf) {
+        TokenLexemaPair pair = (TokenLexemaPair) leaf.getValue();
+        return new Identifier(pair.getToken(), pair.getLexema(), pair.getId(), pair.getLine(), pair.getPosition());
+    }
+
+    private static Token token(ProgramTree node) {
+        return node.getValue() instanceof TokenLexemaPair pair ? pair.getToken() : null;
+    }
+}
@@ -0,0 +1,36 @@
+package university.innopolis.javist.ast;
+
+/**
+ * Operation on the typed AST, chosen by the kind of the node.
+ * @param <R> Type of the result.
+ * @param <P> Type of the additional parameter, {@link Void} if there is none.
+ */
+public interface AstVisitor<R, P> {
+    R visitProgram(Program node, P parameter);
+
+    R visitClassDeclaration(ClassDeclaration node, P parameter);
+
+    R visitVariableDeclaration(VariableDeclaration node, P parameter);
+
+    R visitMethodDeclaration(MethodDeclaration node, P parameter);
+
+    R visitConstructorDeclaration(ConstructorDeclaration node, P parameter);
+
+    R visitParameter(Parameter node, P parameter);
+
+    R visitAssignment(Assignment node, P parameter);
+
+    R visitWhileLoop(WhileLoop node, P parameter);
+
+    R visitIfStatement(IfStatement node, P parameter);
+
+    R visitReturnStatement(ReturnStatement node, P parameter);
+
+    R visitLiteral(Literal node, P parameter);
+
+    R visitThis(This node, P parameter);
+
+    R visitReference(Reference node, P parameter);
+
+    R visitCall(Call node, P parameter);
+}
@@ -0,0 +1,53 @@
+package university.innopolis.javist.ast;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A method call {@code target.method(arguments)}, or arguments applied right to a primary,
+ * {@code Integer(5)}, in which case there is no method.
+ * The call is positioned at its dot, or at the parenthesis if there is no method.
+ * A chain {@code a.f().g()} is nested to the left, so equality and the hash walk the chain in a loop
+ * rather than recursively; long chains do not overflow the stack.
+ * @param method          The method, or null.
+ * @param argumentsLine   Line of the opening parenthesis.
+ * @param argumentsColumn Column of the opening parenthesis.
+ */
+public record Call(Expression target, Identifier method, List<Expression> arguments,
+                   int argumentsLine, int argumentsColumn, int line, int column) implements Expression {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitCall(this, parameter);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        Object left = this;
+        Object right = o;
+        while (left instanceof Call a && right instanceof Call b) {
+            if (a == b) {
+                return true;
+            }
+            if (a.line != b.line || a.column != b.column
+                    || a.argumentsLine != b.argumentsLine || a.argumentsColumn != b.argumentsColumn
+                    || !Objects.equals(a.method, b.method) || !a.arguments.equals(b.arguments)) {
+                return false;
+            }
+            left = a.target;
+            right = b.target;
+        }
+        return Objects.equals(left, right);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        Expression expression = this;
+        while (expression instanceof Call call) {
+            hash = 31 * hash + Objects.hash(call.method, call.arguments,
+                    call.argumentsLine, call.argumentsColumn, call.line, call.column);
+            expression = call.target;
+        }
+        return 31 * hash + Objects.hashCode(expression);
+    }
+}
@@ -0,0 +1,26 @@
+package university.innopolis.javist.ast;
+
+import java.util.List;
+
+/**
+ * @param name    Name of the class.
+ * @param parent  Class after "extends", or null.
+ * @param members Fields, methods and constructors in the order of declaration.
+ */
+public record ClassDeclaration(TypeName name, TypeName parent, List<Member> members, int line, int column)
+        implements Node {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitClassDeclaration(this, parameter);
+    }
+
+    /**
+     * Gets the parent of the class: the class after "extends", or else the one in brackets after the name,
+     * as the libraries write it.
+     *
+     * @return The parent, or null if the class has none.
+     */
+    public TypeName superclass() {
+        return parent != null ? parent : name.argument();
+    }
+}
@@ -0,0 +1,11 @@
+package university.innopolis.javist.ast;
+
+import java.util.List;
+
+public record ConstructorDeclaration(List<Parameter> parameters, List<Statement> body, int line, int column)
+        implements Member {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitConstructorDeclaration(this, parameter);
+    }
+}
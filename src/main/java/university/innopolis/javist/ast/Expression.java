@@ -0,0 +1,9 @@
+package university.innopolis.javist.ast;
+
+/**
+ * An expression: a primary followed by calls.
+ * A primary (literal, "this" or a name) is positioned where the parser finished reading it,
+ * the same place as the EXPRESSION node of the concrete tree.
+ */
+public sealed interface Expression extends Node permits Literal, This, Reference, Call {
+}
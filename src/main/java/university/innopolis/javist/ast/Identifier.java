@@ -0,0 +1,14 @@
+package university.innopolis.javist.ast;
+
+import university.innopolis.javist.lexer.Token;
+
+/**
+ * A name in the source: an identifier or one of the built-in type names.
+ * @param token  {@link Token#TK_IDENTIFIER}, {@link Token#TK_INTEGER}, {@link Token#TK_REAL} or {@link Token#TK_ARRAY}.
+ * @param name   The name.
+ * @param id     Id of the name in {@link university.innopolis.javist.lexer.IdentifierTable#GLOBAL}.
+ * @param line   Line of the name.
+ * @param column Column of the name.
+ */
+public record Identifier(Token token, String name, int id, int line, int column) {
+}
@@ -0,0 +1,14 @@
+package university.innopolis.javist.ast;
+
+import java.util.List;
+
+/**
+ * @param elseBody Statements after "else", or null if there is no else branch.
+ */
+public record IfStatement(Expression condition, List<Statement> thenBody, List<Statement> elseBody,
+                          int line, int column) implements Statement {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitIfStatement(this, parameter);
+    }
+}
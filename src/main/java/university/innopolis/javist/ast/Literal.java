@@ -0,0 +1,14 @@
+package university.innopolis.javist.ast;
+
+import university.innopolis.javist.lexer.Token;
+
+/**
+ * @param kind {@link Token#TK_INTEGER_LITERAL}, {@link Token#TK_REAL_LITERAL} or {@link Token#TK_BOOLEAN_LITERAL}.
+ * @param text The literal as written.
+ */
+public record Literal(Token kind, String text, int line, int column) implements Expression {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitLiteral(this, parameter);
+    }
+}
@@ -0,0 +1,7 @@
+package university.innopolis.javist.ast;
+
+/**
+ * A field, a method or a constructor of a class.
+ */
+public sealed interface Member extends Node permits VariableDeclaration, MethodDeclaration, ConstructorDeclaration {
+}
@@ -0,0 +1,15 @@
+package university.innopolis.javist.ast;
+
+import java.util.List;
+
+/**
+ * The position is the one of the METHOD_DECLARATION node of the concrete tree.
+ * @param returnType Type after the colon, or null for a method without a result.
+ */
+public record MethodDeclaration(Identifier name, List<Parameter> parameters, Identifier returnType,
+                                List<Statement> body, int line, int column) implements Member {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitMethodDeclaration(this, parameter);
+    }
+}
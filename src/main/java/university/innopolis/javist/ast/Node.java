@@ -0,0 +1,13 @@
+package university.innopolis.javist.ast;
+
+/**
+ * Node of the typed AST made from the {@link university.innopolis.javist.syntax.ProgramTree} by {@link AstLowering}.
+ * Punctuation is dropped and every part of a construct is a field of its node.
+ */
+public interface Node {
+    int line();
+
+    int column();
+
+    <R, P> R accept(AstVisitor<R, P> visitor, P parameter);
+}
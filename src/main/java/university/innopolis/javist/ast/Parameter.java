@@ -0,0 +1,8 @@
+package university.innopolis.javist.ast;
+
+public record Parameter(Identifier name, TypeName type, int line, int column) implements Node {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitParameter(this, parameter);
+    }
+}
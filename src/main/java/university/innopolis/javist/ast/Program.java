@@ -0,0 +1,10 @@
+package university.innopolis.javist.ast;
+
+import java.util.List;
+
+public record Program(List<ClassDeclaration> classes, int line, int column) implements Node {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitProgram(this, parameter);
+    }
+}
@@ -0,0 +1,11 @@
+package university.innopolis.javist.ast;
+
+/**
+ * A name used as a primary. It is a variable or a class; the analyzer decides which.
+ */
+public record Reference(TypeName name, int line, int column) implements Expression {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitReference(this, parameter);
+    }
+}
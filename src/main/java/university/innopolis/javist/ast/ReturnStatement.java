@@ -0,0 +1,8 @@
+package university.innopolis.javist.ast;
+
+public record ReturnStatement(Expression value, int line, int column) implements Statement {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitReturnStatement(this, parameter);
+    }
+}
@@ -0,0 +1,8 @@
+package university.innopolis.javist.ast;
+
+/**
+ * A statement of a method or constructor body.
+ */
+public sealed interface Statement extends Node
+        permits VariableDeclaration, Assignment, WhileLoop, IfStatement, ReturnStatement {
+}
@@ -0,0 +1,8 @@
+package university.innopolis.javist.ast;
+
+public record This(int line, int column) implements Expression {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitThis(this, parameter);
+    }
+}
@@ -0,0 +1,11 @@
+package university.innopolis.javist.ast;
+
+/**
+ * A class name, possibly with a type argument: {@code Array[Integer]}.
+ * @param name     The class.
+ * @param argument The type in brackets, or null.
+ * @param line     Line of the name.
+ * @param column   Column of the name.
+ */
+public record TypeName(Identifier name, TypeName argument, int line, int column) {
+}
@@ -0,0 +1,12 @@
+package university.innopolis.javist.ast;
+
+/**
+ * A field or a local variable: {@code var name : value}.
+ */
+public record VariableDeclaration(Identifier name, Expression value, int line, int column)
+        implements Member, Statement {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitVariableDeclaration(this, parameter);
+    }
+}
@@ -0,0 +1,10 @@
+package university.innopolis.javist.ast;
+
+import java.util.List;
+
+public record WhileLoop(Expression condition, List<Statement> body, int line, int column) implements Statement {
+    @Override
+    public <R, P> R accept(AstVisitor<R, P> visitor, P parameter) {
+        return visitor.visitWhileLoop(this, parameter);
+    }
+}
@@ -14,12 +14,17 @@ public class Constants {
     public static final String METHOD_SHOULD_HAVE_NAME = "Method should have name";
     public static final String NOT_EMPTY_VARIABLE_NAME = "Variable name cannot be empty";
     public static final String VARIABLE_NAME_NOT_DEFINED = "Variable with name %s is not defined";
+    public static final String CLASS_IS_NOT_A_VALUE = "Class %s is not a value";
     public static final String METHOD_NAME_NOT_DEFINED = "Method with name %s is not defined";
     public static final String INVALID_EXPRESSION = "Invalid expression";
     public static final String CANNOT_RESOLVE_METHOD = "Cannot resolve method %s";
     public static final String UNEXPECTED_VARIABLE_TYPE = "Unexpected type %s for variable %s, expected: %s";
     public static final String INVALID_RETURN_STATEMENT = "Unexpected return statement of type %s, expected: %s";
+    public static final String MISSING_RETURN_STATEMENT = "Method %s can end without returning a value of type %s";
     public static final String INVALID_LOOP_CONDITION = "Invalid loop condition, expected: Boolean, actual: %s";
     public static final String INVALID_IF_CONDITION = "Invalid if condition, expected: Boolean, actual: %s";
+    public static final String CANNOT_EXTEND = "Class %s cannot extend %s: only classes of the program can be extended";
+    public static final String NO_CONSTRUCTOR_TO_CALL = "Class %s cannot extend %s: %s has no constructor without parameters";
+    public static final String CYCLIC_INHERITANCE = "Class %s inherits from itself";
     public static final String CONSTRUCTOR_ALREADY_EXISTS = "Constructor with following parameters is already exists";
 }
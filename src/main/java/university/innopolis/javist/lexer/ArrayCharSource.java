@@ -0,0 +1,34 @@
+package university.innopolis.javist.lexer;
+
+/**
+ * Source text held in a heap array.
+ */
+public class ArrayCharSource implements CharSource {
+    private final char[] chars;
+
+    private final int length;
+
+    public ArrayCharSource(char[] chars) {
+        this(chars, chars.length);
+    }
+
+    public ArrayCharSource(char[] chars, int length) {
+        this.chars = chars;
+        this.length = length;
+    }
+
+    @Override
+    public int charAt(int offset) {
+        return offset < length ? chars[offset] : END;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String substring(int start, int end) {
+        return new String(chars, start, end - start);
+    }
+}
@@ -0,0 +1,69 @@
+package university.innopolis.javist.lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+
+/**
+ * Read-only source text for the {@link Lexer}.
+ * Characters are addressed by an absolute offset from the beginning of the text,
+ * and the lexer moves forward through them with a cursor instead of consuming the text.
+ */
+public interface CharSource {
+    /**
+     * Returned by {@link #charAt(int)} for offsets past the end of the text.
+     */
+    int END = -1;
+
+    /**
+     * Gets the character at the offset.
+     * @param offset Absolute offset of the character.
+     * @return The character, or {@link #END} if the text is shorter.
+     */
+    int charAt(int offset);
+
+    /**
+     * Copies a part of the text.
+     * @param start Offset of the first character.
+     * @param end   Offset after the last character.
+     * @return The characters in the range.
+     */
+    String substring(int start, int end);
+
+    /**
+     * Gets the length of the text if it is known without reading the whole source.
+     * @return The number of characters, or -1 if it is unknown.
+     */
+    default int length() {
+        return -1;
+    }
+
+    /**
+     * Tells the source that characters before the offset will not be requested again,
+     * so that buffered sources can drop them.
+     * @param offset The lowest offset that can still be read.
+     */
+    default void release(int offset) {
+    }
+
+    /**
+     * Tells whether released characters can still be read, so that a {@link TokenBuffer}
+     * may read lexemes back from the source after lexing.
+     * @return false if {@link #release(int)} drops characters.
+     */
+    default boolean keepsReleased() {
+        return true;
+    }
+
+    static CharSource of(char[] chars) {
+        return new ArrayCharSource(chars);
+    }
+
+    static CharSource of(Reader reader) {
+        return new ReaderCharSource(reader);
+    }
+
+    static CharSource map(Path path) throws IOException {
+        return new MappedCharSource(path);
+    }
+}
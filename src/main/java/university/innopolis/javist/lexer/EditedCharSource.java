@@ -0,0 +1,73 @@
+package university.innopolis.javist.lexer;
+
+/**
+ * A source with one {@link TextEdit} applied, read through the original source without copying it.
+ * Edits stack on each other; when the chain gets long, it is copied into an array.
+ */
+class EditedCharSource implements CharSource {
+    private static final int MAX_DEPTH = 16;
+
+    private final CharSource base;
+
+    private final TextEdit edit;
+
+    private final int length;
+
+    private final int depth;
+
+    private EditedCharSource(CharSource base, TextEdit edit, int depth) {
+        this.base = base;
+        this.edit = edit;
+        this.length = base.length() + edit.delta();
+        this.depth = depth;
+    }
+
+    /**
+     * Applies an edit to a source of a known length.
+     * @param base The source.
+     * @param edit The edit.
+     * @return The edited text.
+     */
+    static CharSource of(CharSource base, TextEdit edit) {
+        int depth = base instanceof EditedCharSource edited ? edited.depth + 1 : 1;
+        if (depth > MAX_DEPTH) {
+            base = CharSource.of(base.substring(0, base.length()).toCharArray());
+            depth = 1;
+        }
+        return new EditedCharSource(base, edit, depth);
+    }
+
+    @Override
+    public int charAt(int offset) {
+        if (offset < edit.offset()) {
+            return base.charAt(offset);
+        }
+        int insertedEnd = edit.offset() + edit.inserted().length();
+        if (offset < insertedEnd) {
+            return edit.inserted().charAt(offset - edit.offset());
+        }
+        return offset < length ? base.charAt(offset - edit.delta()) : END;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String substring(int start, int end) {
+        int insertedEnd = edit.offset() + edit.inserted().length();
+        if (end <= edit.offset()) {
+            return base.substring(start, end);
+        }
+        if (start >= insertedEnd) {
+            return base.substring(start - edit.delta(), end - edit.delta());
+        }
+
+        StringBuilder result = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            result.append((char) charAt(i));
+        }
+        return result.toString();
+    }
+}
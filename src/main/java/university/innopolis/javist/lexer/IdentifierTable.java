@@ -0,0 +1,150 @@
+package university.innopolis.javist.lexer;
+
+import java.util.Arrays;
+
+/**
+ * Interning pool for identifiers and type names.
+ * Every distinct name gets a dense int id and one canonical string, so later phases
+ * can key their tables on ids instead of hashing and comparing strings again.
+ * <p>
+ * The pool is shared by all compilations. Lookups of names that are already known
+ * do not lock; adding a new name is synchronized.
+ */
+public class IdentifierTable {
+    public static final IdentifierTable GLOBAL = new IdentifierTable();
+
+    /**
+     * Id of a token that is not a name.
+     */
+    public static final int NO_ID = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Open-addressing hash table. A slot holds id + 1, or 0 if it is free.
+     * Slots are only ever filled, never cleared, until the table is replaced by a larger one.
+     */
+    private volatile int[] slots = new int[INITIAL_CAPACITY];
+
+    private volatile String[] names = new String[INITIAL_CAPACITY / 2];
+
+    private int size = 0;
+
+    /**
+     * Gets the id of a name, adding the name if it is new.
+     * @param name The name, possibly a view into the source.
+     * @return The id of the name.
+     */
+    public int intern(CharSequence name) {
+        int id = find(name);
+        return id != NO_ID ? id : add(name);
+    }
+
+    /**
+     * Gets the id of a name without adding it.
+     * @param name The name.
+     * @return The id, or {@link #NO_ID} if the name was never interned.
+     */
+    public int find(CharSequence name) {
+        int id = probe(slots, names, name, hash(name));
+        if (id != NO_ID) {
+            return id;
+        }
+        synchronized (this) {
+            return probe(slots, names, name, hash(name));
+        }
+    }
+
+    /**
+     * Gets the canonical string of an id.
+     * @param id An id returned by {@link #intern(CharSequence)}.
+     * @return The name.
+     */
+    public String name(int id) {
+        String[] current = names;
+        String name = id < current.length ? current[id] : null;
+        if (name != null) {
+            return name;
+        }
+        synchronized (this) {
+            return names[id];
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int add(CharSequence name) {
+        int hash = hash(name);
+        int id = probe(slots, names, name, hash);
+        if (id != NO_ID) {
+            return id;
+        }
+
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        id = size++;
+
+        String[] currentNames = names;
+        if (id == currentNames.length) {
+            currentNames = Arrays.copyOf(currentNames, currentNames.length * 2);
+        }
+        currentNames[id] = name.toString();
+        names = currentNames;
+
+        int[] currentSlots = slots;
+        currentSlots[freeSlot(currentSlots, hash)] = id + 1;
+        slots = currentSlots;
+
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        int[] larger = new int[capacity];
+        String[] currentNames = names;
+        for (int id = 0; id < size; id++) {
+            larger[freeSlot(larger, hash(currentNames[id]))] = id + 1;
+        }
+        slots = larger;
+    }
+
+    /**
+     * Looks the name up in a snapshot of the table.
+     * A slot whose name is not visible yet counts as a miss, and the caller retries under the lock.
+     */
+    private static int probe(int[] slots, String[] names, CharSequence name, int hash) {
+        int mask = slots.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == 0) {
+                return NO_ID;
+            }
+            String candidate = slot - 1 < names.length ? names[slot - 1] : null;
+            if (candidate == null) {
+                return NO_ID;
+            }
+            if (candidate.contentEquals(name)) {
+                return slot - 1;
+            }
+        }
+    }
+
+    private static int freeSlot(int[] slots, int hash) {
+        int mask = slots.length - 1;
+        int i = hash & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(CharSequence name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,139 @@
+package university.innopolis.javist.lexer;
+
+/**
+ * Updates a {@link TokenBuffer} after an edit of its text.
+ * No token contains a line break, so only the lines touched by the edit are lexed again.
+ * The new buffer reads the tokens before and after them from the old buffer without copying them;
+ * the offsets and lines of the tokens after them are shifted as they are read.
+ */
+public class IncrementalLexer {
+    /**
+     * Tokens of the edited text and the part of them that differs from the old tokens.
+     * Old tokens before {@code from} and at or after {@code oldTo} are the same as the new tokens
+     * before {@code from} and at or after {@code newTo}.
+     * @param tokens    The new tokens.
+     * @param from      Index of the first changed token.
+     * @param oldTo     Index after the last changed token in the old buffer.
+     * @param newTo     Index after the last changed token in the new buffer.
+     * @param lineDelta Number of lines the tokens after the change moved by.
+     */
+    public record Result(TokenBuffer tokens, int from, int oldTo, int newTo, int lineDelta) {
+    }
+
+    /**
+     * Lexes the edited text, reusing the old tokens where the text did not change.
+     * If the old text could not be lexed completely, the whole new text is lexed.
+     * @param old  Tokens of the text before the edit.
+     * @param edit The edit.
+     * @return The new tokens and the changed range.
+     */
+    public Result relex(TokenBuffer old, TextEdit edit) {
+        CharSource oldText = withLength(old.source());
+        if (edit.offset() < 0 || edit.removed() < 0 || edit.end() > oldText.length()) {
+            throw new IllegalArgumentException("Edit out of the text: " + edit);
+        }
+        CharSource text = EditedCharSource.of(oldText, edit);
+
+        if (!old.isSuccessful()) {
+            TokenBuffer tokens = new Lexer(text).tokenize();
+            return new Result(tokens, 0, old.size(), tokens.size(), 0);
+        }
+
+        int cutStart = lineStart(oldText, edit.offset());
+        int oldCutEnd = lineEnd(oldText, edit.end());
+        int newCutEnd = oldCutEnd + edit.delta();
+
+        int first = old.indexFrom(cutStart);
+        int oldEnd = old.indexFrom(oldCutEnd);
+
+        int line = first > 0
+                ? old.line(first - 1) + countLines(oldText, old.end(first - 1), cutStart)
+                : 1 + countLines(oldText, 0, cutStart);
+        int oldLineAtEnd = line + countLines(oldText, cutStart, oldCutEnd);
+
+        TokenBuffer part = new Lexer(new SliceCharSource(text, cutStart, newCutEnd), line, cutStart == 0 ? 0 : 1)
+                .tokenize();
+        int lineDelta = part.endLine() - oldLineAtEnd;
+
+        TokenBuffer tokens = new TokenBuffer(text);
+        tokens.appendView(old, 0, first, 0, 0);
+        tokens.appendView(part, 0, part.size(), cutStart, 0);
+        if (!part.isSuccessful()) {
+            return new Result(tokens.compacted(), first, old.size(), tokens.size(), lineDelta);
+        }
+        tokens.appendView(old, oldEnd, old.size(), edit.delta(), lineDelta);
+
+        int from = first;
+        int oldTo = oldEnd;
+        int newTo = first + part.size();
+        while (from < oldTo && from < newTo && old.end(from) <= edit.offset() && same(old, from, tokens, from, 0, 0)) {
+            from++;
+        }
+        while (oldTo > from && newTo > from && old.start(oldTo - 1) >= edit.end()
+                && same(old, oldTo - 1, tokens, newTo - 1, edit.delta(), lineDelta)) {
+            oldTo--;
+            newTo--;
+        }
+        return new Result(tokens.compacted(), from, oldTo, newTo, lineDelta);
+    }
+
+    /**
+     * Checks that a token lies at the same place in both texts, the second text being shifted.
+     * The callers check that the text under both tokens did not change.
+     */
+    private static boolean same(TokenBuffer old, int i, TokenBuffer tokens, int j, int offset, int lines) {
+        return old.kind(i) == tokens.kind(j)
+                && old.start(i) + offset == tokens.start(j)
+                && old.end(i) + offset == tokens.end(j)
+                && old.line(i) + lines == tokens.line(j)
+                && old.column(i) == tokens.column(j);
+    }
+
+    /**
+     * Finds the start of the line containing the offset: the offset after the previous '\n'.
+     */
+    private static int lineStart(CharSource text, int offset) {
+        while (offset > 0 && text.charAt(offset - 1) != '\n') {
+            offset--;
+        }
+        return offset;
+    }
+
+    /**
+     * Finds the end of the line containing the offset: the offset after the next '\n', or the end of the text.
+     */
+    private static int lineEnd(CharSource text, int offset) {
+        while (offset < text.length() && text.charAt(offset) != '\n') {
+            offset++;
+        }
+        return Math.min(offset + 1, text.length());
+    }
+
+    /**
+     * Counts line breaks the way the {@link Lexer} does: "\r\n" and a single '\r' are one break each.
+     */
+    private static int countLines(CharSource text, int start, int end) {
+        int lines = 0;
+        for (int i = start; i < end; i++) {
+            int c = text.charAt(i);
+            if (c == '\n' || c == '\r' && text.charAt(i + 1) != '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Reads a source of unknown length into an array.
+     */
+    private static CharSource withLength(CharSource source) {
+        if (source.length() >= 0) {
+            return source;
+        }
+        StringBuilder text = new StringBuilder();
+        for (int c = source.charAt(0); c != CharSource.END; c = source.charAt(text.length())) {
+            text.append((char) c);
+        }
+        return CharSource.of(text.toString().toCharArray());
+    }
+}
@@ -4,25 +4,26 @@ import university.innopolis.javist.errors.LexerError;
 import university.innopolis.javist.syntax.TokenLexemaPair;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Paths;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.stream.Stream;
 
 public class Lexer {
-    private StringBuilder input = new StringBuilder();
+    private final CharSource input;
+
+    private final TokenScanner scanner = new TokenScanner();
 
     private Token token;
 
-    private String lexema;
+    private int tokenStart;
+
+    private int tokenEnd;
+
+    private boolean retainInput = false;
 
     private boolean exausthed = false;
 
     private String errorMessage = "";
 
-    private Set<Character> blankChars = new HashSet<Character>();
-
     private int line;
 
     private int column;
@@ -31,31 +32,39 @@ public class Lexer {
 
 
     public Lexer(String filePath) {
-        line = 1;
-        column = 0;
-        position = 0;
-
-        try (Stream<String> st = Files.lines(Paths.get(filePath))) {
-            st.forEach(line -> {
-                        input.append(line);
-                        input.append('\n');
-                    }
-            );
-            input.deleteCharAt(input.length()-1);
+        CharSource source;
+        try {
+            source = CharSource.map(Paths.get(filePath));
         } catch (IOException ex) {
+            source = CharSource.of(new char[0]);
             exausthed = true;
             errorMessage = "Could not read file: " + filePath;
-            return;
         }
+        input = source;
 
-        // then we add all the characters that we consider blank
-        blankChars.add('\r');
-        blankChars.add('\n');
-        blankChars.add((char) 8);
-        blankChars.add((char) 9);
-        blankChars.add((char) 11);
-        blankChars.add((char) 12);
-        blankChars.add((char) 32);
+        line = 1;
+        column = 0;
+        position = 0;
+
+        moveAhead();
+    }
+
+    public Lexer(CharSource input) {
+        this(input, 1, 0);
+    }
+
+    /**
+     * Creates a lexer for a part of a text.
+     * @param input  The part of the text.
+     * @param line   Line number the part starts at.
+     * @param column Column counter at the start of the part.
+     */
+    Lexer(CharSource input, int line, int column) {
+        this.input = input;
+
+        this.line = line;
+        this.column = column;
+        position = 0;
 
         moveAhead();
     }
@@ -65,57 +74,86 @@ public class Lexer {
             return;
         }
 
-        if (input.length() == 0) {
-            exausthed = true;
-            return;
+        if (!retainInput) {
+            input.release(tokenStart);
         }
 
-        ignoreWhiteSpaces();
+        try {
+            ignoreWhiteSpaces();
+
+            if (input.charAt(position) == CharSource.END) {
+                exausthed = true;
+                return;
+            }
 
-        if (findNextToken()) {
+            if (findNextToken()) {
+                return;
+            }
+        } catch (UncheckedIOException ex) {
+            exausthed = true;
+            errorMessage = "Could not read input: " + ex.getCause().getMessage();
             return;
         }
 
         exausthed = true;
-
-        if (input.length() > 0) {
-            errorMessage = "Unexpected symbol: '" + input.charAt(0) + "'";
-        }
+        errorMessage = "Unexpected symbol: '" + (char) input.charAt(position) + "'";
     }
 
+    /**
+     * Skips blank characters. "\r\n" and a single '\r' are both counted as one line break.
+     */
     private void ignoreWhiteSpaces() {
-        int charsToDelete = 0;
+        int current = input.charAt(position);
 
-        while (blankChars.contains(input.charAt(charsToDelete))) {
+        while (TokenScanner.isBlank(current)) {
             position++;
-            if (input.charAt(charsToDelete) == '\n') {
+            int next = input.charAt(position);
+
+            if (current == '\r' && next == '\n') {
+                current = next;
+                continue;
+            }
+            if (current == '\n' || current == '\r') {
                 column = 0;
                 line++;
             }
             column++;
-            charsToDelete++;
+            current = next;
         }
+    }
 
-        if (charsToDelete > 0) {
-            input.delete(0, charsToDelete);
+    private boolean findNextToken() {
+        if (!scanner.scan(input, position)) {
+            return false;
         }
+
+        int end = scanner.end();
+        column += end - position;
+        token = scanner.token();
+        tokenStart = position;
+        tokenEnd = end;
+        position = end;
+        return true;
     }
 
-    private boolean findNextToken() {
-        for (Token t : Token.values()) {
-            int end = t.endOfMatch(input.toString());
-
-            if (end != -1) {
-                position += end;
-                column += end;
-                token = t;
-                lexema = input.substring(0, end);
-                input.delete(0, end);
-                return true;
-            }
+    /**
+     * Lexes the rest of the input into a buffer. A source that keeps released characters is kept whole
+     * from now on, since the buffer reads lexemes back from it; from any other source, such as a reader,
+     * the buffer copies the lexemes of literals and the source keeps its bounded window.
+     * @return Buffer with the current token and all tokens after it.
+     */
+    public TokenBuffer tokenize() {
+        retainInput = input.keepsReleased();
+        TokenBuffer buffer = new TokenBuffer(input, !retainInput);
+
+        while (!exausthed) {
+            buffer.add(token, tokenStart, tokenEnd, line, column);
+            moveAhead();
         }
 
-        return false;
+        buffer.setErrorMessage(errorMessage);
+        buffer.setEndLine(line);
+        return buffer;
     }
 
     public Token currentToken() {
@@ -123,7 +161,8 @@ public class Lexer {
     }
 
     public String currentLexema() {
-        return lexema;
+        String text = token.getText();
+        return text != null ? text : input.substring(tokenStart, tokenEnd);
     }
 
     public boolean isSuccessful() {
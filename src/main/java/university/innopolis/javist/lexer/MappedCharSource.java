@@ -0,0 +1,107 @@
+package university.innopolis.javist.lexer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Source text of a memory-mapped file.
+ * Pure ASCII files are read straight from the mapping, one byte per character.
+ * Any other file is decoded as UTF-8 while it is read, through a {@link ReaderCharSource} over the mapping,
+ * so only its window is held as characters; released characters cannot be read again then.
+ */
+public class MappedCharSource implements CharSource {
+    private final ByteBuffer bytes;
+
+    private final ReaderCharSource decoded;
+
+    private final int length;
+
+    public MappedCharSource(Path path) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (isAscii(mapped)) {
+            bytes = mapped;
+            decoded = null;
+            length = mapped.limit();
+        } else {
+            bytes = null;
+            decoded = new ReaderCharSource(new InputStreamReader(stream(mapped), StandardCharsets.UTF_8));
+            length = -1;
+        }
+    }
+
+    private static boolean isAscii(ByteBuffer buffer) {
+        for (int i = 0; i < buffer.limit(); i++) {
+            if (buffer.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static InputStream stream(ByteBuffer buffer) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] target, int offset, int count) {
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int read = Math.min(count, buffer.remaining());
+                buffer.get(target, offset, read);
+                return read;
+            }
+        };
+    }
+
+    @Override
+    public int charAt(int offset) {
+        if (decoded != null) {
+            return decoded.charAt(offset);
+        }
+        if (offset >= length) {
+            return END;
+        }
+        return bytes.get(offset);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String substring(int start, int end) {
+        if (decoded != null) {
+            return decoded.substring(start, end);
+        }
+        byte[] result = new byte[end - start];
+        bytes.get(start, result);
+        return new String(result, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public void release(int offset) {
+        if (decoded != null) {
+            decoded.release(offset);
+        }
+    }
+
+    @Override
+    public boolean keepsReleased() {
+        return decoded == null;
+    }
+}
@@ -0,0 +1,102 @@
+package university.innopolis.javist.lexer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lexes a large text in parallel.
+ * The O-language has no strings or block comments and no token contains a line break,
+ * so the text is cut right after line breaks into chunks that can be lexed independently.
+ * The chunk buffers are then joined with their offsets and line numbers shifted,
+ * giving the same tokens as the sequential {@link Lexer}.
+ */
+public class ParallelLexer {
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final ForkJoinPool pool;
+
+    private final int chunkSize;
+
+    public ParallelLexer() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param pool      Pool the chunks are lexed on.
+     * @param chunkSize Minimal number of characters in a chunk.
+     */
+    public ParallelLexer(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public TokenBuffer tokenize(String filePath) {
+        try {
+            return tokenize(CharSource.map(Paths.get(filePath)));
+        } catch (IOException ex) {
+            return new Lexer(filePath).tokenize();
+        }
+    }
+
+    /**
+     * Lexes the whole source. Sources of unknown length or shorter than two chunks are lexed sequentially.
+     * @param source The text.
+     * @return Buffer with all tokens of the text.
+     */
+    public TokenBuffer tokenize(CharSource source) {
+        int length = source.length();
+        if (length < 2 * chunkSize) {
+            return new Lexer(source).tokenize();
+        }
+
+        List<Integer> bounds = splitPoints(source, length);
+        List<ForkJoinTask<TokenBuffer>> chunks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            CharSource chunk = new SliceCharSource(source, bounds.get(i), bounds.get(i + 1));
+            int column = i == 0 ? 0 : 1;
+            chunks.add(pool.submit(() -> new Lexer(chunk, 1, column).tokenize()));
+        }
+
+        TokenBuffer result = new TokenBuffer(source);
+        for (int i = 0; i < chunks.size(); i++) {
+            TokenBuffer chunk = chunks.get(i).join();
+            result.append(chunk, 0, chunk.size(), bounds.get(i), result.endLine() - 1);
+
+            if (!chunk.isSuccessful()) {
+                for (int j = i + 1; j < chunks.size(); j++) {
+                    chunks.get(j).cancel(false);
+                }
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the chunk bounds: every chunk except the last ends right after a '\n'.
+     * @return Offsets of the chunk starts followed by the length of the text.
+     */
+    private List<Integer> splitPoints(CharSource source, int length) {
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+
+        int position = chunkSize;
+        while (position < length) {
+            while (position < length && source.charAt(position - 1) != '\n') {
+                position++;
+            }
+            if (length - position < chunkSize) {
+                break;
+            }
+            bounds.add(position);
+            position += chunkSize;
+        }
+
+        bounds.add(length);
+        return bounds;
+    }
+}
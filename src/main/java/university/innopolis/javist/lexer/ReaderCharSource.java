@@ -0,0 +1,104 @@
+package university.innopolis.javist.lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Source text read from a {@link Reader}, for example stdin, through a sliding window.
+ * Characters before the released offset are dropped when the window is refilled,
+ * so memory stays bounded by the window size unless a single token is longer than it.
+ */
+public class ReaderCharSource implements CharSource {
+    private static final int DEFAULT_WINDOW = 8192;
+
+    private final Reader reader;
+
+    private char[] window;
+
+    /**
+     * Absolute offset of window[0].
+     */
+    private int windowStart = 0;
+
+    private int filled = 0;
+
+    private int released = 0;
+
+    private boolean eof = false;
+
+    public ReaderCharSource(Reader reader) {
+        this(reader, DEFAULT_WINDOW);
+    }
+
+    public ReaderCharSource(Reader reader, int windowSize) {
+        this.reader = reader;
+        this.window = new char[windowSize];
+    }
+
+    @Override
+    public int charAt(int offset) {
+        if (offset < windowStart) {
+            throw new IllegalStateException("Offset " + offset + " was already released");
+        }
+        while (offset >= windowStart + filled) {
+            if (!fill()) {
+                return END;
+            }
+        }
+        return window[offset - windowStart];
+    }
+
+    /**
+     * Copies a part of the text that is still in the window.
+     * @throws IllegalStateException if a part of the range was released and dropped, or was not read yet.
+     */
+    @Override
+    public String substring(int start, int end) {
+        if (start < windowStart || end > windowStart + filled) {
+            throw new IllegalStateException("Range " + start + ".." + end + " is not in the window "
+                    + windowStart + ".." + (windowStart + filled));
+        }
+        return new String(window, start - windowStart, end - start);
+    }
+
+    @Override
+    public void release(int offset) {
+        released = Math.max(released, offset);
+    }
+
+    @Override
+    public boolean keepsReleased() {
+        return false;
+    }
+
+    private boolean fill() {
+        if (eof) {
+            return false;
+        }
+
+        int drop = Math.min(released - windowStart, filled);
+        if (drop > 0) {
+            System.arraycopy(window, drop, window, 0, filled - drop);
+            windowStart += drop;
+            filled -= drop;
+        }
+        if (filled == window.length) {
+            char[] larger = new char[window.length * 2];
+            System.arraycopy(window, 0, larger, 0, filled);
+            window = larger;
+        }
+
+        try {
+            int read = reader.read(window, filled, window.length - filled);
+            if (read == -1) {
+                eof = true;
+                return false;
+            }
+            filled += read;
+            return true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
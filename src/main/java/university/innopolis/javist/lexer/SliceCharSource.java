@@ -0,0 +1,33 @@
+package university.innopolis.javist.lexer;
+
+/**
+ * A part of another source, addressed from 0.
+ */
+class SliceCharSource implements CharSource {
+    private final CharSource source;
+
+    private final int start;
+
+    private final int length;
+
+    SliceCharSource(CharSource source, int start, int end) {
+        this.source = source;
+        this.start = start;
+        this.length = end - start;
+    }
+
+    @Override
+    public int charAt(int offset) {
+        return offset < length ? source.charAt(start + offset) : END;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String substring(int from, int to) {
+        return source.substring(start + from, start + to);
+    }
+}
@@ -0,0 +1,21 @@
+package university.innopolis.javist.lexer;
+
+/**
+ * A change of a source text: a range is replaced with new text.
+ * @param offset   Offset of the first replaced character.
+ * @param removed  Number of replaced characters.
+ * @param inserted The new text.
+ */
+public record TextEdit(int offset, int removed, String inserted) {
+    public int end() {
+        return offset + removed;
+    }
+
+    /**
+     * Gets the change in the length of the text.
+     * @return The number of inserted characters minus the number of removed ones.
+     */
+    public int delta() {
+        return inserted.length() - removed;
+    }
+}
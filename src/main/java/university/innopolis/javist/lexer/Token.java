@@ -2,12 +2,9 @@ package university.innopolis.javist.lexer;
 
 import lombok.Getter;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Contains all types of tokens that can be met in the O-language.
- * Used for simple checking and parsing the string data into tokens.
+ * Tokens are recognised by {@link TokenScanner}.
  */
 public enum Token {
     TK_CLASS ("class"),
@@ -29,29 +26,29 @@ public enum Token {
     TK_RETURN ("return"),
 
     // Identifiers and literals
-    TK_BOOLEAN_LITERAL ("true|false"),
-    TK_IDENTIFIER ("[a-zA-Z_][a-zA-Z0-9_]*"),
-    TK_REAL_LITERAL ("\\d+\\.\\d+"),
-    TK_INTEGER_LITERAL ("\\d+"),
+    TK_BOOLEAN_LITERAL,
+    TK_IDENTIFIER,
+    TK_REAL_LITERAL,
+    TK_INTEGER_LITERAL,
 
     // Punctuation
-	TK_OPEN_BRACKET ("\\["),
-	TK_CLOSE_BRACKET ("\\]"),
-    TK_OPEN_BRACE ("\\{"),
-    TK_CLOSE_BRACE ("\\}"),
-    TK_OPEN_PAREN ("\\("),
-    TK_CLOSE_PAREN ("\\)"),
+	TK_OPEN_BRACKET ("["),
+	TK_CLOSE_BRACKET ("]"),
+    TK_OPEN_BRACE ("{"),
+    TK_CLOSE_BRACE ("}"),
+    TK_OPEN_PAREN ("("),
+    TK_CLOSE_PAREN (")"),
     TK_ASSIGN (":="),
 	TK_NEQ ("!="),
 	TK_EXCLAMATION ("!"),
     TK_COLON (":"),
     TK_COMMA (","),
-    TK_DOT ("\\."),
+    TK_DOT ("."),
 
     // Operators
-    TK_PLUS ("\\+"),
+    TK_PLUS ("+"),
     TK_MINUS ("-"),
-    TK_MUL ("\\*"),
+    TK_MUL ("*"),
     TK_LTE ("<="),
     TK_GTE (">="),
     TK_LT ("<"),
@@ -63,20 +60,18 @@ public enum Token {
     TK_TRUE ("true"),
     TK_FALSE ("false");
 
+    /**
+     * The only lexeme the token can have, or null if the lexeme varies (identifiers and literals).
+     * Shared by all tokens of this kind instead of copying the text out of the source.
+     */
     @Getter
-    private final Pattern pattern;
+    private final String text;
 
-    Token(String regex) {
-        pattern = Pattern.compile("^" + regex);
+    Token() {
+        this(null);
     }
 
-    int endOfMatch(String s) {
-        Matcher m = pattern.matcher(s);
-
-        if (m.find()) {
-            return m.end();
-        }
-
-        return -1;
+    Token(String text) {
+        this.text = text;
     }
-}
\ No newline at end of file
+}
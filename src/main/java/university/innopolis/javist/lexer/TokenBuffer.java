@@ -0,0 +1,464 @@
+package university.innopolis.javist.lexer;
+
+import university.innopolis.javist.errors.LexerError;
+import university.innopolis.javist.syntax.TokenLexemaPair;
+
+import java.util.Arrays;
+
+/**
+ * All tokens of a source, stored in parallel primitive arrays and addressed by index.
+ * The buffer keeps only token kinds, offsets and positions; lexemes are read back
+ * from the source when they are asked for. If the source drops the characters it has passed,
+ * the lexemes of literals are copied as they are added instead; names are interned anyway.
+ * <p>
+ * A buffer may also be made of ranges of other buffers, each moved by a number of characters and lines
+ * (see {@link #appendView}). The tokens are then not copied, and their offsets and lines are shifted
+ * when they are read.
+ */
+public class TokenBuffer {
+    private static final Token[] TOKENS = Token.values();
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Number of ranges above which {@link #compacted()} copies a buffer into arrays of its own.
+     */
+    private static final int MAX_SEGMENTS = 32;
+
+    private final CharSource source;
+
+    private int[] kinds = new int[INITIAL_CAPACITY];
+
+    private int[] starts = new int[INITIAL_CAPACITY];
+
+    private int[] ends = new int[INITIAL_CAPACITY];
+
+    private int[] lines = new int[INITIAL_CAPACITY];
+
+    private int[] columns = new int[INITIAL_CAPACITY];
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+
+    /**
+     * Copied lexemes of literals, or null if they are read back from the source.
+     */
+    private String[] literals;
+
+    private final Lexeme.Window window;
+
+    private int size = 0;
+
+    private String errorMessage = "";
+
+    private int endLine = 1;
+
+    /**
+     * Ranges of other buffers the tokens are read from, by the index of their first token,
+     * or null if the tokens are in the arrays of this buffer.
+     */
+    private Segment[] segments;
+
+    private int segmentCount = 0;
+
+    public TokenBuffer(CharSource source) {
+        this(source, false);
+    }
+
+    /**
+     * @param source       The source the tokens are lexed from.
+     * @param copyLiterals Whether to copy the lexemes of literals, for a source that does not keep them.
+     */
+    public TokenBuffer(CharSource source, boolean copyLiterals) {
+        this.source = source;
+        this.window = new Lexeme.Window(source);
+        if (copyLiterals) {
+            literals = new String[INITIAL_CAPACITY];
+        }
+    }
+
+    void add(Token token, int start, int end, int line, int column) {
+        ensureCapacity(size + 1);
+
+        kinds[size] = token.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        lines[size] = line;
+        columns[size] = column;
+        ids[size] = idOf(token, start, end);
+        if (literals != null && token.getText() == null && ids[size] == IdentifierTable.NO_ID) {
+            literals[size] = source.substring(start, end);
+        }
+        size++;
+    }
+
+    /**
+     * Appends a range of tokens of a buffer that was lexed from the same text or a part of it.
+     * The error message and the end line are taken from that buffer.
+     * Both buffers must hold their tokens in arrays of their own.
+     * @param part   The buffer.
+     * @param from   Index of the first token to copy.
+     * @param to     Index after the last token to copy.
+     * @param offset Number added to the offsets of the tokens.
+     * @param lines  Number added to the lines of the tokens.
+     */
+    void append(TokenBuffer part, int from, int to, int offset, int lines) {
+        if (segments != null || part.segments != null) {
+            throw new IllegalStateException("Views of tokens cannot be copied");
+        }
+        int count = to - from;
+        ensureCapacity(size + count);
+
+        System.arraycopy(part.kinds, from, kinds, size, count);
+        System.arraycopy(part.columns, from, columns, size, count);
+        System.arraycopy(part.ids, from, ids, size, count);
+        if (literals != null && part.literals != null) {
+            System.arraycopy(part.literals, from, literals, size, count);
+        }
+        for (int i = 0; i < count; i++) {
+            starts[size + i] = part.starts[from + i] + offset;
+            ends[size + i] = part.ends[from + i] + offset;
+            this.lines[size + i] = part.lines[from + i] + lines;
+        }
+
+        size += count;
+        errorMessage = part.errorMessage;
+        endLine = part.endLine + lines;
+    }
+
+    /**
+     * Appends a range of tokens of a buffer without copying them, like {@link #append}.
+     * A buffer the views are appended to reads all of its tokens through views.
+     * @param part   The buffer. It must not be changed afterwards.
+     * @param from   Index of the first token.
+     * @param to     Index after the last token.
+     * @param offset Number added to the offsets of the tokens.
+     * @param lines  Number added to the lines of the tokens.
+     */
+    void appendView(TokenBuffer part, int from, int to, int offset, int lines) {
+        if (segments == null) {
+            if (size > 0) {
+                throw new IllegalStateException("The buffer holds tokens of its own");
+            }
+            segments = new Segment[8];
+        }
+        if (part.segments == null) {
+            addSegment(new Segment(part, size, from, offset, lines), to - from);
+        } else {
+            for (int s = part.segment(from); from < to; s++) {
+                Segment segment = part.segments[s];
+                int segmentEnd = s + 1 < part.segmentCount ? part.segments[s + 1].index : part.size;
+                int count = Math.min(to, segmentEnd) - from;
+                addSegment(new Segment(segment.base, size, segment.from + from - segment.index,
+                        segment.offset + offset, segment.lines + lines), count);
+                from += count;
+            }
+        }
+        errorMessage = part.errorMessage;
+        endLine = part.endLine + lines;
+    }
+
+    private void addSegment(Segment segment, int count) {
+        if (count == 0) {
+            return;
+        }
+        if (segmentCount == segments.length) {
+            segments = Arrays.copyOf(segments, segmentCount * 2);
+        }
+        segments[segmentCount++] = segment;
+        size += count;
+    }
+
+    /**
+     * Copies a buffer made of many views into arrays of its own, so that the views of buffers edited
+     * over and over do not pile up.
+     * @return This buffer, or the copy.
+     */
+    TokenBuffer compacted() {
+        if (segmentCount <= MAX_SEGMENTS) {
+            return this;
+        }
+        TokenBuffer copy = new TokenBuffer(source);
+        copy.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            copy.kinds[i] = kind(i);
+            copy.starts[i] = start(i);
+            copy.ends[i] = end(i);
+            copy.lines[i] = line(i);
+            copy.columns[i] = column(i);
+            copy.ids[i] = id(i);
+        }
+        copy.size = size;
+        copy.errorMessage = errorMessage;
+        copy.endLine = endLine;
+        return copy;
+    }
+
+    /**
+     * Finds the view holding a token.
+     * @return Index of the last segment starting at or before the token.
+     */
+    private int segment(int index) {
+        int low = 0;
+        int high = segmentCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (segments[middle].index <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= kinds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, kinds.length * 2);
+        kinds = Arrays.copyOf(kinds, newCapacity);
+        starts = Arrays.copyOf(starts, newCapacity);
+        ends = Arrays.copyOf(ends, newCapacity);
+        lines = Arrays.copyOf(lines, newCapacity);
+        columns = Arrays.copyOf(columns, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        if (literals != null) {
+            literals = Arrays.copyOf(literals, newCapacity);
+        }
+    }
+
+    /**
+     * Interns the names: identifiers and the built-in type names that the lexer makes keywords.
+     */
+    private int idOf(Token token, int start, int end) {
+        return switch (token) {
+            case TK_IDENTIFIER -> IdentifierTable.GLOBAL.intern(window.set(start, end));
+            case TK_INTEGER, TK_REAL, TK_ARRAY -> IdentifierTable.GLOBAL.intern(token.getText());
+            default -> IdentifierTable.NO_ID;
+        };
+    }
+
+    void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    void setEndLine(int endLine) {
+        this.endLine = endLine;
+    }
+
+    /**
+     * Gets the line the lexer stopped at, after the last token and the blanks following it.
+     * @return The line number.
+     */
+    public int endLine() {
+        return endLine;
+    }
+
+    CharSource source() {
+        return source;
+    }
+
+    /**
+     * Finds the first token that starts at or after an offset.
+     * @param offset Offset in the text.
+     * @return Index of the token, or {@link #size()} if there is none.
+     */
+    int indexFrom(int offset) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (start(middle) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int kind(int index) {
+        if (segments != null) {
+            Segment segment = segments[segment(index)];
+            return segment.base.kinds[segment.from + index - segment.index];
+        }
+        return kinds[index];
+    }
+
+    public Token token(int index) {
+        return TOKENS[kind(index)];
+    }
+
+    public int start(int index) {
+        if (segments != null) {
+            Segment segment = segments[segment(index)];
+            return segment.base.starts[segment.from + index - segment.index] + segment.offset;
+        }
+        return starts[index];
+    }
+
+    public int end(int index) {
+        if (segments != null) {
+            Segment segment = segments[segment(index)];
+            return segment.base.ends[segment.from + index - segment.index] + segment.offset;
+        }
+        return ends[index];
+    }
+
+    public int line(int index) {
+        if (segments != null) {
+            Segment segment = segments[segment(index)];
+            return segment.base.lines[segment.from + index - segment.index] + segment.lines;
+        }
+        return lines[index];
+    }
+
+    public int column(int index) {
+        if (segments != null) {
+            Segment segment = segments[segment(index)];
+            return segment.base.columns[segment.from + index - segment.index];
+        }
+        return columns[index];
+    }
+
+    /**
+     * Gets the id assigned to a name token during lexing.
+     * @param index Index of the token.
+     * @return Id in {@link IdentifierTable#GLOBAL}, or {@link IdentifierTable#NO_ID} if the token is not a name.
+     */
+    public int id(int index) {
+        if (segments != null) {
+            Segment segment = segments[segment(index)];
+            return segment.base.ids[segment.from + index - segment.index];
+        }
+        return ids[index];
+    }
+
+    /**
+     * Gets the lexeme of a token without copying it.
+     * @param index Index of the token.
+     * @return The shared text of a fixed-text token or a name, or a view into the source for a literal.
+     */
+    public CharSequence lexeme(int index) {
+        if (segments != null) {
+            Segment segment = segments[segment(index)];
+            return segment.base.lexeme(segment.from + index - segment.index);
+        }
+        String text = token(index).getText();
+        if (text != null) {
+            return text;
+        }
+        if (ids[index] != IdentifierTable.NO_ID) {
+            return IdentifierTable.GLOBAL.name(ids[index]);
+        }
+        if (literals != null) {
+            return literals[index];
+        }
+        return new Lexeme(source, starts[index], ends[index]);
+    }
+
+    /**
+     * Makes the pair stored in the AST for a token.
+     * @param index Index of the token.
+     * @return The pair, or null if the index is past the last token.
+     * @throws LexerError if the index is past the last token and the source contains a lexical error.
+     */
+    public TokenLexemaPair pair(int index) throws LexerError {
+        if (index < size) {
+            return new TokenLexemaPair(token(index), lexeme(index), line(index), column(index), id(index));
+        }
+        if (!errorMessage.isEmpty()) {
+            throw new LexerError(errorMessage);
+        }
+        return null;
+    }
+
+    public boolean isSuccessful() {
+        return errorMessage.isEmpty();
+    }
+
+    public String errorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Tokens of another buffer read as tokens of this one.
+     * @param base   The buffer holding the tokens in arrays of its own.
+     * @param index  Index in this buffer of the first token.
+     * @param from   Index in the base buffer of the first token.
+     * @param offset Number added to the offsets of the tokens.
+     * @param lines  Number added to the lines of the tokens.
+     */
+    private record Segment(TokenBuffer base, int index, int from, int offset, int lines) {
+    }
+
+    /**
+     * A part of the source text that is not copied until {@link #toString()} is called.
+     */
+    private record Lexeme(CharSource source, int start, int end) implements CharSequence {
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new Lexeme(source, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return source.substring(start, end);
+        }
+
+        /**
+         * Reusable view for looking names up in the identifier table without allocating.
+         */
+        private static final class Window implements CharSequence {
+            private final CharSource source;
+
+            private int start;
+
+            private int end;
+
+            private Window(CharSource source) {
+                this.source = source;
+            }
+
+            private Window set(int start, int end) {
+                this.start = start;
+                this.end = end;
+                return this;
+            }
+
+            @Override
+            public int length() {
+                return end - start;
+            }
+
+            @Override
+            public char charAt(int index) {
+                return (char) source.charAt(start + index);
+            }
+
+            @Override
+            public CharSequence subSequence(int from, int to) {
+                return new Lexeme(source, start + from, start + to);
+            }
+
+            @Override
+            public String toString() {
+                return source.substring(start, end);
+            }
+        }
+    }
+}
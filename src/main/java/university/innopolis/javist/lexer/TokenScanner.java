@@ -0,0 +1,194 @@
+package university.innopolis.javist.lexer;
+
+/**
+ * Single-pass scanner that recognises one token at a given offset.
+ * The input is classified character by character through a lookup table,
+ * so every character is inspected once, instead of trying a regex per {@link Token}
+ * in turn on a copy of the remaining input.
+ * <p>
+ * The result is exactly the one the regex lexer it replaced gave:
+ * keywords and boolean literals are matched as prefixes of a word
+ * ("isValid" is {@code TK_IS} followed by {@code TK_IDENTIFIER}),
+ * and punctuation is tried in the order of the enum.
+ */
+class TokenScanner {
+    private static final byte OTHER = 0;
+    private static final byte LETTER = 1;
+    private static final byte DIGIT = 2;
+    private static final byte BLANK = 3;
+    private static final byte PUNCTUATION = 4;
+
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LETTER;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CLASSES[c] = LETTER;
+        }
+        CLASSES['_'] = LETTER;
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        for (char c : new char[]{'\r', '\n', 8, 9, 11, 12, 32}) {
+            CLASSES[c] = BLANK;
+        }
+        for (char c : "[]{}():!,.+-*<>/=".toCharArray()) {
+            CLASSES[c] = PUNCTUATION;
+        }
+    }
+
+    private Token token;
+
+    private int end;
+
+    /**
+     * Checks if the character is skipped between tokens.
+     * @param c The character to check.
+     * @return true if the character is blank.
+     */
+    static boolean isBlank(int c) {
+        return classOf(c) == BLANK;
+    }
+
+    private static byte classOf(int c) {
+        return c >= 0 && c < 128 ? CLASSES[c] : OTHER;
+    }
+
+    private static boolean isWordPart(int c) {
+        byte charClass = classOf(c);
+        return charClass == LETTER || charClass == DIGIT;
+    }
+
+    /**
+     * Recognises the token starting at the given offset.
+     * On success the token and its end offset are available through {@link #token()} and {@link #end()}.
+     * @param input The source text.
+     * @param start Offset of the first character of the token.
+     * @return false if no token starts at the offset.
+     */
+    boolean scan(CharSource input, int start) {
+        int c = input.charAt(start);
+        switch (classOf(c)) {
+            case LETTER -> {
+                int wordEnd = start + 1;
+                while (isWordPart(input.charAt(wordEnd))) {
+                    wordEnd++;
+                }
+                if (!scanKeyword(input, start, wordEnd)) {
+                    set(Token.TK_IDENTIFIER, wordEnd);
+                }
+                return true;
+            }
+            case DIGIT -> {
+                int numberEnd = skipDigits(input, start + 1);
+                if (input.charAt(numberEnd) == '.' && classOf(input.charAt(numberEnd + 1)) == DIGIT) {
+                    set(Token.TK_REAL_LITERAL, skipDigits(input, numberEnd + 2));
+                } else {
+                    set(Token.TK_INTEGER_LITERAL, numberEnd);
+                }
+                return true;
+            }
+            case PUNCTUATION -> {
+                return scanPunctuation(input, start, c);
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    Token token() {
+        return token;
+    }
+
+    int end() {
+        return end;
+    }
+
+    private void set(Token token, int end) {
+        this.token = token;
+        this.end = end;
+    }
+
+    private static int skipDigits(CharSource input, int from) {
+        while (classOf(input.charAt(from)) == DIGIT) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Looks for a keyword or a boolean literal at the beginning of the word [start, wordEnd).
+     * No keyword is a prefix of another one, so at most one candidate can match.
+     */
+    private boolean scanKeyword(CharSource input, int start, int wordEnd) {
+        return switch (input.charAt(start)) {
+            case 'c' -> keyword(input, start, wordEnd, "class", Token.TK_CLASS);
+            case 'e' -> keyword(input, start, wordEnd, "extends", Token.TK_EXTENDS)
+                    || keyword(input, start, wordEnd, "end", Token.TK_END)
+                    || keyword(input, start, wordEnd, "else", Token.TK_ELSE);
+            case 'I' -> keyword(input, start, wordEnd, "Integer", Token.TK_INTEGER);
+            case 'R' -> keyword(input, start, wordEnd, "Real", Token.TK_REAL);
+            case 'A' -> keyword(input, start, wordEnd, "Array", Token.TK_ARRAY);
+            case 'm' -> keyword(input, start, wordEnd, "mod", Token.TK_MOD)
+                    || keyword(input, start, wordEnd, "method", Token.TK_METHOD);
+            case 'i' -> keyword(input, start, wordEnd, "is", Token.TK_IS)
+                    || keyword(input, start, wordEnd, "if", Token.TK_IF);
+            case 'v' -> keyword(input, start, wordEnd, "var", Token.TK_VAR);
+            case 't' -> keyword(input, start, wordEnd, "this", Token.TK_THIS)
+                    || keyword(input, start, wordEnd, "then", Token.TK_THEN)
+                    || keyword(input, start, wordEnd, "true", Token.TK_BOOLEAN_LITERAL);
+            case 'w' -> keyword(input, start, wordEnd, "while", Token.TK_WHILE);
+            case 'l' -> keyword(input, start, wordEnd, "loop", Token.TK_LOOP);
+            case 'r' -> keyword(input, start, wordEnd, "return", Token.TK_RETURN);
+            case 'f' -> keyword(input, start, wordEnd, "false", Token.TK_BOOLEAN_LITERAL);
+            default -> false;
+        };
+    }
+
+    private boolean keyword(CharSource input, int start, int wordEnd, String text, Token keyword) {
+        if (wordEnd - start < text.length()) {
+            return false;
+        }
+        for (int i = 1; i < text.length(); i++) {
+            if (input.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        set(keyword, start + text.length());
+        return true;
+    }
+
+    private boolean scanPunctuation(CharSource input, int start, int c) {
+        int next = input.charAt(start + 1);
+        Token result = switch (c) {
+            case '[' -> Token.TK_OPEN_BRACKET;
+            case ']' -> Token.TK_CLOSE_BRACKET;
+            case '{' -> Token.TK_OPEN_BRACE;
+            case '}' -> Token.TK_CLOSE_BRACE;
+            case '(' -> Token.TK_OPEN_PAREN;
+            case ')' -> Token.TK_CLOSE_PAREN;
+            case ':' -> next == '=' ? Token.TK_ASSIGN : Token.TK_COLON;
+            case '!' -> next == '=' ? Token.TK_NEQ : Token.TK_EXCLAMATION;
+            case ',' -> Token.TK_COMMA;
+            case '.' -> Token.TK_DOT;
+            case '+' -> Token.TK_PLUS;
+            case '-' -> Token.TK_MINUS;
+            case '*' -> Token.TK_MUL;
+            case '<' -> next == '=' ? Token.TK_LTE : Token.TK_LT;
+            case '>' -> next == '=' ? Token.TK_GTE : Token.TK_GT;
+            case '/' -> Token.TK_DIV;
+            case '=' -> next == '=' ? Token.TK_EQ : null;
+            default -> null;
+        };
+        if (result == null) {
+            return false;
+        }
+        boolean twoChars = result == Token.TK_ASSIGN || result == Token.TK_NEQ
+                || result == Token.TK_LTE || result == Token.TK_GTE || result == Token.TK_EQ;
+        set(result, start + (twoChars ? 2 : 1));
+        return true;
+    }
+}
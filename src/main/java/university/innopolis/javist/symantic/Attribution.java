@@ -0,0 +1,94 @@
+package university.innopolis.javist.symantic;
+
+import university.innopolis.javist.ast.*;
+import university.innopolis.javist.symantic.symbol.ConstructorSymbol;
+import university.innopolis.javist.symantic.symbol.MethodSymbol;
+import university.innopolis.javist.symantic.symbol.TypeRef;
+import university.innopolis.javist.symantic.symbol.VariableSymbol;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * What the semantic analysis found out about the nodes of a program: the type of every expression,
+ * the method or constructor every call resolves to, and the variable every name is bound to.
+ * Later phases read it instead of resolving anything again.
+ * <p>
+ * Nodes are keyed by identity, so the table belongs to the typed AST it was made from.
+ * A variable is a field, or a parameter or a local variable with its JVM slot; see {@link VariableSymbol#isLocal()}.
+ */
+public class Attribution {
+    private final Map<Expression, TypeRef> types = new IdentityHashMap<>();
+
+    private final Map<Call, ConstructorSymbol> calls = new IdentityHashMap<>();
+
+    private final Map<Node, VariableSymbol> variables = new IdentityHashMap<>();
+
+    /**
+     * Gets the static type of an expression.
+     *
+     * @param expression The expression.
+     * @return The type, or null if the expression was not analyzed or has no type.
+     */
+    public TypeRef typeOf(Expression expression) {
+        return types.get(expression);
+    }
+
+    /**
+     * Gets the method a call resolves to.
+     *
+     * @param call The call.
+     * @return The method, or null if the call is not a method call or was not resolved.
+     */
+    public MethodSymbol methodOf(Call call) {
+        return calls.get(call) instanceof MethodSymbol method ? method : null;
+    }
+
+    /**
+     * Gets the constructor a class applied to arguments, {@code Foo(1)}, resolves to.
+     *
+     * @param call The call without a method.
+     * @return The constructor, or null if the call is not a constructor call or was not resolved.
+     */
+    public ConstructorSymbol constructorOf(Call call) {
+        ConstructorSymbol constructor = calls.get(call);
+        return constructor instanceof MethodSymbol ? null : constructor;
+    }
+
+    /**
+     * Gets the variable a node is bound to: the variable a {@link Reference} reads,
+     * the one an {@link Assignment} writes or the one a {@link VariableDeclaration} declares.
+     *
+     * @param node The node.
+     * @return The variable, or null if the node is not bound to one.
+     */
+    public VariableSymbol variableOf(Node node) {
+        return variables.get(node);
+    }
+
+    TypeRef setType(Expression expression, TypeRef type) {
+        if (type != null) {
+            types.put(expression, type);
+        }
+        return type;
+    }
+
+    void setCall(Call call, ConstructorSymbol target) {
+        calls.put(call, target);
+    }
+
+    void setVariable(Node node, VariableSymbol variable) {
+        variables.put(node, variable);
+    }
+
+    /**
+     * Adds everything recorded in another table.
+     *
+     * @param other The table.
+     */
+    void addAll(Attribution other) {
+        types.putAll(other.types);
+        calls.putAll(other.calls);
+        variables.putAll(other.variables);
+    }
+}
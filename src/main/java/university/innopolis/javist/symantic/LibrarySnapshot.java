@@ -0,0 +1,306 @@
+package university.innopolis.javist.symantic;
+
+import university.innopolis.javist.symantic.symbol.*;
+import university.innopolis.javist.syntax.ProgramTree;
+import university.innopolis.javist.syntax.SyntaxComponent;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Symbols of the predefined libraries in a binary form, so that the libraries are not lexed, parsed
+ * and analyzed on every run. The snapshot is written at build time by {@link #main(String[])}
+ * and bundled next to this class. The libraries themselves are bundled too, as {@link #LIBRARIES_RESOURCE},
+ * and are analyzed instead when there is no snapshot or it was made from other libraries.
+ * <p>
+ * The file is a magic number, a version and a hash of the libraries it was made from, followed by the classes. A class is its name, its parent
+ * and the length of its member block. The block holds the variables, the constructors and the methods,
+ * every part preceded by the number of entries, and is only decoded when the class is first used.
+ * Names and types that may be absent are preceded by a flag. A type is its class name,
+ * followed by a flag and, for an array, the type of its elements.
+ */
+public class LibrarySnapshot {
+    /**
+     * Name of the libraries resource the snapshot is made from, relative to the root of the classpath.
+     */
+    public static final String LIBRARIES_RESOURCE = "/sources/Libraries.txt";
+
+    /**
+     * Name of the snapshot resource, relative to this class.
+     */
+    public static final String RESOURCE = "libraries.snapshot";
+
+    private static final int MAGIC = 0x4F4C4942;
+
+    private static final int VERSION = 4;
+
+    /**
+     * Bytes of the bundled snapshot and libraries, read on first use.
+     * Whether the snapshot was made from the bundled libraries is checked once, against the hash
+     * written into it at build time, and not again for every analyzer.
+     */
+    private static final class Bundled {
+        private static final byte[] BYTES = readResource(RESOURCE);
+
+        private static final byte[] LIBRARIES = readResource(LIBRARIES_RESOURCE);
+
+        private static final boolean CURRENT = BYTES != null && isMadeFrom(BYTES, LIBRARIES);
+
+        private static byte[] readResource(String name) {
+            try (InputStream in = LibrarySnapshot.class.getResourceAsStream(name)) {
+                return in == null ? null : in.readAllBytes();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Gets the text of the bundled libraries.
+     *
+     * @return The characters, or null if the libraries are not on the classpath.
+     */
+    public static char[] bundledLibraries() {
+        return Bundled.LIBRARIES == null ? null : new String(Bundled.LIBRARIES, StandardCharsets.UTF_8).toCharArray();
+    }
+
+    /**
+     * Writes the snapshot of a libraries file.
+     *
+     * @param args The path of the libraries and the path of the snapshot.
+     */
+    public static void main(String[] args) throws IOException {
+        byte[] libraries = Files.readAllBytes(Path.of(args[0]));
+        SemanticAnalyzer analyzer = new SemanticAnalyzer(new ProgramTree(SyntaxComponent.PROGRAM, 0, 0));
+        analyzer.analyzePredefinedLibraries(new String(libraries, StandardCharsets.UTF_8).toCharArray());
+
+        File file = new File(args[1]);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            write(analyzer.getSymbolTable(), hash(libraries), out);
+        }
+    }
+
+    /**
+     * Adds the classes of the bundled snapshot to a symbol table and links them to their parents.
+     * The members of a class are decoded when the class is first used.
+     * The hierarchy was checked for cycles when the snapshot was written.
+     *
+     * @param symbolTable The symbol table.
+     * @return false if there is no bundled snapshot, it cannot be read, or it was made from other libraries
+     * than the bundled ones.
+     */
+    public static boolean load(SymbolTable symbolTable) {
+        if (!Bundled.CURRENT) {
+            return false;
+        }
+        try {
+            List<ClassSymbol> classes = read(Bundled.BYTES, null);
+            for (ClassSymbol classSymbol : classes) {
+                symbolTable.put(classSymbol.getId(), classSymbol);
+            }
+            for (ClassSymbol classSymbol : classes) {
+                classSymbol.setParentClass((ClassSymbol) symbolTable.get(classSymbol.getParentClassName()));
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the classes of a symbol table.
+     *
+     * @param symbolTable The symbol table.
+     * @param sourceHash  The {@link #hash(byte[])} of the libraries the classes come from.
+     * @param out         The stream.
+     */
+    public static void write(SymbolTable symbolTable, long sourceHash, DataOutput out) throws IOException {
+        List<ClassSymbol> classes = new ArrayList<>();
+        for (Symbol symbol : symbolTable.values()) {
+            if (symbol instanceof ClassSymbol classSymbol) {
+                classes.add(classSymbol);
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(sourceHash);
+        out.writeInt(classes.size());
+        for (ClassSymbol classSymbol : classes) {
+            out.writeUTF(classSymbol.getName());
+            writeNullable(classSymbol.getParentClassName(), out);
+
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            writeMembers(classSymbol, new DataOutputStream(block));
+            out.writeInt(block.size());
+            out.write(block.toByteArray());
+        }
+    }
+
+    private static void writeMembers(ClassSymbol classSymbol, DataOutput out) throws IOException {
+        List<VariableSymbol> variables = classSymbol.getVariables().values();
+        out.writeInt(variables.size());
+        for (VariableSymbol variable : variables) {
+            out.writeUTF(variable.getName());
+            writeType(variable.getType(), out);
+        }
+
+        out.writeInt(classSymbol.getConstructors().size());
+        for (ConstructorSymbol constructor : classSymbol.getConstructors()) {
+            writeParameters(constructor.getParameters(), out);
+        }
+
+        out.writeInt(classSymbol.getMethods().size());
+        for (MethodSymbol method : classSymbol.getMethods()) {
+            out.writeUTF(method.getName());
+            writeType(method.getReturnType(), out);
+            writeParameters(method.getParameters(), out);
+        }
+    }
+
+    /**
+     * Reads the classes written by {@link #write(SymbolTable, long, DataOutput)}.
+     * The classes are stubs that decode their members from the bytes when they are first used.
+     *
+     * @param bytes      The snapshot.
+     * @param sourceHash The hash of the libraries the snapshot must be made from, or null to take any.
+     * @return The classes.
+     * @throws IOException if the bytes are not a snapshot of this version or of these libraries.
+     */
+    public static List<ClassSymbol> read(byte[] bytes, Long sourceHash) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a library snapshot of version " + VERSION);
+        }
+        long hash = in.readLong();
+        if (sourceHash != null && hash != sourceHash) {
+            throw new IOException("The library snapshot was made from other libraries");
+        }
+
+        int classCount = in.readInt();
+        List<ClassSymbol> classes = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            String name = in.readUTF();
+            String parentName = readNullable(in);
+            int length = in.readInt();
+            int offset = bytes.length - in.available();
+            if (in.skipBytes(length) != length) {
+                throw new EOFException();
+            }
+            classes.add(new ClassSymbol(name, parentName, classSymbol -> readMembers(classSymbol, bytes, offset, length)));
+        }
+        return classes;
+    }
+
+    private static void readMembers(ClassSymbol classSymbol, byte[] bytes, int offset, int length) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+        try {
+            int variableCount = in.readInt();
+            for (int j = 0; j < variableCount; j++) {
+                classSymbol.addVariable(new VariableSymbol(in.readUTF(), readType(in)));
+            }
+
+            int constructorCount = in.readInt();
+            for (int j = 0; j < constructorCount; j++) {
+                classSymbol.addConstructor(new ConstructorSymbol(readParameters(in)));
+            }
+
+            int methodCount = in.readInt();
+            for (int j = 0; j < methodCount; j++) {
+                String name = in.readUTF();
+                TypeRef returnType = readType(in);
+                classSymbol.addMethod(new MethodSymbol(name, returnType, readParameters(in)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Broken library snapshot at class " + classSymbol.getName(), e);
+        }
+    }
+
+    /**
+     * Checks that a snapshot is of this version and was made from the given libraries.
+     *
+     * @param bytes     The snapshot.
+     * @param libraries The bytes of the libraries file, or null to take a snapshot of any libraries.
+     * @return true if the snapshot can be read for the libraries.
+     */
+    static boolean isMadeFrom(byte[] bytes, byte[] libraries) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            return libraries == null || in.readLong() == hash(libraries);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hashes the text of libraries, so that a snapshot can tell whether it was made from them.
+     *
+     * @param libraries The bytes of the libraries file.
+     * @return The CRC-32 of the bytes.
+     */
+    public static long hash(byte[] libraries) {
+        CRC32 crc = new CRC32();
+        crc.update(libraries);
+        return crc.getValue();
+    }
+
+    private static void writeParameters(List<ParameterSymbol> parameters, DataOutput out) throws IOException {
+        out.writeInt(parameters.size());
+        for (ParameterSymbol parameter : parameters) {
+            writeNullable(parameter.getName(), out);
+            writeType(parameter.getType(), out);
+        }
+    }
+
+    private static List<ParameterSymbol> readParameters(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<ParameterSymbol> parameters = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            parameters.add(new ParameterSymbol(readNullable(in), readType(in)));
+        }
+        return parameters;
+    }
+
+    /**
+     * Writes a type as its class name, followed by the element type for an array.
+     */
+    private static void writeType(TypeRef type, DataOutput out) throws IOException {
+        writeNullable(type == null ? null : type.getName(), out);
+        if (type != null) {
+            out.writeBoolean(type.getKind() == TypeRef.Kind.ARRAY);
+            if (type.getKind() == TypeRef.Kind.ARRAY) {
+                writeType(type.getElement(), out);
+            }
+        }
+    }
+
+    private static TypeRef readType(DataInput in) throws IOException {
+        String name = readNullable(in);
+        if (name == null) {
+            return null;
+        }
+        return in.readBoolean() ? TypeRef.arrayOf(readType(in)) : TypeRef.of(name);
+    }
+
+    private static void writeNullable(String value, DataOutput out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -1,55 +1,181 @@
 package university.innopolis.javist.symantic;
 
 import lombok.Getter;
-import university.innopolis.javist.symantic.symbol.Symbol;
+import university.innopolis.javist.lexer.IdentifierTable;
+import university.innopolis.javist.symantic.symbol.TypeRef;
 import university.innopolis.javist.symantic.symbol.VariableSymbol;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * Local variables of a method or a constructor, kept as one stack of entries.
+ * Entering a block marks the top of the stack and leaving it drops the entries above the mark.
+ * The innermost entry of every name is kept in a small open-addressing table keyed by the id of the name,
+ * so a lookup does not walk the blocks and the scope only grows with the names the method uses.
+ * <p>
+ * A variable gets a JVM local variable slot when it is declared. Slot 0 holds {@code this};
+ * the slots of a block are given out again after the block is left.
+ */
 public class Scope {
+    private static final int NONE = -1;
 
+    /**
+     * Number of blocks entered and not left.
+     */
     @Getter
-    private final Integer level;
+    private int level = 0;
 
-    @Getter
-    private final Map<String, VariableSymbol> variables;
+    private int size = 0;
+
+    private int[] ids = new int[8];
+
+    private VariableSymbol[] variables = new VariableSymbol[8];
+
+    /**
+     * For every entry, the entry of the same name it hides, or {@link #NONE}.
+     */
+    private int[] hidden = new int[8];
+
+    /**
+     * Ids of the names seen, plus one, by hash; 0 for a free place.
+     */
+    private int[] keys = new int[16];
+
+    /**
+     * For every place in {@link #keys}, the innermost entry of the name, or {@link #NONE}.
+     */
+    private int[] innermost = new int[16];
+
+    private int keyCount = 0;
 
-    private final Scope parentScope;
+    /**
+     * For every block, the number of entries and the next slot when it was entered.
+     */
+    private int[] marks = new int[8];
 
-    public Scope(Scope scope) {
-        this.level = scope.getLevel()+1;
-        this.variables = new HashMap<>();
-        this.parentScope = scope;
+    private int nextSlot = 1;
+
+    /**
+     * Number of slots the variables of the method need, {@code this} included.
+     */
+    @Getter
+    private int maxSlots = 1;
+
+    /**
+     * Starts a block. The variables declared until {@link #exit()} are dropped then.
+     */
+    public void enter() {
+        if (level * 2 + 2 > marks.length) {
+            marks = Arrays.copyOf(marks, marks.length * 2);
+        }
+        marks[level * 2] = size;
+        marks[level * 2 + 1] = nextSlot;
+        level++;
     }
 
-    public Scope() {
-        this.level = 0;
-        this.variables = new HashMap<>();
-        this.parentScope = null;
+    /**
+     * Ends the block started by the last {@link #enter()}.
+     */
+    public void exit() {
+        level--;
+        int mark = marks[level * 2];
+        while (size > mark) {
+            size--;
+            innermost[place(ids[size])] = hidden[size];
+            variables[size] = null;
+        }
+        nextSlot = marks[level * 2 + 1];
     }
 
-    public boolean isExist(String name) {
-        if (this.variables.containsKey(name)) {
-            return true;
+    /**
+     * Declares a variable in the current block and gives it the next free slot.
+     *
+     * @param name The name of the variable.
+     * @param type The type of the variable.
+     * @return The variable.
+     */
+    public VariableSymbol declare(String name, TypeRef type) {
+        VariableSymbol variable = new VariableSymbol(name, type, nextSlot);
+        nextSlot += type == null ? 1 : type.getSlotSize();
+        maxSlots = Math.max(maxSlots, nextSlot);
+
+        int id = variable.getId();
+        int place = place(id);
+        if (keys[place] == 0) {
+            if ((keyCount + 1) * 2 > keys.length) {
+                rehash();
+                place = place(id);
+            }
+            keys[place] = id + 1;
+            innermost[place] = NONE;
+            keyCount++;
         }
-        if (parentScope == null) {
-            return false;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            variables = Arrays.copyOf(variables, size * 2);
+            hidden = Arrays.copyOf(hidden, size * 2);
         }
-        return parentScope.isExist(name);
+        ids[size] = id;
+        variables[size] = variable;
+        hidden[size] = innermost[place];
+        innermost[place] = size;
+        size++;
+        return variable;
+    }
+
+    public boolean isExist(String name) {
+        return isExist(IdentifierTable.GLOBAL.find(name));
     }
 
-    public Symbol variableLookup(String name) {
-        if (this.variables.containsKey(name)) {
-            return this.variables.get(name);
+    public boolean isExist(int id) {
+        return variableLookup(id) != null;
+    }
+
+    public VariableSymbol variableLookup(String name) {
+        return variableLookup(IdentifierTable.GLOBAL.find(name));
+    }
+
+    /**
+     * Finds the innermost variable with the given name.
+     *
+     * @param id The id of the name.
+     * @return The variable, or null if there is none.
+     */
+    public VariableSymbol variableLookup(int id) {
+        if (id < 0) {
+            return null;
         }
-        if (parentScope == null) {
+        int place = place(id);
+        if (keys[place] == 0 || innermost[place] == NONE) {
             return null;
         }
-        return parentScope.variableLookup(name);
+        return variables[innermost[place]];
+    }
+
+    /**
+     * Finds the place of an id in {@link #keys}: the place holding it, or the free place it would take.
+     */
+    private int place(int id) {
+        int mask = keys.length - 1;
+        int hash = id * 0x9E3779B9;
+        int place = (hash ^ hash >>> 16) & mask;
+        while (keys[place] != 0 && keys[place] != id + 1) {
+            place = (place + 1) & mask;
+        }
+        return place;
     }
 
-    public void put(String name, VariableSymbol variable) {
-        this.variables.put(name, variable);
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldInnermost = innermost;
+        keys = new int[oldKeys.length * 2];
+        innermost = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int place = place(oldKeys[i] - 1);
+                keys[place] = oldKeys[i];
+                innermost[place] = oldInnermost[i];
+            }
+        }
     }
 }
@@ -1,14 +1,30 @@
 package university.innopolis.javist.symantic;
 
+import lombok.Getter;
+import lombok.Setter;
+import university.innopolis.javist.ast.*;
 import university.innopolis.javist.errors.Constants;
 import university.innopolis.javist.errors.SemanticError;
+import university.innopolis.javist.lexer.ArrayCharSource;
 import university.innopolis.javist.lexer.Lexer;
-import university.innopolis.javist.lexer.Token;
 import university.innopolis.javist.symantic.symbol.*;
-import university.innopolis.javist.syntax.*;
+import university.innopolis.javist.syntax.ProgramTree;
+import university.innopolis.javist.syntax.SyntaxAnalyzer;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * The SemanticAnalyzer class is responsible for performing semantic analysis on a program tree.
@@ -17,15 +33,59 @@ import java.util.List;
 public class SemanticAnalyzer {
     private final ProgramTree root;
 
+    @Getter
     private final SymbolTable symbolTable = new SymbolTable();
 
+    private final AstLowering lowering = new AstLowering();
+
+    /**
+     * The typed AST of the program, once it is analyzed.
+     */
+    @Getter
+    private Program program;
+
+    /**
+     * Types and resolved symbols of the nodes of {@link #getProgram()}.
+     */
+    @Getter
+    private Attribution attribution = new Attribution();
+
+    /**
+     * The predefined classes analyzed from their text. Their methods have no bodies, as no code is generated for them.
+     */
+    private final Set<TypeRef> predefinedTypes = new HashSet<>();
+
+    /**
+     * Results of the classes of the program last given to {@link #update(ProgramTree)}, by name.
+     */
+    private Map<String, ClassResult> classResults = new HashMap<>();
+
+    /**
+     * Whether the members of library classes are analyzed only when the program first uses the class.
+     */
+    @Getter
+    @Setter
+    private boolean lazyLibraries = true;
+
+    /**
+     * Whether the members of all classes are added before any body is checked and the bodies are checked in parallel.
+     * A body may then call methods declared after it, and errors in declarations are reported before errors in bodies.
+     */
+    @Getter
+    @Setter
+    private boolean parallel = false;
+
+    private final Checker checker = new Checker();
+
     /**
      * Constructs a SemanticAnalyzer object with the specified program tree.
      *
+     * The tree is only read, so it is not copied.
+     *
      * @param root The root of the program tree to be analyzed.
      */
     public SemanticAnalyzer(ProgramTree root) {
-        this.root = root.clone();
+        this.root = root;
     }
 
     /**
@@ -34,514 +94,1027 @@ public class SemanticAnalyzer {
      * @throws SemanticError if a semantic error is encountered during analysis.
      */
     public void analyze() throws SemanticError {
+        program = lowering.lower(root);
+        analyzeProgram(program);
+    }
+
+    /**
+     * Analyzes a new version of the program, reusing the results of the classes that did not change.
+     * A class is analyzed again if its declaration changed, or if it looked up a name that was, or now is,
+     * a class that is added, removed or analyzed again; the symbols of all other classes are kept.
+     * The classes are analyzed in the phases of {@link #isParallel()} in either mode, so the result does not depend
+     * on which classes are analyzed again. A class that moved to other lines counts as changed, as its errors
+     * are reported at its positions. A program is analyzed either by this method or by {@link #analyze()}.
+     * <p>
+     * A kept class keeps its declaration from the previous version in {@link #getProgram()}, as the attribution
+     * of its nodes is keyed by their identity; the declaration is equal to the new one.
+     *
+     * @param root The root of the program tree of the new version.
+     * @throws SemanticError if a semantic error is encountered during analysis.
+     */
+    public void update(ProgramTree root) throws SemanticError {
+        program = lowering.lower(root);
+        reanalyze(program);
+    }
+
+    private void reanalyze(Program program) {
+        Map<String, ClassResult> previous = classResults;
+        classResults = new HashMap<>();
+        for (ClassResult result : previous.values()) {
+            if (symbolTable.get(result.symbol.getId()) == result.symbol) {
+                symbolTable.put(result.symbol.getId(), null);
+            }
+        }
+
+        BitSet stale = new BitSet();
+        Set<String> names = new HashSet<>();
+        for (ClassDeclaration declaration : program.classes()) {
+            Identifier name = declaration.name().name();
+            names.add(name.name());
+            ClassResult result = previous.get(name.name());
+            if (result == null || !result.declaration.equals(declaration)) {
+                stale.set(name.id());
+            }
+        }
+        for (ClassResult result : previous.values()) {
+            if (!names.contains(result.symbol.getName())) {
+                stale.set(result.symbol.getId());
+            }
+        }
+        markDependents(stale, previous.values());
+
+        List<ClassResult> results = new ArrayList<>(program.classes().size());
+        List<ClassResult> changed = new ArrayList<>();
+        Set<ClassResult> kept = new HashSet<>();
         try {
-            if (root.getValue() == SyntaxComponent.PROGRAM) {
-                analyzeProgram(root);
-            } else {
-                throw new SemanticError("Root of program tree is invalid", root.getLine(), root.getColumn());
+            for (ClassDeclaration declaration : program.classes()) {
+                String className = declaration.name().name().name();
+                if (symbolTable.get(className) != null) {
+                    throw new SemanticError(String.format(Constants.CLASS_ALREADY_EXISTS, className),
+                            declaration.line(), declaration.column());
+                }
+                ClassResult result = previous.get(className);
+                if (result == null || stale.get(result.symbol.getId())) {
+                    String parentName = declaration.superclass() == null
+                            ? null : declaration.superclass().name().name();
+                    result = new ClassResult(declaration, new ClassSymbol(className, parentName));
+                    changed.add(result);
+                } else {
+                    kept.add(result);
+                }
+                symbolTable.put(className, result.symbol);
+                results.add(result);
             }
+            linkHierarchy(program);
+            checkParents(program);
         } catch (SemanticError e) {
-            System.out.println("Semantic Error: " + e.getMessage());
+            // The next version is analyzed from scratch.
+            for (ClassResult result : results) {
+                symbolTable.put(result.symbol.getId(), null);
+                result.symbol.setParentClass(null);
+            }
+            kept.clear();
+            throw e;
+        } finally {
+            for (ClassResult result : previous.values()) {
+                if (!kept.contains(result)) {
+                    result.symbol.setParentClass(null);
+                }
+            }
+        }
+
+        for (ClassResult result : changed) {
+            declareDefaultConstructor(result.declaration);
+        }
+        analyzeInPhases(changed);
+        attribution = new Attribution();
+        List<ClassDeclaration> declarations = new ArrayList<>(results.size());
+        for (ClassResult result : results) {
+            classResults.put(result.symbol.getName(), result);
+            attribution.addAll(result.attribution);
+            declarations.add(result.declaration);
+        }
+        this.program = new Program(declarations, program.line(), program.column());
+        rethrow(firstError(results));
+    }
+
+    /**
+     * Adds to the stale names the names of the classes that depend on them, directly or through other classes.
+     *
+     * @param stale   Ids of the names of the classes that changed, were added or were removed.
+     * @param results The results of the previous version.
+     */
+    private static void markDependents(BitSet stale, Collection<ClassResult> results) {
+        Map<Integer, List<ClassResult>> dependents = new HashMap<>();
+        for (ClassResult result : results) {
+            BitSet dependencies = result.dependencies;
+            for (int id = dependencies.nextSetBit(0); id >= 0; id = dependencies.nextSetBit(id + 1)) {
+                dependents.computeIfAbsent(id, key -> new ArrayList<>()).add(result);
+            }
+        }
+        ArrayDeque<Integer> work = new ArrayDeque<>();
+        for (int id = stale.nextSetBit(0); id >= 0; id = stale.nextSetBit(id + 1)) {
+            work.push(id);
+        }
+        while (!work.isEmpty()) {
+            for (ClassResult dependent : dependents.getOrDefault(work.pop(), List.of())) {
+                int id = dependent.symbol.getId();
+                if (!stale.get(id)) {
+                    stale.set(id);
+                    work.push(id);
+                }
+            }
         }
     }
 
+    /**
+     * Adds the predefined libraries from the snapshot bundled at build time, or analyzes the libraries
+     * bundled as {@link LibrarySnapshot#LIBRARIES_RESOURCE} if there is no snapshot or it is out of date.
+     *
+     * @throws SemanticError if a semantic error is encountered during analysis.
+     * @throws IllegalStateException if neither the snapshot nor the libraries are on the classpath.
+     */
+    public void analyzePredefinedLibraries() {
+        if (LibrarySnapshot.load(symbolTable)) {
+            return;
+        }
+        char[] libraries = LibrarySnapshot.bundledLibraries();
+        if (libraries == null) {
+            throw new IllegalStateException("The predefined libraries " + LibrarySnapshot.LIBRARIES_RESOURCE
+                    + " are not on the classpath.");
+        }
+        analyzePredefinedLibraries(libraries);
+    }
+
     /**
      * Analyzes the predefined libraries specified by the given path.
+     * With {@link #isLazyLibraries()} only the classes are registered here, and the members of a class
+     * are analyzed when it is first used, so errors in them are reported then.
      *
      * @param pathToPredefinedLibraries The path to the predefined libraries.
      * @throws SemanticError if a semantic error is encountered during analysis.
      */
     public void analyzePredefinedLibraries(String pathToPredefinedLibraries) {
-        Lexer lexer = new Lexer(pathToPredefinedLibraries);
+        analyzePredefinedLibraries(new Lexer(pathToPredefinedLibraries));
+    }
+
+    /**
+     * Analyzes the predefined libraries in the given text, like {@link #analyzePredefinedLibraries(String)}.
+     *
+     * @param predefinedLibraries The text of the predefined libraries.
+     * @throws SemanticError if a semantic error is encountered during analysis.
+     */
+    public void analyzePredefinedLibraries(char[] predefinedLibraries) {
+        analyzePredefinedLibraries(new Lexer(new ArrayCharSource(predefinedLibraries)));
+    }
+
+    private void analyzePredefinedLibraries(Lexer lexer) {
         ProgramTree predefinedAST = new SyntaxAnalyzer(lexer).makeTree();
-        if (predefinedAST.getValue() == SyntaxComponent.PROGRAM) {
-            analyzeProgram(predefinedAST);
+        Program program = lowering.lower(predefinedAST);
+        for (ClassDeclaration declaration : program.classes()) {
+            predefinedTypes.add(TypeRef.of(declaration.name().name().name()));
+        }
+        if (lazyLibraries) {
+            fetchTypes(program, true);
+            linkHierarchy(program);
         } else {
-            throw new SemanticError("Root of program tree is invalid", predefinedAST.getLine(), predefinedAST.getColumn());
+            analyzeProgram(program);
         }
     }
 
     /**
-     * Analyzes the program represented by the given program tree.
+     * Analyzes the given program.
      *
-     * @param node The program tree node representing the program.
+     * @param program The typed AST of the program.
      * @throws SemanticError if a semantic error is encountered during analysis.
      */
-    private void analyzeProgram(ProgramTree node) throws SemanticError {
-        fetchTypes(node);
-        for (ProgramTree child : node.getChildren()) {
-            if (child.getValue() == SyntaxComponent.CLASS_DECLARATION) {
-                analyzeClassDeclaration(child);
-            } else {
-                throw new SemanticError(Constants.CLASS_DECLARATION_NOT_FOUND, child.getLine(), child.getColumn());
-            }
-        }
+    private void analyzeProgram(Program program) throws SemanticError {
+        program.accept(checker, null);
     }
 
     /**
-     * Fetches the types defined in the program represented by the given program tree.
+     * Fetches the types defined in the program.
      *
-     * @param node The program tree node representing the program.
+     * @param program The typed AST of the program.
+     * @param lazy    Whether the members of each class are analyzed when the class is first used.
      */
-    private void fetchTypes(ProgramTree node) {
-        for (ProgramTree child : node.getChildren()) {
-            String className = null;
+    private void fetchTypes(Program program, boolean lazy) {
+        for (ClassDeclaration declaration : program.classes()) {
+            String className = declaration.name().name().name();
             String parentName = null;
-            if (child.getValue() == SyntaxComponent.CLASS_DECLARATION) {
-                Integer namePosition = findFirstInChildren(child, SyntaxComponent.CLASS_NAME);
-                Integer parentNamePosition = findFirstInChildren(child.getChild(namePosition), SyntaxComponent.CLASS_NAME);
-                className = ((TokenLexemaPair) child.getChild(namePosition).getChild(0).getValue()).getLexema();
-                if (parentNamePosition != null) {
-                    parentName = ((TokenLexemaPair) child.getChild(namePosition).getChild(parentNamePosition).getChild(0).getValue()).getLexema();
-                }
-                if (symbolTable.get(className) != null) {
-                    throw new SemanticError(String.format(Constants.CLASS_ALREADY_EXISTS, className), child.getLine(), child.getColumn());
-                }
-                symbolTable.put(className, new ClassSymbol(className, parentName));
-            } else {
-                throw new SemanticError(Constants.CLASS_DECLARATION_NOT_FOUND, child.getLine(), child.getColumn());
+            if (declaration.superclass() != null) {
+                parentName = declaration.superclass().name().name();
             }
+            if (symbolTable.get(className) != null) {
+                throw new SemanticError(String.format(Constants.CLASS_ALREADY_EXISTS, className),
+                        declaration.line(), declaration.column());
+            }
+            // A class may be loaded while bodies are checked in parallel, so what the loader finds out goes to
+            // a table of its own instead of the shared one; the library nodes are not generated, so it is dropped.
+            Consumer<ClassSymbol> memberLoader = lazy
+                    ? classSymbol -> declaration.accept(checker, new Context(null, null, null, null, new Attribution(), null))
+                    : null;
+            symbolTable.put(className, new ClassSymbol(className, parentName, memberLoader));
         }
     }
 
     /**
-     * Analyzes a class declaration represented by the given program tree node.
-     *
-     * @param node The program tree node representing the class declaration.
-     * @throws SemanticError if a semantic error is encountered during analysis.
+     * Adds the constructor without parameters the code generator makes for a class of the program
+     * that declares no constructor. The predefined classes are backed by JVM classes and get none.
      */
-    private void analyzeClassDeclaration(ProgramTree node) throws SemanticError {
-        // Get class name
-        Integer classNamePosition = findFirstInChildren(node, SyntaxComponent.CLASS_NAME);
-        if (classNamePosition == null) {
-            throw new SemanticError(Constants.NO_CLASS_FOUND_ERROR, node.getLine(), node.getColumn());
+    private void declareDefaultConstructor(ClassDeclaration declaration) {
+        for (Member member : declaration.members()) {
+            if (member instanceof ConstructorDeclaration) {
+                return;
+            }
         }
-        String className = ((TokenLexemaPair) node.getChild(classNamePosition).getChild(0).getValue()).getLexema();
+        ClassSymbol classSymbol = (ClassSymbol) symbolTable.get(declaration.name().name().id());
+        classSymbol.addConstructor(new ConstructorSymbol(List.of()));
+    }
 
-        // analyze class body
-        ProgramTree bodyNode = node.getChild(3);
-        analyzeClassBody(bodyNode, className);
+    /**
+     * Checks the parents of the classes of the program. A class is generated as a JVM class that extends
+     * the one of its parent, and its constructors call the constructor of the parent without parameters.
+     * The predefined classes are backed by JVM types that cannot be extended,
+     * so a parent must be a class of the program with such a constructor.
+     *
+     * @param program The typed AST of the program, linked.
+     * @throws SemanticError if a parent is not a class, not a class of the program, or has no such constructor.
+     */
+    private void checkParents(Program program) throws SemanticError {
+        Map<String, ClassDeclaration> declarations = new HashMap<>();
+        for (ClassDeclaration declaration : program.classes()) {
+            declarations.put(declaration.name().name().name(), declaration);
+        }
+        for (ClassDeclaration declaration : program.classes()) {
+            TypeName parent = declaration.superclass();
+            if (parent == null) {
+                continue;
+            }
+            String className = declaration.name().name().name();
+            String parentName = parent.name().name();
+            if (symbolTable.get(parentName) == null) {
+                throw new SemanticError(String.format(Constants.TYPE_NOT_DEFINED, parentName),
+                        parent.line(), parent.column());
+            }
+            ClassDeclaration parentDeclaration = declarations.get(parentName);
+            if (parentDeclaration == null) {
+                throw new SemanticError(String.format(Constants.CANNOT_EXTEND, className, parentName),
+                        parent.line(), parent.column());
+            }
+            if (!hasConstructorWithoutParameters(parentDeclaration)) {
+                throw new SemanticError(String.format(Constants.NO_CONSTRUCTOR_TO_CALL, className, parentName,
+                        parentName), parent.line(), parent.column());
+            }
+        }
     }
 
+    /**
+     * Tells whether a class declares a constructor without parameters or gets the default one.
+     */
+    private static boolean hasConstructorWithoutParameters(ClassDeclaration declaration) {
+        boolean declaresConstructor = false;
+        for (Member member : declaration.members()) {
+            if (member instanceof ConstructorDeclaration constructor) {
+                if (constructor.parameters().isEmpty()) {
+                    return true;
+                }
+                declaresConstructor = true;
+            }
+        }
+        return !declaresConstructor;
+    }
 
     /**
-     * Analyzes the body of a class represented by the given program tree node.
+     * Links the classes of the program to their parents, the parents first.
+     * A parent name that is not a class is left unlinked.
      *
-     * @param node      The program tree node representing the class body.
-     * @param className The name of the class being analyzed.
-     * @throws SemanticError if a semantic error is encountered during analysis.
+     * @param program The typed AST of the program.
+     * @throws SemanticError if the parents of a class lead back to it.
      */
-    private void analyzeClassBody(ProgramTree node, String className) throws SemanticError {
-        if (node.getValue() == SyntaxComponent.MEMBER_DECLARATIONS) {
-            for (ProgramTree child : node.getChildren()) {
-                if (child.getChild(0).getValue() == SyntaxComponent.VARIABLE_DECLARATION) {
-                    analyzeVariableDeclaration(child.getChild(0), className);
-                } else if (child.getChild(0).getValue() == SyntaxComponent.METHOD_DECLARATION) {
-                    analyzeMethodDeclaration(child.getChild(0), className);
-                } else if (child.getChild(0).getValue() == SyntaxComponent.CONSTRUCTOR_DECLARATION) {
-                    analyzeConstructorDeclaration(child.getChild(0), className);
-                } else {
-                    throw new SemanticError("Class body can contain only variable, method and constructor declarations",
-                            child.getLine(), child.getColumn());
+    private void linkHierarchy(Program program) throws SemanticError {
+        Set<ClassSymbol> linked = new HashSet<>();
+        List<ClassSymbol> chain = new ArrayList<>();
+        for (ClassDeclaration declaration : program.classes()) {
+            ClassSymbol classSymbol = (ClassSymbol) symbolTable.get(declaration.name().name().id());
+            chain.clear();
+            while (classSymbol != null && !linked.contains(classSymbol)) {
+                if (chain.contains(classSymbol)) {
+                    throw new SemanticError(String.format(Constants.CYCLIC_INHERITANCE, classSymbol.getName()),
+                            declaration.line(), declaration.column());
                 }
+                chain.add(classSymbol);
+                classSymbol = (ClassSymbol) symbolTable.get(classSymbol.getParentClassName());
+            }
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                ClassSymbol child = chain.get(i);
+                child.setParentClass(i + 1 < chain.size() ? chain.get(i + 1) : classSymbol);
+                linked.add(child);
             }
         }
     }
 
     /**
-     * Analyzes a variable declaration represented by the given program tree node.
+     * Where a name is looked up and which method the statements belong to.
      *
-     * @param node      The program tree node representing the variable declaration.
-     * @param className The name of the class in which the variable is declared.
-     * @throws SemanticError if a semantic error is encountered during analysis.
+     * @param classType    The class being analyzed.
+     * @param scope        The scope of local variables, or null for the members of the class.
+     * @param method       The method symbol, or null in a constructor or a field initializer.
+     * @param outerCall    The call whose target is being analyzed, or null.
+     * @param attribution  Where the types and the resolved symbols are recorded.
+     * @param dependencies Where the ids of the names looked up in the symbol table are recorded, or null.
      */
-    private void analyzeVariableDeclaration(ProgramTree node, String className) throws SemanticError {
-        ProgramTree nameNode = node.getChild(1);
-        if (!(nameNode.getValue() instanceof TokenLexemaPair)) {
-            throw new SemanticError(Constants.VARIABLE_IDENTIFIER_NOT_DEFINED, nameNode.getLine(), nameNode.getColumn());
+    private record Context(TypeRef classType, Scope scope, MethodSymbol method, Call outerCall,
+                           Attribution attribution, BitSet dependencies) {
+        Context in(Scope scope) {
+            return new Context(classType, scope, method, null, attribution, dependencies);
         }
 
-        TokenLexemaPair namePair = (TokenLexemaPair) nameNode.getValue();
-        if (namePair.getToken() != Token.TK_IDENTIFIER) {
-            throw new SemanticError(Constants.VARIABLE_IDENTIFIER_NOT_DEFINED, namePair.getLine(), namePair.getPosition());
+        Context target(Call call) {
+            return new Context(classType, scope, method, call, attribution, dependencies);
         }
 
-        String variableName = namePair.getLexema();
-        String variableType = null;
-        ClassSymbol classSymbol = (ClassSymbol) symbolTable.get(className);
-        if (classSymbol.isVariableExists(variableName)) {
-            throw new SemanticError(String.format(Constants.VARIABLE_ALREADY_EXISTS, variableName), namePair.getLine(), namePair.getPosition());
+        Context recording(Attribution attribution, BitSet dependencies) {
+            return new Context(classType, scope, method, outerCall, attribution, dependencies);
         }
-        if (node.getChild(3).getValue() == SyntaxComponent.EXPRESSION) {
-            variableType = parseExpression(node.getChild(3).getChildren(), className, new Scope(), null);
-        }
-        classSymbol.getVariables().put(variableName, new VariableSymbol(variableName, variableType));
     }
 
     /**
-     * Analyzes a method declaration represented by the given program tree node.
+     * Statements of a method or a constructor, the context they are checked in and the class they belong to.
      *
-     * @param node      The program tree node representing the method declaration.
-     * @param className The name of the class in which the method is declared.
-     * @throws SemanticError if a semantic error is encountered during analysis.
+     * @param declaration The method or the constructor.
      */
-    private void analyzeMethodDeclaration(ProgramTree node, String className) throws SemanticError {
-        // Get positions for method key description
-        Integer nameNodePosition = findFirstInChildren(node, Token.TK_IDENTIFIER);
-        Integer closeParenPosition = findFirstInChildren(node, Token.TK_CLOSE_PAREN);
-        Integer parametersPosition = findFirstInChildren(node, SyntaxComponent.PARAMETERS);
-        Integer isPosition = findFirstInChildren(node, Token.TK_IS);
-
-        assert closeParenPosition != null;
-        assert isPosition != null;
-        assert nameNodePosition != null;
-
-        List<ParameterSymbol> parameters;
-        String methodName = ((TokenLexemaPair) node.getChild(nameNodePosition).getValue()).getLexema();
-        String returnType = null;
-
-        if (isPosition - closeParenPosition > 1) {
-            // Not void method
-            returnType = ((TokenLexemaPair) node.getChild(isPosition - 1).getValue()).getLexema();
-        }
-        if (symbolTable.get(returnType) == null) {
-            throw new SemanticError(String.format(Constants.TYPE_NOT_DEFINED, returnType), node.getLine(), node.getColumn());
-        }
-        parameters = parametersPosition == null ? new ArrayList<>() :
-                analyzeParameters(node.getChild(parametersPosition));
-        ClassSymbol classSymbol = (ClassSymbol) symbolTable.get(className);
-        MethodSymbol methodSymbol = new MethodSymbol(methodName, returnType, parameters);
-        for (ParameterSymbol parameter : parameters) {
-            methodSymbol.getScope().put(parameter.getName(), new VariableSymbol(parameter.getName(), parameter.getType()));
-        }
-        classSymbol.addMethod(methodSymbol);
-
-        // analyze statements
-        Integer statementsPosition = findFirstInChildren(node, SyntaxComponent.STATEMENTS);
-        if (statementsPosition != null) {
-            analyzeStatements(node.getChild(statementsPosition), className, methodSymbol.getScope(), methodSymbol);
+    private record Body(Member declaration, List<Statement> statements, Context context, ClassResult owner) {
+        Body ownedBy(ClassResult owner) {
+            return new Body(declaration, statements, context, owner);
         }
     }
 
+    private static final int DECLARATIONS = 0;
+
+    private static final int FIELDS = 1;
+
+    private static final int BODIES = 2;
+
     /**
-     * Analyzes a constructor declaration represented by the given program tree node.
-     *
-     * @param node      The program tree node representing the constructor declaration.
-     * @param className The name of the class in which the constructor is declared.
-     * @throws SemanticError if a semantic error is encountered during analysis.
+     * What analyzing a class in phases gave. Kept between calls of {@link #update(ProgramTree)}
+     * and reused as long as neither the class nor anything it depends on changes.
      */
-    private void analyzeConstructorDeclaration(ProgramTree node, String className) throws SemanticError {
-        ProgramTree nameNode = node.getChild(0);
-        TokenLexemaPair namePair = (TokenLexemaPair) nameNode.getValue();
-        Integer parametersPosition = findFirstInChildren(node, SyntaxComponent.PARAMETERS);
-
-        String constructorName = namePair.getLexema();
-        List<ParameterSymbol> parameters = parametersPosition != null ? analyzeParameters(node.getChild(parametersPosition))
-                : new ArrayList<>();
-        ClassSymbol classSymbol = (ClassSymbol) symbolTable.get(className);
-        if(classSymbol.isConstructorExists(parameters)){
-            throw new SemanticError(Constants.CONSTRUCTOR_ALREADY_EXISTS, namePair.getLine(), namePair.getPosition());
-        }
-        ConstructorSymbol constr = new ConstructorSymbol(parameters);
-        classSymbol.getConstructors().add(constr);
-
-        // analyze statements
-        Integer statementsPosition = findFirstInChildren(node, SyntaxComponent.STATEMENTS);
-        if (statementsPosition != null) {
-            Scope scope = new Scope();
-            for (ParameterSymbol parameter : parameters) {
-                scope.put(parameter.getName(), new VariableSymbol(parameter.getName(), parameter.getType()));
+    private static final class ClassResult {
+        private final ClassDeclaration declaration;
+
+        private final ClassSymbol symbol;
+
+        private final Attribution attribution = new Attribution();
+
+        /**
+         * Ids of the names looked up in the symbol table while the class was analyzed,
+         * whether they were classes or not, and the name of the parent.
+         */
+        private final BitSet dependencies = new BitSet();
+
+        /**
+         * The first error in the class, a {@link SemanticError} or a {@link RuntimeException}, or null.
+         */
+        private Throwable error;
+
+        /**
+         * The phase the error happened in.
+         */
+        private int errorPhase;
+
+        private ClassResult(ClassDeclaration declaration, ClassSymbol symbol) {
+            this.declaration = declaration;
+            this.symbol = symbol;
+            if (declaration.superclass() != null) {
+                dependencies.set(declaration.superclass().name().id());
+            }
+        }
+
+        private void fail(Throwable error, int phase) {
+            if (this.error == null) {
+                this.error = error;
+                this.errorPhase = phase;
             }
-            analyzeStatements(node.getChild(statementsPosition), className, scope, null);
         }
     }
 
     /**
-     * Analyzes statements within a method or constructor.
+     * Analyzes the classes of the program whose symbols are already in the symbol table and linked, in three phases:
+     * the methods and the constructors of all classes are added, then the fields are checked, the parents first,
+     * as their types come from their initializers, and then the method and constructor bodies are checked,
+     * in parallel with {@link #isParallel()}. An error stops the analysis of its class only;
+     * {@link #firstError(List)} picks the one a sequential run of the phases would stop at.
      *
-     * @param node         The program tree node representing the statements.
-     * @param className    The name of the class in which the statements are analyzed.
-     * @param scope        The scope in which the statements are analyzed.
-     * @param methodSymbol The method symbol representing the method or constructor.
+     * @param results The classes to analyze.
      */
-    private void analyzeStatements(ProgramTree node, String className, Scope scope, MethodSymbol methodSymbol) {
-        ClassSymbol classSymbol = (ClassSymbol) symbolTable.get(className);
-        for (ProgramTree statement : node.getChildren()) {
-
-            if (statement.getChild(0).getValue() == SyntaxComponent.VARIABLE_DECLARATION) {
-                VariableSymbol variableSymbol = analyzeVariableInScope(statement.getChild(0), className, scope);
-                scope.put(variableSymbol.getName(), variableSymbol);
+    private void analyzeInPhases(List<ClassResult> results) {
+        List<Body> bodies = new ArrayList<>();
+        for (ClassResult result : results) {
+            Context classContext = classContext(result);
+            int first = bodies.size();
+            try {
+                for (Member member : result.declaration.members()) {
+                    if (member instanceof MethodDeclaration method) {
+                        bodies.add(checker.declareMethod(method, classContext).ownedBy(result));
+                    } else if (member instanceof ConstructorDeclaration constructor) {
+                        bodies.add(checker.declareConstructor(constructor, classContext).ownedBy(result));
+                    }
+                }
+            } catch (SemanticError | RuntimeException e) {
+                result.fail(e, DECLARATIONS);
+                bodies.subList(first, bodies.size()).clear();
             }
+        }
 
-            if (statement.getChild(0).getValue() == SyntaxComponent.ASSIGNMENT) {
-                VariableSymbol variableSymbol = analyzeAssigmentInScope(statement.getChild(0), className, scope);
-                VariableSymbol originalVariable = (VariableSymbol) scope.variableLookup(variableSymbol.getName());
-                if (originalVariable == null) {
-                    originalVariable = classSymbol.variableLookup(variableSymbol.getName());
-                }
-                if (originalVariable == null) {
-                    throw new SemanticError(String.format(Constants.VARIABLE_NAME_NOT_DEFINED, variableSymbol.getName()),
-                            statement.getLine(), statement.getColumn());
-                }
-                if (!originalVariable.getType().equals(variableSymbol.getType())) {
-                    throw new SemanticError(String.format(Constants.UNEXPECTED_VARIABLE_TYPE, variableSymbol.getType(),
-                            variableSymbol.getName(), originalVariable.getType()),
-                            statement.getLine(), statement.getColumn());
+        List<ClassResult> parentsFirst = new ArrayList<>(results);
+        parentsFirst.sort(Comparator.comparingInt(result -> depth(result.symbol)));
+        for (ClassResult result : parentsFirst) {
+            if (result.error != null) {
+                continue;
+            }
+            Context classContext = classContext(result);
+            try {
+                for (Member member : result.declaration.members()) {
+                    if (member instanceof VariableDeclaration) {
+                        member.accept(checker, classContext);
+                    }
                 }
+            } catch (SemanticError | RuntimeException e) {
+                result.fail(e, FIELDS);
             }
+        }
+        bodies.removeIf(body -> body.owner().error != null);
 
-            if (statement.getChild(0).getValue() == SyntaxComponent.RETURN_STATEMENT) {
-                String type = parseExpression(statement.getChild(0).getChild(1).getChildren(), className, scope, null);
-                if ((methodSymbol.getReturnType() == null && type != null) ||
-                        !methodSymbol.getReturnType().equals(type)) {
-                    throw new SemanticError(String.format(Constants.INVALID_RETURN_STATEMENT, type,
-                            methodSymbol.getReturnType() == null ? "void" : methodSymbol.getReturnType()),
-                            statement.getChild(0).getLine(), statement.getChild(0).getColumn());
+        // Bodies only read the global symbols.
+        symbolTable.freeze();
+        try {
+            Attribution[] attributions = new Attribution[bodies.size()];
+            BitSet[] dependencies = new BitSet[bodies.size()];
+            IntStream indices = IntStream.range(0, bodies.size());
+            List<Throwable> errors = (parallel ? indices.parallel() : indices)
+                    .mapToObj(i -> check(bodies.get(i), attributions[i] = new Attribution(), dependencies[i] = new BitSet()))
+                    .toList();
+            for (int i = 0; i < bodies.size(); i++) {
+                ClassResult owner = bodies.get(i).owner();
+                owner.attribution.addAll(attributions[i]);
+                owner.dependencies.or(dependencies[i]);
+                if (errors.get(i) != null) {
+                    owner.fail(errors.get(i), BODIES);
                 }
-
             }
+        } finally {
+            symbolTable.unfreeze();
+        }
+    }
 
-            if (statement.getChild(0).getValue() == SyntaxComponent.WHILE_LOOP) {
-                analyzeLoop(statement.getChild(0), className, scope, methodSymbol);
-            }
+    private Context classContext(ClassResult result) {
+        return new Context(TypeRef.of(result.declaration.name().name().name()), null, null, null,
+                result.attribution, result.dependencies);
+    }
+
+    /**
+     * Checks a body, returning the error instead of throwing it, so that it is thrown by the calling thread.
+     * What is found out is recorded in tables of the body's own and merged after all bodies are checked.
+     */
+    private Throwable check(Body body, Attribution attribution, BitSet dependencies) {
+        try {
+            checker.checkBody(body, body.context().recording(attribution, dependencies));
+            return null;
+        } catch (SemanticError | RuntimeException e) {
+            return e;
+        }
+    }
 
-            if (statement.getChild(0).getValue() == SyntaxComponent.IF_STATEMENT) {
-                analyzeIf(statement.getChild(0), className, scope, methodSymbol);
+    /**
+     * Finds the error a sequential run of the phases would stop at: the earliest phase first,
+     * then the order the classes are analyzed in during that phase.
+     *
+     * @param results The classes of the program, in the order of the program.
+     * @return The error, or null if there is none.
+     */
+    private static Throwable firstError(List<ClassResult> results) {
+        ClassResult first = null;
+        for (ClassResult result : results) {
+            if (result.error == null) {
+                continue;
+            }
+            if (first == null || result.errorPhase < first.errorPhase
+                    || result.errorPhase == FIELDS && first.errorPhase == FIELDS && depth(result.symbol) < depth(first.symbol)) {
+                first = result;
             }
         }
+        return first == null ? null : first.error;
     }
 
-    private void analyzeLoop(ProgramTree node, String className, Scope scope, MethodSymbol methodSymbol) {
-        scope = new Scope(scope);
-        ProgramTree condition = node.getChild(1);
-        String type = parseExpression(condition.getChildren(), className, scope, null);
-        if (!type.equals("Boolean")) {
-            throw new SemanticError(String.format(Constants.INVALID_LOOP_CONDITION, type),
-                    condition.getLine(), condition.getColumn());
+    /**
+     * Gets the number of ancestors of a class.
+     */
+    private static int depth(ClassSymbol classSymbol) {
+        int depth = 0;
+        for (ClassSymbol parent = classSymbol.getParentClass(); parent != null; parent = parent.getParentClass()) {
+            depth++;
         }
-        analyzeStatements(node.getChild(3), className, scope, methodSymbol);
+        return depth;
     }
 
-    private void analyzeIf(ProgramTree node, String className, Scope scope, MethodSymbol methodSymbol) {
-        Scope ifScope = new Scope(scope);
-        ProgramTree condition = node.getChild(1);
-        String type = parseExpression(condition.getChildren(), className, scope, null);
-        if (!type.equals("Boolean")) {
-            throw new SemanticError(String.format(Constants.INVALID_IF_CONDITION, type),
-                    condition.getLine(), condition.getColumn());
+    private static void rethrow(Throwable error) {
+        if (error instanceof SemanticError semanticError) {
+            throw semanticError;
         }
-        analyzeStatements(node.getChild(3), className, ifScope, methodSymbol);
-        if (node.getChildrenCount() >= 6 && node.getChild(5).getValue() == SyntaxComponent.STATEMENTS) {
-            Scope elseScope = new Scope(scope);
-            analyzeStatements(node.getChild(5), className, elseScope, methodSymbol);
+        if (error instanceof RuntimeException runtimeException) {
+            throw runtimeException;
         }
     }
 
     /**
-     * Analyzes a variable declaration within a scope.
-     *
-     * @param node      The program tree node representing the variable declaration.
-     * @param className The name of the class in which the variable is declared.
-     * @param scope     The scope in which the variable is declared.
-     * @return The variable symbol representing the analyzed variable.
-     * @throws SemanticError if a semantic error is encountered during analysis.
+     * Checks the nodes of the typed AST. Expressions return their type; other nodes return null.
+     * A type written in the program is typed with {@link TypeRef#of(TypeName)}, as the generator types it:
+     * {@code Array[Integer]} is an array of integers, and the argument of any other class is dropped.
      */
-    private VariableSymbol analyzeVariableInScope(ProgramTree node, String className, Scope scope) {
-        Integer variableNamePosition = findFirstInChildren(node, Token.TK_IDENTIFIER);
-        Integer expressionPosition = findFirstInChildren(node, SyntaxComponent.EXPRESSION);
-        String variableName = ((TokenLexemaPair) node.getChild(variableNamePosition).getValue()).getLexema();
-        String type = null;
-        if (scope.isExist(variableName) || ((ClassSymbol) symbolTable.get(className)).isVariableExists(variableName)) {
-            throw new SemanticError(String.format(Constants.VARIABLE_ALREADY_EXISTS, variableName),
-                    node.getLine(), node.getColumn());
+    private class Checker implements AstVisitor<TypeRef, Context> {
+        @Override
+        public TypeRef visitProgram(Program node, Context context) {
+            fetchTypes(node, false);
+            linkHierarchy(node);
+            if (node == program) {
+                checkParents(node);
+                for (ClassDeclaration declaration : node.classes()) {
+                    declareDefaultConstructor(declaration);
+                }
+            }
+            if (parallel) {
+                List<ClassResult> results = new ArrayList<>(node.classes().size());
+                for (ClassDeclaration declaration : node.classes()) {
+                    results.add(new ClassResult(declaration, (ClassSymbol) symbolTable.get(declaration.name().name().id())));
+                }
+                analyzeInPhases(results);
+                for (ClassResult result : results) {
+                    attribution.addAll(result.attribution);
+                }
+                rethrow(firstError(results));
+                return null;
+            }
+            // A class uses the members of its parent, so the parents are checked first.
+            List<ClassDeclaration> parentsFirst = new ArrayList<>(node.classes());
+            parentsFirst.sort(Comparator.comparingInt(
+                    declaration -> depth((ClassSymbol) symbolTable.get(declaration.name().name().id()))));
+            for (ClassDeclaration declaration : parentsFirst) {
+                declaration.accept(this, null);
+            }
+            return null;
         }
-        if (expressionPosition != null) {
-            type = parseExpression(node.getChild(expressionPosition).getChildren(), className, scope, null);
+
+        /**
+         * Analyzes the members of a class, recording into the table of the context if there is one.
+         */
+        @Override
+        public TypeRef visitClassDeclaration(ClassDeclaration node, Context context) {
+            Context classContext = new Context(TypeRef.of(node.name().name().name()), null, null, null,
+                    context == null ? attribution : context.attribution(), null);
+            for (Member member : node.members()) {
+                member.accept(this, classContext);
+            }
+            return null;
         }
 
-        return new VariableSymbol(variableName, type);
-    }
+        /**
+         * Analyzes a variable declaration: a field of the class if there is no scope, a local variable otherwise.
+         */
+        @Override
+        public TypeRef visitVariableDeclaration(VariableDeclaration node, Context context) {
+            ClassSymbol classSymbol = classOf(context);
+            Identifier name = node.name();
+            if (context.scope() == null) {
+                if (classSymbol.isVariableExists(name.id())) {
+                    throw new SemanticError(String.format(Constants.VARIABLE_ALREADY_EXISTS, name.name()),
+                            name.line(), name.column());
+                }
+                TypeRef variableType = declaredType(node.value(), context.in(new Scope()));
+                VariableSymbol field = new VariableSymbol(name.name(), variableType);
+                classSymbol.addVariable(field);
+                context.attribution().setVariable(node, field);
+                return null;
+            }
 
-    /**
-     * Analyzes an assignment within a scope.
-     *
-     * @param node      The program tree node representing the assignment.
-     * @param className The name of the class in which the assignment occurs.
-     * @param scope     The scope in which the assignment occurs.
-     * @return The variable symbol representing the assigned variable.
-     */
-    private VariableSymbol analyzeAssigmentInScope(ProgramTree node, String className, Scope scope) {
-        String variableName = null;
-        String variableType = null;
-        Integer variableNamePosition = findFirstInChildren(node, Token.TK_IDENTIFIER);
-        Integer expressionPosition = findFirstInChildren(node, SyntaxComponent.EXPRESSION);
-        ClassSymbol classSymbol = (ClassSymbol) this.symbolTable.get(className);
-        if (variableNamePosition == null) {
-            throw new SemanticError(String.format(Constants.NOT_EMPTY_VARIABLE_NAME),
-                    node.getLine(), node.getColumn());
+            if (context.scope().isExist(name.id()) || classSymbol.isVariableExists(name.id())) {
+                throw new SemanticError(String.format(Constants.VARIABLE_ALREADY_EXISTS, name.name()),
+                        node.line(), node.column());
+            }
+            TypeRef type = declaredType(node.value(), context);
+            context.attribution().setVariable(node, context.scope().declare(name.name(), type));
+            return null;
         }
-        if (expressionPosition != null) {
-            variableType = parseExpression(node.getChild(expressionPosition).getChildren(), className, scope, null);
+
+        @Override
+        public TypeRef visitMethodDeclaration(MethodDeclaration node, Context context) {
+            Body body = declareMethod(node, context);
+            checkBody(body, body.context());
+            return null;
         }
-        variableName = ((TokenLexemaPair) node.getChild(variableNamePosition).getValue()).getLexema();
 
-        return new VariableSymbol(variableName, variableType);
-    }
+        @Override
+        public TypeRef visitConstructorDeclaration(ConstructorDeclaration node, Context context) {
+            Body body = declareConstructor(node, context);
+            checkBody(body, body.context());
+            return null;
+        }
 
-    /**
-     * Parses an expression recursively.
-     *
-     * @param nodes       The list of program tree nodes representing the expression.
-     * @param className   The name of the current class.
-     * @param scope       The current scope.
-     * @param currentType The current type being evaluated in the expression.
-     * @return The type of the expression.
-     * @throws SemanticError if a semantic error is encountered during parsing.
-     */
-    private String parseExpression(List<ProgramTree> nodes, String className, Scope scope, String currentType) {
-        if (nodes.size() == 0 && currentType == null) {
-            throw new SemanticError(Constants.INVALID_EXPRESSION, 0, 0);
-        } else if (nodes.size() == 0) {
-            return currentType;
+        /**
+         * Adds a method to its class.
+         *
+         * @return The body of the method, to be checked.
+         */
+        private Body declareMethod(MethodDeclaration node, Context context) {
+            TypeRef returnType = node.returnType() == null ? null : TypeRef.of(node.returnType().name());
+            if (lookup(returnType, context) == null) {
+                throw new SemanticError(String.format(Constants.TYPE_NOT_DEFINED, returnType), node.line(), node.column());
+            }
+            List<ParameterSymbol> parameters = analyzeParameters(node.parameters());
+            ClassSymbol classSymbol = classOf(context);
+            MethodSymbol methodSymbol = new MethodSymbol(node.name().name(), returnType, parameters);
+            classSymbol.addMethod(methodSymbol);
+
+            /* The scope is only referenced by the body, so it is dropped once the body is checked. */
+            Scope scope = new Scope();
+            for (ParameterSymbol parameter : parameters) {
+                scope.declare(parameter.getName(), parameter.getType());
+            }
+            return new Body(node, node.body(), new Context(context.classType(), scope, methodSymbol, null,
+                    context.attribution(), context.dependencies()), null);
         }
-        ClassSymbol classSymbol = (ClassSymbol) this.symbolTable.get(className);
-        ProgramTree currentNode = nodes.get(0);
-        nodes.remove(0);
-        if (currentNode.getValue() == SyntaxComponent.CLASS_NAME) {
-            String returnType = ((TokenLexemaPair) currentNode.getChild(0).getValue()).getLexema();
-            VariableSymbol variableSymbol = (VariableSymbol) scope.variableLookup(returnType);
-            if (variableSymbol == null) {
-                variableSymbol = classSymbol.variableLookup(returnType);
+
+        /**
+         * Adds a constructor to its class.
+         *
+         * @return The body of the constructor, to be checked.
+         */
+        private Body declareConstructor(ConstructorDeclaration node, Context context) {
+            List<ParameterSymbol> parameters = analyzeParameters(node.parameters());
+            ClassSymbol classSymbol = classOf(context);
+            if (classSymbol.isConstructorExists(parameters)) {
+                throw new SemanticError(Constants.CONSTRUCTOR_ALREADY_EXISTS, node.line(), node.column());
             }
-            if (symbolTable.get(returnType) != null) {
-                return parseExpression(nodes, className, scope, returnType);
+            classSymbol.addConstructor(new ConstructorSymbol(parameters));
+
+            Scope scope = new Scope();
+            for (ParameterSymbol parameter : parameters) {
+                scope.declare(parameter.getName(), parameter.getType());
             }
-            if (variableSymbol == null) {
-                throw new SemanticError(String.format(Constants.VARIABLE_NAME_NOT_DEFINED, returnType),
-                        currentNode.getLine(), currentNode.getColumn());
+            return new Body(node, node.body(), new Context(context.classType(), scope, null, null,
+                    context.attribution(), context.dependencies()), null);
+        }
+
+        @Override
+        public TypeRef visitParameter(Parameter node, Context context) {
+            return TypeRef.of(node.type());
+        }
+
+        @Override
+        public TypeRef visitAssignment(Assignment node, Context context) {
+            ClassSymbol classSymbol = classOf(context);
+            TypeRef variableType = expressionType(node.value(), context);
+            Identifier name = node.target();
+
+            VariableSymbol originalVariable = context.scope().variableLookup(name.id());
+            if (originalVariable == null) {
+                originalVariable = classSymbol.variableLookup(name.id());
+            }
+            if (originalVariable == null) {
+                throw new SemanticError(String.format(Constants.VARIABLE_NAME_NOT_DEFINED, name.name()),
+                        node.line(), node.column());
+            }
+            if (originalVariable.getType() != variableType) {
+                throw new SemanticError(String.format(Constants.UNEXPECTED_VARIABLE_TYPE, variableType,
+                        name.name(), originalVariable.getType()),
+                        node.line(), node.column());
+            }
+            context.attribution().setVariable(node, originalVariable);
+            return null;
+        }
+
+        @Override
+        public TypeRef visitWhileLoop(WhileLoop node, Context context) {
+            analyzeStatements(List.of(node), context);
+            return null;
+        }
+
+        @Override
+        public TypeRef visitIfStatement(IfStatement node, Context context) {
+            analyzeStatements(List.of(node), context);
+            return null;
+        }
+
+        @Override
+        public TypeRef visitReturnStatement(ReturnStatement node, Context context) {
+            MethodSymbol methodSymbol = context.method();
+            TypeRef type = expressionType(node.value(), context);
+            if (methodSymbol.getReturnType() != type) {
+                throw new SemanticError(String.format(Constants.INVALID_RETURN_STATEMENT, type,
+                        methodSymbol.getReturnType() == null ? "void" : methodSymbol.getReturnType()),
+                        node.line(), node.column());
             }
-            return parseExpression(nodes, className, scope, variableSymbol.getType());
+            return null;
         }
-        if (currentNode.getValue() instanceof TokenLexemaPair) {
-            String literalType = switch (((TokenLexemaPair) currentNode.getValue()).getToken()) {
-                case TK_BOOLEAN_LITERAL -> "Boolean";
-                case TK_INTEGER_LITERAL -> "Integer";
-                case TK_REAL_LITERAL -> "Real";
-                case TK_THIS -> className;
+
+        @Override
+        public TypeRef visitLiteral(Literal node, Context context) {
+            return context.attribution().setType(node, switch (node.kind()) {
+                case TK_BOOLEAN_LITERAL -> TypeRef.BOOLEAN;
+                case TK_INTEGER_LITERAL -> TypeRef.INTEGER;
+                case TK_REAL_LITERAL -> TypeRef.REAL;
                 default -> null;
-            };
-            if (literalType != null) {
-                return parseExpression(nodes, className, scope, literalType);
+            });
+        }
+
+        @Override
+        public TypeRef visitThis(This node, Context context) {
+            return context.attribution().setType(node, context.classType());
+        }
+
+        /**
+         * Gets the type of the value of a variable declaration. A class alone, {@code var x : Integer},
+         * declares a variable of the class that starts with the default value of the class.
+         */
+        private TypeRef declaredType(Expression value, Context context) {
+            if (value instanceof Reference reference && lookup(reference.name().name().id(), context) != null) {
+                return context.attribution().setType(reference, TypeRef.of(reference.name()));
             }
+            return expressionType(value, context);
         }
-        String resultType = new String(currentType);
-        while (currentNode.getValue() instanceof TokenLexemaPair
-                && ((TokenLexemaPair) currentNode.getValue()).getToken() == Token.TK_DOT) {
-            if (resultType == null) {
-                throw new SemanticError(String.format(Constants.CANNOT_RESOLVE_METHOD,
-                        ((TokenLexemaPair) nodes.get(0).getValue()).getLexema()),
-                        currentNode.getLine(), currentNode.getColumn());
+
+        /**
+         * Gets the type of a name: the class itself if it is a class, the type of the variable otherwise.
+         * A class has no value, so it may only be applied to arguments, {@code Foo(1)};
+         * a variable declared with a class alone is typed by {@link #declaredType}.
+         */
+        @Override
+        public TypeRef visitReference(Reference node, Context context) {
+            Identifier name = node.name().name();
+            VariableSymbol variableSymbol = context.scope().variableLookup(name.id());
+            if (variableSymbol == null) {
+                variableSymbol = classOf(context).variableLookup(name.id());
+            }
+            if (lookup(name.id(), context) != null) {
+                if (context.outerCall() == null || context.outerCall().method() != null) {
+                    throw new SemanticError(String.format(Constants.CLASS_IS_NOT_A_VALUE, name.name()),
+                            node.name().line(), node.name().column());
+                }
+                return context.attribution().setType(node, TypeRef.of(node.name()));
+            }
+            if (variableSymbol == null) {
+                throw new SemanticError(String.format(Constants.VARIABLE_NAME_NOT_DEFINED, name.name()),
+                        node.name().line(), node.name().column());
             }
-            ClassSymbol currentTypeClass = (ClassSymbol) symbolTable.get(resultType);
+            context.attribution().setVariable(node, variableSymbol);
+            return context.attribution().setType(node, variableSymbol.getType());
+        }
 
-            currentNode = nodes.get(0);
-            nodes.remove(0);
-            String methodName = ((TokenLexemaPair) currentNode.getValue()).getLexema();
+        /**
+         * Gets the result type of a call. Arguments given right to a primary keep its type.
+         * An unresolved method is reported at the dot of the call that follows, or at the arguments if there is none.
+         * A chain {@code a.f().g()} is nested to the left; it is typed in a loop from the primary on,
+         * so long chains do not overflow the stack.
+         */
+        @Override
+        public TypeRef visitCall(Call node, Context context) {
+            List<Call> chain = new ArrayList<>();
+            Expression target = node;
+            while (target instanceof Call call) {
+                chain.add(call);
+                target = call.target();
+            }
+            TypeRef type = target.accept(this, context.target(chain.get(chain.size() - 1)));
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                type = typeCall(chain.get(i), type, i > 0 ? chain.get(i - 1) : context.outerCall(), context);
+            }
+            return type;
+        }
 
-            if (nodes.size() > 0) {
-                currentNode = nodes.get(0);
-                nodes.remove(0);
+        /**
+         * Gets the result type of one call of a chain.
+         *
+         * @param targetType The type of the target of the call.
+         * @param outer      The call whose target this call is, or null.
+         */
+        private TypeRef typeCall(Call node, TypeRef targetType, Call outer, Context context) {
+            if (node.method() == null) {
+                resolveConstructor(node, context);
+                return context.attribution().setType(node, targetType);
             }
-            List<ParameterSymbol> parameters;
-            if (currentNode.getValue() == SyntaxComponent.ARGUMENTS) {
-                parameters = parseParameters(currentNode, className, scope);
-                if (nodes.size() > 0) {
-                    currentNode = nodes.get(0);
-                    nodes.remove(0);
-                }
-            } else {
-                parameters = new ArrayList<>();
+
+            String methodName = node.method().name();
+            if (targetType == null) {
+                throw new SemanticError(String.format(Constants.CANNOT_RESOLVE_METHOD, methodName),
+                        node.line(), node.column());
             }
-            MethodSymbol methodSymbol = currentTypeClass.methodLookup(methodName, parameters);
+            ClassSymbol targetClass = (ClassSymbol) lookup(targetType, context);
+            List<ParameterSymbol> parameters = parseParameters(node.arguments(), context.in(context.scope()));
+
+            MethodSymbol methodSymbol = targetClass.methodLookup(node.method().id(), parameters);
             if (methodSymbol == null) {
                 throw new SemanticError(String.format(Constants.CANNOT_RESOLVE_METHOD, methodName),
-                        currentNode.getLine(), currentNode.getColumn());
+                        outer != null ? outer.line() : node.argumentsLine(),
+                        outer != null ? outer.column() : node.argumentsColumn());
             }
-            resultType = methodSymbol.getReturnType();
+            context.attribution().setCall(node, methodSymbol);
+            return context.attribution().setType(node, methodSymbol.getReturnType());
         }
-        return parseExpression(nodes, className, scope, resultType);
-    }
 
-    /**
-     * Parses the parameters of a method or constructor.
-     *
-     * @param node      The program tree node representing the parameters.
-     * @param className The name of the current class.
-     * @param scope     The current scope.
-     * @return The list of parameter symbols.
-     */
-    private List<ParameterSymbol> parseParameters(ProgramTree node, String className, Scope scope) {
-        List<ParameterSymbol> result = new ArrayList<>();
-        for (ProgramTree child : node.getChildren()) {
-            if (child.getValue() == SyntaxComponent.EXPRESSION) {
-                result.add(new ParameterSymbol(this.parseExpression(child.getChildren(), className, scope, null)));
+        /**
+         * Records the constructor of a class applied to arguments, {@code Foo(1)}.
+         * The arguments of such a call are not checked yet, so the constructor is only recorded
+         * if they have types and there is a constructor that takes them.
+         */
+        private void resolveConstructor(Call node, Context context) {
+            if (!(node.target() instanceof Reference reference)
+                    || context.attribution().variableOf(reference) != null
+                    || !(lookup(reference.name().name().id(), context) instanceof ClassSymbol classSymbol)) {
+                return;
+            }
+            List<ParameterSymbol> parameters;
+            try {
+                parameters = parseParameters(node.arguments(), context.in(context.scope()));
+            } catch (SemanticError e) {
+                return;
+            }
+            ConstructorSymbol constructor = classSymbol.constructorLookup(parameters);
+            if (constructor != null) {
+                context.attribution().setCall(node, constructor);
             }
         }
-        return result;
+
+        private ClassSymbol classOf(Context context) {
+            return (ClassSymbol) symbolTable.get(context.classType());
+        }
+
+        /**
+         * Gets a global symbol, recording the name as a dependency of the class being analyzed.
+         */
+        private Symbol lookup(int id, Context context) {
+            if (context.dependencies() != null && id >= 0) {
+                context.dependencies().set(id);
+            }
+            return symbolTable.get(id);
+        }
+
+        private Symbol lookup(TypeRef type, Context context) {
+            return type == null ? null : lookup(type.getId(), context);
+        }
+
+        /**
+         * Gets the type of an expression that is not the target of a call.
+         *
+         * @throws SemanticError if the expression has no type.
+         */
+        private TypeRef expressionType(Expression expression, Context context) {
+            TypeRef type = expression.accept(this, context.in(context.scope()));
+            if (type == null) {
+                throw new SemanticError(Constants.INVALID_EXPRESSION, 0, 0);
+            }
+            return type;
+        }
+
+        /**
+         * Gets the types of the arguments of a call.
+         */
+        private List<ParameterSymbol> parseParameters(List<Expression> arguments, Context context) {
+            List<ParameterSymbol> result = new ArrayList<>(arguments.size());
+            for (Expression argument : arguments) {
+                result.add(new ParameterSymbol(expressionType(argument, context)));
+            }
+            return result;
+        }
+
+        private List<ParameterSymbol> analyzeParameters(List<Parameter> parameters) {
+            List<ParameterSymbol> result = new ArrayList<>(parameters.size());
+            for (Parameter parameter : parameters) {
+                result.add(new ParameterSymbol(parameter.name().name(), parameter.accept(this, null)));
+            }
+            return result;
+        }
+
+        /**
+         * Analyzes statements. Nested loops and ifs are analyzed from an explicit stack of steps rather than
+         * recursively, so deeply nested bodies do not overflow the call stack.
+         */
+        /**
+         * Checks the statements of a body, and that a method of the program with a result returns it on every path.
+         *
+         * @param context The context of the body, recording into the tables the caller wants.
+         */
+        private void checkBody(Body body, Context context) {
+            analyzeStatements(body.statements(), context);
+            if (body.declaration() instanceof MethodDeclaration method && method.returnType() != null
+                    && !predefinedTypes.contains(context.classType()) && canCompleteNormally(body.statements())) {
+                throw new SemanticError(String.format(Constants.MISSING_RETURN_STATEMENT, method.name().name(),
+                        method.returnType().name()), method.line(), method.column());
+            }
+        }
+
+        private void analyzeStatements(List<Statement> statements, Context context) {
+            Deque<Runnable> steps = new ArrayDeque<>();
+            pushStatements(statements, context, steps);
+            while (!steps.isEmpty()) {
+                steps.pop().run();
+            }
+        }
+
+        private void pushStatements(List<Statement> statements, Context context, Deque<Runnable> steps) {
+            for (int i = statements.size() - 1; i >= 0; i--) {
+                Statement statement = statements.get(i);
+                steps.push(() -> analyzeStatement(statement, context, steps));
+            }
+        }
+
+        /**
+         * Analyzes a statement. The body of a loop and the branches of an if are left on the stack of steps,
+         * each in a block of its own, so the variables they declare are dropped after them.
+         * The block of a loop starts before its condition.
+         */
+        private void analyzeStatement(Statement statement, Context context, Deque<Runnable> steps) {
+            if (statement instanceof WhileLoop node) {
+                context.scope().enter();
+                TypeRef type = expressionType(node.condition(), context);
+                if (type != TypeRef.BOOLEAN) {
+                    throw new SemanticError(String.format(Constants.INVALID_LOOP_CONDITION, type),
+                            primary(node.condition()).line(), primary(node.condition()).column());
+                }
+                steps.push(() -> context.scope().exit());
+                pushStatements(node.body(), context, steps);
+            } else if (statement instanceof IfStatement node) {
+                TypeRef type = expressionType(node.condition(), context);
+                if (type != TypeRef.BOOLEAN) {
+                    throw new SemanticError(String.format(Constants.INVALID_IF_CONDITION, type),
+                            primary(node.condition()).line(), primary(node.condition()).column());
+                }
+                if (node.elseBody() != null) {
+                    pushBlock(node.elseBody(), context, steps);
+                }
+                pushBlock(node.thenBody(), context, steps);
+            } else {
+                statement.accept(this, context);
+            }
+        }
+
+        private void pushBlock(List<Statement> statements, Context context, Deque<Runnable> steps) {
+            steps.push(() -> context.scope().exit());
+            pushStatements(statements, context, steps);
+            steps.push(() -> context.scope().enter());
+        }
     }
 
     /**
-     * Finds the index of the first child node with the specified syntax component value.
-     *
-     * @param parent          The parent program tree node.
-     * @param syntaxComponent The syntax component value to search for.
-     * @return The index of the first matching child node, or null if not found.
+     * Tells whether control can reach the end of a body, as the code generator lays it out.
+     * A condition is never taken to be constant, so a loop and an if without else can always be left;
+     * an if with else can be left if either branch can.
+     * <p>
+     * Only the ifs with else decide anything, so they are found first and decided from the innermost out,
+     * rather than recursively, so deeply nested bodies do not overflow the call stack.
      */
-    private Integer findFirstInChildren(ProgramTree parent, SyntaxComponent syntaxComponent) {
-        for (int i = 0; i < parent.getChildrenCount(); i++) {
-            if (parent.getChild(i).getValue() == syntaxComponent) {
-                return i;
+    private static boolean canCompleteNormally(List<Statement> body) {
+        List<IfStatement> branches = new ArrayList<>();
+        Deque<List<Statement>> bodies = new ArrayDeque<>();
+        bodies.push(body);
+        while (!bodies.isEmpty()) {
+            for (Statement statement : bodies.pop()) {
+                if (statement instanceof IfStatement node && node.elseBody() != null) {
+                    branches.add(node);
+                    bodies.push(node.thenBody());
+                    bodies.push(node.elseBody());
+                }
             }
         }
-        return null;
+        Map<IfStatement, Boolean> completes = new IdentityHashMap<>();
+        for (int i = branches.size() - 1; i >= 0; i--) {
+            IfStatement node = branches.get(i);
+            completes.put(node, canCompleteNormally(node.thenBody(), completes)
+                    || canCompleteNormally(node.elseBody(), completes));
+        }
+        return canCompleteNormally(body, completes);
     }
 
     /**
-     * Finds the index of the first child node with the specified token value.
-     *
-     * @param parent The parent program tree node.
-     * @param token  The token value to search for.
-     * @return The index of the first matching child node, or null if not found.
+     * Tells whether control can reach the end of a body whose ifs with else are decided.
      */
-    private Integer findFirstInChildren(ProgramTree parent, Token token) {
-        for (int i = 0; i < parent.getChildrenCount(); i++) {
-            NodeValue current = parent.getChild(i).getValue();
-            if (current instanceof TokenLexemaPair) {
-                if (((TokenLexemaPair) current).getToken() == token) {
-                    return i;
-                }
+    private static boolean canCompleteNormally(List<Statement> body, Map<IfStatement, Boolean> completes) {
+        for (Statement statement : body) {
+            if (statement instanceof ReturnStatement
+                    || statement instanceof IfStatement node && node.elseBody() != null && !completes.get(node)) {
+                return false;
             }
         }
-        return null;
+        return true;
     }
 
     /**
-     * Analyzes the parameters of a method or constructor declaration.
-     *
-     * @param parent The program tree node representing the parameters.
-     * @return The list of parameter symbols.
+     * Finds the primary an expression starts with, where errors about the whole expression are reported.
      */
-    private List<ParameterSymbol> analyzeParameters(ProgramTree parent) {
-        List<ParameterSymbol> result = new ArrayList<>();
-        for (ProgramTree child : parent.getChildren()) {
-            if (child.getValue() == SyntaxComponent.VARIABLE_DECLARATION) {
-                ParameterSymbol parameter = new ParameterSymbol(
-                        ((TokenLexemaPair) child.getChild(0).getValue()).getLexema(),
-                        ((TokenLexemaPair) child.getChild(2).getChild(0).getValue()).getLexema());
-                result.add(parameter);
-            }
+    private static Expression primary(Expression expression) {
+        while (expression instanceof Call call) {
+            expression = call.target();
         }
-        return result;
+        return expression;
     }
 
     /**
@@ -553,7 +1126,7 @@ public class SemanticAnalyzer {
      * @return The return type of the method.
      * @throws SemanticError If the method is not found in the class.
      */
-    private String checkMethod(String className, String methodName, List<ParameterSymbol> parameters) {
+    private TypeRef checkMethod(String className, String methodName, List<ParameterSymbol> parameters) {
         ClassSymbol classSymbol = (ClassSymbol) this.symbolTable.get(className);
         if (!classSymbol.isMethodExists(methodName, parameters)) {
             throw new SemanticError(String.format(Constants.METHOD_NAME_NOT_DEFINED, methodName), 0, 0);
@@ -1,107 +1,268 @@
 package university.innopolis.javist.symantic.symbol;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import university.innopolis.javist.lexer.IdentifierTable;
 
 import java.util.*;
+import java.util.function.Consumer;
 
+/**
+ * A class with its methods, constructors and variables.
+ * The members of a class may be filled in lazily: a class made with a member loader is a stub,
+ * and the loader is run the first time any member is looked up or read.
+ * <p>
+ * A lookup probes the members declared in the class and then the flattened members of the parent,
+ * which hold everything the parent declares or inherits. The flattened tables are built on first use
+ * and dropped when a member is added to the class or to any of its ancestors.
+ * <p>
+ * Once its members are added, a class may be read from several threads. Loaders run one at a time.
+ */
 @Getter
 public class ClassSymbol extends Symbol {
 
     @Setter
     private String parentClassName;
 
-    @Setter
     private ClassSymbol parentClass = null;
 
-    private final Map<String, Set<MethodSymbol>> methods = new HashMap<>();
-    private final Set<ConstructorSymbol> constructors = new HashSet<>();
-    private final Map<String, VariableSymbol> variables = new HashMap<>();
+    private final Map<Signature, MethodSymbol> methods = new LinkedHashMap<>();
+    private final Map<Signature, ConstructorSymbol> constructors = new LinkedHashMap<>();
+    private final IdMap<VariableSymbol> variables = new IdMap<>();
+
+    /**
+     * Held while a member loader runs. A loader may load other classes, so there is one lock for all of them.
+     */
+    private static final Object LOADING = new Object();
+
+    @Getter(AccessLevel.NONE)
+    private Consumer<ClassSymbol> memberLoader;
+
+    @Getter(AccessLevel.NONE)
+    private volatile boolean loaded;
+
+    @Getter(AccessLevel.NONE)
+    private final List<ClassSymbol> subclasses = new ArrayList<>();
+
+    @Getter(AccessLevel.NONE)
+    private volatile Members flattened = null;
+
+    /**
+     * Methods and fields declared in a class and in all of its ancestors, the nearest declaration winning.
+     * Constructors are not inherited.
+     */
+    private record Members(Map<Signature, MethodSymbol> methods, IdMap<VariableSymbol> variables) {
+    }
 
     public ClassSymbol(String name, String parentClass) {
+        this(name, parentClass, null);
+    }
+
+    /**
+     * Makes a class whose members are added by a loader when they are first needed.
+     *
+     * @param memberLoader Adds the members to the class, or null if they are added right away.
+     */
+    public ClassSymbol(String name, String parentClass, Consumer<ClassSymbol> memberLoader) {
         super(name);
         this.parentClassName = parentClass;
+        this.memberLoader = memberLoader;
+        this.loaded = memberLoader == null;
     }
 
-    public boolean isMethodExists(String methodName, List<ParameterSymbol> parameters) {
-        if (!this.methods.containsKey(methodName)) {
-            if (this.parentClass != null) {
-                return this.parentClass.isMethodExists(methodName, parameters);
-            }
-            return false;
+    /**
+     * Runs the member loader if it has not been run yet.
+     * The loader is dropped before it runs, so members it looks up in this class are not loaded again.
+     */
+    public void loadMembers() {
+        if (loaded) {
+            return;
         }
-        for (MethodSymbol method : methods.get(methodName)) {
-            if (method.equals(methodName, parameters)) {
-                return true;
+        synchronized (LOADING) {
+            Consumer<ClassSymbol> loader = memberLoader;
+            if (loader == null) {
+                return;
             }
+            memberLoader = null;
+            loader.accept(this);
+            loaded = true;
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Links the class to its parent. Lookups that miss in the class continue in the parent.
+     *
+     * @param parentClass The parent, or null.
+     */
+    public void setParentClass(ClassSymbol parentClass) {
+        if (this.parentClass == parentClass) {
+            return;
         }
         if (this.parentClass != null) {
-            this.parentClass.isMethodExists(methodName, parameters);
+            this.parentClass.subclasses.remove(this);
+        }
+        this.parentClass = parentClass;
+        if (parentClass != null) {
+            parentClass.subclasses.add(this);
         }
-        return false;
+        invalidate();
     }
 
-    public MethodSymbol methodLookup(String methodName, List<ParameterSymbol> parameters) {
-        if (!this.methods.containsKey(methodName)) {
+    /**
+     * Gets the members of the class and its ancestors, building them if a member was added since the last call.
+     */
+    private Members flattened() {
+        loadMembers();
+        Members result = this.flattened;
+        if (result == null) {
+            Map<Signature, MethodSymbol> methods = new HashMap<>();
+            IdMap<VariableSymbol> variables = new IdMap<>();
             if (this.parentClass != null) {
-                return this.parentClass.methodLookup(methodName, parameters);
+                Members inherited = this.parentClass.flattened();
+                methods.putAll(inherited.methods());
+                for (VariableSymbol variable : inherited.variables().values()) {
+                    variables.put(variable.getId(), variable);
+                }
             }
-            return null;
-        }
-        for (MethodSymbol method : methods.get(methodName)) {
-            if (method.equals(methodName, parameters)) {
-                return method;
+            methods.putAll(this.methods);
+            for (VariableSymbol variable : this.variables.values()) {
+                variables.put(variable.getId(), variable);
             }
+            result = new Members(Collections.unmodifiableMap(methods), variables);
+            this.flattened = result;
         }
-        if (this.parentClass != null) {
-            return this.parentClass.methodLookup(methodName, parameters);
-        }
-        return null;
+        return result;
     }
 
-    public boolean isConstructorExists(List<ParameterSymbol> parameters) {
-        if (this.constructors.contains(new ConstructorSymbol(parameters))) {
-            return true;
+    /**
+     * Drops the flattened members of the class and its subclasses.
+     * A subclass has flattened members only if its parent has them, so the walk stops at a class without them.
+     */
+    private void invalidate() {
+        if (this.flattened == null) {
+            return;
         }
-        if (this.parentClass != null) {
-            return this.parentClass.isConstructorExists(parameters);
+        this.flattened = null;
+        for (ClassSymbol subclass : this.subclasses) {
+            subclass.invalidate();
         }
-        return false;
     }
 
-    public ConstructorSymbol constructorLookup(List<ParameterSymbol> parameters) {
-        for (ConstructorSymbol constructor : this.constructors) {
-            if (constructor.getParameters().equals(parameters)) {
-                return constructor;
-            }
-        }
-        if (this.parentClass != null) {
-            return this.parentClass.constructorLookup(parameters);
+    public Collection<MethodSymbol> getMethods() {
+        loadMembers();
+        return Collections.unmodifiableCollection(methods.values());
+    }
+
+    public Collection<ConstructorSymbol> getConstructors() {
+        loadMembers();
+        return Collections.unmodifiableCollection(constructors.values());
+    }
+
+    public IdMap<VariableSymbol> getVariables() {
+        loadMembers();
+        return variables;
+    }
+
+    public boolean isMethodExists(String methodName, List<ParameterSymbol> parameters) {
+        return isMethodExists(IdentifierTable.GLOBAL.find(methodName), parameters);
+    }
+
+    public boolean isMethodExists(int methodId, List<ParameterSymbol> parameters) {
+        return methodLookup(methodId, parameters) != null;
+    }
+
+    public MethodSymbol methodLookup(String methodName, List<ParameterSymbol> parameters) {
+        return methodLookup(IdentifierTable.GLOBAL.find(methodName), parameters);
+    }
+
+    public MethodSymbol methodLookup(int methodId, List<ParameterSymbol> parameters) {
+        return methodLookup(Signature.of(methodId, parameters));
+    }
+
+    /**
+     * Finds the method with the given signature in this class or its parents.
+     *
+     * @param signature The name and the parameter types.
+     * @return The method, or null if there is none.
+     */
+    public MethodSymbol methodLookup(Signature signature) {
+        loadMembers();
+        MethodSymbol method = this.methods.get(signature);
+        if (method == null && this.parentClass != null) {
+            return this.parentClass.flattened().methods().get(signature);
         }
-        return null;
+        return method;
+    }
+
+    public boolean isConstructorExists(List<ParameterSymbol> parameters) {
+        return constructorLookup(parameters) != null;
+    }
+
+    public ConstructorSymbol constructorLookup(List<ParameterSymbol> parameters) {
+        return constructorLookup(Signature.of(IdentifierTable.NO_ID, parameters));
+    }
+
+    /**
+     * Finds the constructor with the given parameter types declared in this class.
+     * A class does not get the constructors of its parents, as a JVM class does not.
+     *
+     * @param signature The signature without a name.
+     * @return The constructor, or null if there is none.
+     */
+    public ConstructorSymbol constructorLookup(Signature signature) {
+        loadMembers();
+        return this.constructors.get(signature);
     }
 
     public boolean isVariableExists(String variableName) {
-        if (!this.variables.containsKey(variableName)) {
-            if (this.parentClass != null) {
-                return this.parentClass.isVariableExists(variableName);
-            }
-            return false;
-        }
-        return true;
+        return isVariableExists(IdentifierTable.GLOBAL.find(variableName));
+    }
+
+    public boolean isVariableExists(int variableId) {
+        return variableLookup(variableId) != null;
     }
 
     public VariableSymbol variableLookup(String variableName) {
-        if (this.variables.get(variableName) == null) {
-            if (this.parentClass != null) {
-                return this.parentClass.variableLookup(variableName);
-            }
+        return variableLookup(IdentifierTable.GLOBAL.find(variableName));
+    }
+
+    public VariableSymbol variableLookup(int variableId) {
+        loadMembers();
+        VariableSymbol variable = this.variables.get(variableId);
+        if (variable == null && this.parentClass != null) {
+            return this.parentClass.flattened().variables().get(variableId);
         }
-        return this.variables.get(variableName);
+        return variable;
     }
 
+    /**
+     * Adds a method unless the class already has one with the same signature.
+     */
     public void addMethod(MethodSymbol method) {
-        Set<MethodSymbol> methods = this.methods.computeIfAbsent(method.getName(), k -> new HashSet<>());
-        methods.add(method);
+        loadMembers();
+        if (this.methods.putIfAbsent(method.getSignature(), method) == null) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Adds a constructor unless the class already has one with the same parameter types.
+     */
+    public void addConstructor(ConstructorSymbol constructor) {
+        loadMembers();
+        if (this.constructors.putIfAbsent(constructor.getSignature(), constructor) == null) {
+            invalidate();
+        }
+    }
+
+    public void addVariable(VariableSymbol variable) {
+        loadMembers();
+        this.variables.put(variable.getId(), variable);
+        invalidate();
     }
 }
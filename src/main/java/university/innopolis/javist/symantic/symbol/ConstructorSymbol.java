@@ -12,13 +12,15 @@ public class ConstructorSymbol extends Symbol {
     @Getter
     protected final List<ParameterSymbol> parameters;
 
+    private final Signature signature;
+
     public ConstructorSymbol(List<ParameterSymbol> parameters) {
-        super(null);
-        this.parameters = parameters;
+        this(null, parameters);
     }
     public ConstructorSymbol(String name, List<ParameterSymbol> parameters) {
         super(name);
         this.parameters = parameters;
+        this.signature = Signature.of(getId(), parameters).intern();
     }
 
     @Override
@@ -0,0 +1,95 @@
+package university.innopolis.javist.symantic.symbol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Map from identifier ids (see {@link university.innopolis.javist.lexer.IdentifierTable}) to values.
+ * Open addressing over a primitive key array, so lookups neither box the key nor hash a string.
+ * @param <V> Type of the values.
+ */
+public class IdMap<V> {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+
+    private Object[] values;
+
+    private int size = 0;
+
+    public IdMap() {
+        keys = new int[8];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[8];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int id) {
+        if (id < 0) {
+            return null;
+        }
+        int mask = keys.length - 1;
+        for (int i = mix(id) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == id) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(int id) {
+        return get(id) != null;
+    }
+
+    public void put(int id, V value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = mix(id) & mask;
+        while (keys[i] != EMPTY && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            keys[i] = id;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                result.add((V) values[i]);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(int id) {
+        int hash = id * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
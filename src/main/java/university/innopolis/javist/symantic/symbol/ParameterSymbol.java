@@ -3,19 +3,19 @@ package university.innopolis.javist.symantic.symbol;
 import java.util.Objects;
 
 public class ParameterSymbol extends Symbol {
-    private String type;
+    private final TypeRef type;
 
-    public ParameterSymbol(String type) {
+    public ParameterSymbol(TypeRef type) {
         super(null);
         this.type = type;
     }
 
-    public ParameterSymbol(String name, String type) {
+    public ParameterSymbol(String name, TypeRef type) {
         super(name);
         this.type = type;
     }
 
-    public String getType() {
+    public TypeRef getType() {
         return type;
     }
 
@@ -24,7 +24,7 @@ public class ParameterSymbol extends Symbol {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ParameterSymbol that = (ParameterSymbol) o;
-        return type.equals(that.type);
+        return type == that.type;
     }
 
     @Override
@@ -0,0 +1,92 @@
+package university.innopolis.javist.symantic.symbol;
+
+import university.innopolis.javist.lexer.IdentifierTable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Name of a method and the types of its parameters, all as ids in {@link IdentifierTable#GLOBAL}.
+ * Used as the key of the method and constructor tables of a {@link ClassSymbol},
+ * so an overload is found by one hash lookup instead of comparing the parameter types of every candidate.
+ * The hash is computed once. Signatures of declared symbols are interned by {@link #intern()}.
+ */
+public final class Signature {
+    private static final ConcurrentHashMap<Signature, Signature> INTERNED = new ConcurrentHashMap<>();
+
+    private final int nameId;
+
+    private final int[] parameterTypes;
+
+    private final int hash;
+
+    private Signature(int nameId, int[] parameterTypes) {
+        this.nameId = nameId;
+        this.parameterTypes = parameterTypes;
+        this.hash = 31 * nameId + Arrays.hashCode(parameterTypes);
+    }
+
+    /**
+     * Makes the signature of a call or a declaration.
+     *
+     * @param nameId     Id of the name, or {@link IdentifierTable#NO_ID} for a constructor.
+     * @param parameters The parameters; only their types are used.
+     * @return The signature, not interned.
+     */
+    public static Signature of(int nameId, List<ParameterSymbol> parameters) {
+        int[] types = new int[parameters.size()];
+        for (int i = 0; i < types.length; i++) {
+            TypeRef type = parameters.get(i).getType();
+            types[i] = type == null ? IdentifierTable.NO_ID : type.getId();
+        }
+        return new Signature(nameId, types);
+    }
+
+    /**
+     * Gets the canonical signature equal to this one, so that equal signatures of declared symbols share one object.
+     *
+     * @return The canonical signature.
+     */
+    public Signature intern() {
+        Signature canonical = INTERNED.putIfAbsent(this, this);
+        return canonical == null ? this : canonical;
+    }
+
+    public int getNameId() {
+        return nameId;
+    }
+
+    public int getParameterCount() {
+        return parameterTypes.length;
+    }
+
+    public int getParameterType(int n) {
+        return parameterTypes[n];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Signature that)) return false;
+        return hash == that.hash && nameId == that.nameId && Arrays.equals(parameterTypes, that.parameterTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder(nameId == IdentifierTable.NO_ID ? "this" : IdentifierTable.GLOBAL.name(nameId));
+        result.append('(');
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(parameterTypes[i] == IdentifierTable.NO_ID ? "null" : IdentifierTable.GLOBAL.name(parameterTypes[i]));
+        }
+        return result.append(')').toString();
+    }
+}
@@ -1,13 +1,26 @@
 package university.innopolis.javist.symantic.symbol;
 
+import university.innopolis.javist.lexer.IdentifierTable;
+
 public abstract class Symbol {
     private String name;
 
+    private final int id;
+
     public Symbol(String name) {
         this.name = name;
+        this.id = name == null ? IdentifierTable.NO_ID : IdentifierTable.GLOBAL.intern(name);
     }
 
     public String getName() {
         return name;
     }
+
+    /**
+     * Gets the id of the name in {@link IdentifierTable#GLOBAL}.
+     * @return The id, or {@link IdentifierTable#NO_ID} for a symbol without a name.
+     */
+    public int getId() {
+        return id;
+    }
 }
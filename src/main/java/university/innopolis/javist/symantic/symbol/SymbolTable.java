@@ -1,22 +1,179 @@
 package university.innopolis.javist.symantic.symbol;
 
-import java.util.HashMap;
-import java.util.Map;
+import university.innopolis.javist.lexer.IdentifierTable;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Global symbols by the id of their name.
+ * The symbols are kept in one dense array, and a small open-addressing table keyed by the id of the name
+ * gives the place of a symbol in it, so the table only grows with the names it holds
+ * and not with the number of names interned so far.
+ * A frozen table cannot be changed, so it may be read from several threads while it is frozen.
+ */
 public class SymbolTable {
-    private Map<String, Symbol> symbols;
+    private static final int NONE = -1;
 
-    public SymbolTable() {
-        symbols = new HashMap<>();
-    }
+    private int size = 0;
+
+    private int[] ids = new int[16];
+
+    private Symbol[] symbols = new Symbol[16];
+
+    /**
+     * Ids of the names seen, plus one, by hash; 0 for a free place.
+     */
+    private int[] keys = new int[32];
+
+    /**
+     * For every place in {@link #keys}, the index of the symbol in {@link #symbols}, or {@link #NONE}.
+     */
+    private int[] indices = new int[32];
+
+    private int keyCount = 0;
+
+    private volatile boolean frozen = false;
 
     public Symbol get(String name) {
-        return symbols.get(name);
+        if (name == null) {
+            return null;
+        }
+        return get(IdentifierTable.GLOBAL.find(name));
+    }
+
+    /**
+     * Gets the class of a type; for an array type this is the class {@code Array}.
+     * @param type The type, or null.
+     * @return The symbol, or null if there is none.
+     */
+    public Symbol get(TypeRef type) {
+        return type == null ? null : get(type.getId());
+    }
+
+    public Symbol get(int id) {
+        if (id < 0) {
+            return null;
+        }
+        int place = place(id);
+        if (keys[place] == 0 || indices[place] == NONE) {
+            return null;
+        }
+        return symbols[indices[place]];
     }
 
     public void put(String name, Symbol symbol) {
-        symbols.put(name, symbol);
+        put(IdentifierTable.GLOBAL.intern(name), symbol);
     }
-}
 
+    /**
+     * Adds, replaces or removes the symbol of a name.
+     * @param id The id of the name.
+     * @param symbol The symbol, or null to remove the symbol of the name.
+     */
+    public void put(int id, Symbol symbol) {
+        if (frozen) {
+            throw new IllegalStateException("The symbol table is frozen");
+        }
+        int place = place(id);
+        if (keys[place] == 0) {
+            if (symbol == null) {
+                return;
+            }
+            if ((keyCount + 1) * 2 > keys.length) {
+                rehash();
+                place = place(id);
+            }
+            keys[place] = id + 1;
+            indices[place] = NONE;
+            keyCount++;
+        }
+
+        int index = indices[place];
+        if (symbol == null) {
+            if (index != NONE) {
+                remove(place, index);
+            }
+        } else if (index != NONE) {
+            symbols[index] = symbol;
+        } else {
+            if (size == symbols.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                symbols = Arrays.copyOf(symbols, size * 2);
+            }
+            ids[size] = id;
+            symbols[size] = symbol;
+            indices[place] = size;
+            size++;
+        }
+    }
 
+    /**
+     * Removes a symbol by moving the last symbol into its place.
+     */
+    private void remove(int place, int index) {
+        size--;
+        if (index != size) {
+            ids[index] = ids[size];
+            symbols[index] = symbols[size];
+            indices[place(ids[index])] = index;
+        }
+        symbols[size] = null;
+        indices[place] = NONE;
+    }
+
+    /**
+     * Forbids adding symbols from now on.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * Allows adding symbols again.
+     */
+    public void unfreeze() {
+        frozen = false;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Gets the symbols without copying them. The order is the order they were added in,
+     * except that removing a symbol moves the last one into its place.
+     * @return A view of the symbols that must not be used after the table is changed.
+     */
+    public List<Symbol> values() {
+        return Collections.unmodifiableList(Arrays.asList(symbols).subList(0, size));
+    }
+
+    /**
+     * Finds the place of an id in {@link #keys}: the place holding it, or the free place it would take.
+     */
+    private int place(int id) {
+        int mask = keys.length - 1;
+        int hash = id * 0x9E3779B9;
+        int place = (hash ^ hash >>> 16) & mask;
+        while (keys[place] != 0 && keys[place] != id + 1) {
+            place = (place + 1) & mask;
+        }
+        return place;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldIndices = indices;
+        keys = new int[oldKeys.length * 2];
+        indices = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int place = place(oldKeys[i] - 1);
+                keys[place] = oldKeys[i];
+                indices[place] = oldIndices[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package university.innopolis.javist.symantic.symbol;
+
+import university.innopolis.javist.ast.TypeName;
+import university.innopolis.javist.lexer.IdentifierTable;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A type of the language. There is one instance per type, so types are compared with {@code ==}.
+ * The value types {@code Integer}, {@code Real} and {@code Boolean} are backed by JVM primitives,
+ * {@code Array[T]} by a JVM array, and every other class by a JVM class of the same name.
+ * The descriptor and the internal name are computed once, when the type is made.
+ */
+public final class TypeRef {
+    public enum Kind {
+        VALUE,
+        CLASS,
+        ARRAY
+    }
+
+    private static final String ARRAY = "Array";
+
+    private static final ConcurrentHashMap<String, TypeRef> NAMED = new ConcurrentHashMap<>();
+
+    private static final ConcurrentHashMap<TypeRef, TypeRef> ARRAYS = new ConcurrentHashMap<>();
+
+    public static final TypeRef INTEGER = value("Integer", "I", "java/lang/Integer");
+
+    public static final TypeRef REAL = value("Real", "D", "java/lang/Double");
+
+    public static final TypeRef BOOLEAN = value("Boolean", "Z", "java/lang/Boolean");
+
+    private final String name;
+
+    private final int id;
+
+    private final Kind kind;
+
+    private final TypeRef element;
+
+    private final String descriptor;
+
+    private final String internalName;
+
+    private TypeRef(String name, Kind kind, TypeRef element, String descriptor, String internalName) {
+        this.name = name;
+        this.id = IdentifierTable.GLOBAL.intern(name);
+        this.kind = kind;
+        this.element = element;
+        this.descriptor = descriptor;
+        this.internalName = internalName;
+    }
+
+    private static TypeRef value(String name, String descriptor, String internalName) {
+        TypeRef type = new TypeRef(name, Kind.VALUE, null, descriptor, internalName);
+        NAMED.put(name, type);
+        return type;
+    }
+
+    /**
+     * Gets the type of a class name. Type arguments are not part of a plain name,
+     * so {@code Array} here is the class itself; see {@link #arrayOf(TypeRef)}.
+     *
+     * @param name The name, or null.
+     * @return The type, or null if the name is null.
+     */
+    public static TypeRef of(String name) {
+        if (name == null) {
+            return null;
+        }
+        return NAMED.computeIfAbsent(name, n -> new TypeRef(n, Kind.CLASS, null, "L" + n + ";", n));
+    }
+
+    /**
+     * Gets the type written in the program, with its argument if it is an array.
+     * The argument of any other class is not part of its type.
+     *
+     * @param typeName The type name.
+     * @return The type.
+     */
+    public static TypeRef of(TypeName typeName) {
+        String name = typeName.name().name();
+        if (name.equals(ARRAY) && typeName.argument() != null) {
+            return arrayOf(of(typeName.argument()));
+        }
+        return of(name);
+    }
+
+    /**
+     * Gets the type of arrays of the given elements.
+     *
+     * @param element The type of the elements.
+     * @return The array type.
+     */
+    public static TypeRef arrayOf(TypeRef element) {
+        return ARRAYS.computeIfAbsent(element,
+                e -> new TypeRef(ARRAY, Kind.ARRAY, e, "[" + e.descriptor, "[" + e.descriptor));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the id of the class name in {@link IdentifierTable#GLOBAL}; {@code Array} for an array type.
+     *
+     * @return The id.
+     */
+    public int getId() {
+        return id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isValue() {
+        return kind == Kind.VALUE;
+    }
+
+    /**
+     * Gets the type of the elements of an array type.
+     *
+     * @return The element type, or null if this is not an array.
+     */
+    public TypeRef getElement() {
+        return element;
+    }
+
+    /**
+     * Gets the JVM descriptor of the type, e.g. {@code I} or {@code LPower;}.
+     *
+     * @return The descriptor.
+     */
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * Gets the number of JVM local variable slots a value of the type takes.
+     *
+     * @return 2 for {@code Real}, 1 otherwise.
+     */
+    public int getSlotSize() {
+        return this == REAL ? 2 : 1;
+    }
+
+    /**
+     * Gets the JVM internal name of the class backing the type. For a value type this is its box class.
+     *
+     * @return The internal name.
+     */
+    public String getInternalName() {
+        return internalName;
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.ARRAY ? ARRAY + "[" + element + "]" : name;
+    }
+}
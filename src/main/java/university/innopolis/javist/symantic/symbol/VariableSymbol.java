@@ -1,14 +1,32 @@
 package university.innopolis.javist.symantic.symbol;
 
 public class VariableSymbol extends Symbol {
-    private String type;
+    private final TypeRef type;
 
-    public VariableSymbol(String name, String type) {
+    /**
+     * JVM local variable slot of a local variable or a parameter, -1 for a field.
+     */
+    private final int slot;
+
+    public VariableSymbol(String name, TypeRef type) {
+        this(name, type, -1);
+    }
+
+    public VariableSymbol(String name, TypeRef type, int slot) {
         super(name);
         this.type = type;
+        this.slot = slot;
     }
 
-    public String getType() {
+    public TypeRef getType() {
         return type;
     }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public boolean isLocal() {
+        return slot >= 0;
+    }
 }
\ No newline at end of file
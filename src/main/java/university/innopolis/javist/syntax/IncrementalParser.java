@@ -0,0 +1,258 @@
+package university.innopolis.javist.syntax;
+
+import university.innopolis.javist.errors.LexerError;
+import university.innopolis.javist.errors.SyntaxError;
+import university.innopolis.javist.lexer.IncrementalLexer;
+import university.innopolis.javist.lexer.TextEdit;
+import university.innopolis.javist.lexer.Token;
+import university.innopolis.javist.lexer.TokenBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the tokens and the AST of a text up to date while the text is edited.
+ * After an edit only the changed tokens are lexed again (see {@link IncrementalLexer}),
+ * and only the member or the class that contains them is parsed again.
+ * Parsing goes on until it reaches a member or a class boundary of the old tree behind the change;
+ * from there the old subtrees are reused.
+ * <p>
+ * The new tree shares the unchanged subtrees with the old one, and the old tree is not changed.
+ * If an edit adds or removes lines, the reused subtrees after it are moved with
+ * {@link ProgramTree#shiftLines(int)}, which copies their nodes only when they are visited.
+ */
+public class IncrementalParser {
+    private final IncrementalLexer lexer = new IncrementalLexer();
+
+    private TokenBuffer tokens;
+
+    private ProgramTree tree;
+
+    /**
+     * Index of the first token of every class, followed by the number of tokens.
+     */
+    private int[] classStarts;
+
+    /**
+     * For every class, the index of the first token of every member followed by the index of the closing "end".
+     * The indices are counted from the first token of the class, so they stay valid when the class moves.
+     */
+    private List<int[]> memberStarts;
+
+    public IncrementalParser(TokenBuffer tokens) {
+        this.tokens = tokens;
+    }
+
+    public TokenBuffer getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Parses the whole text.
+     * @return The AST.
+     * @throws SyntaxError if any of the Syntax rules are broken.
+     * @throws LexerError if there are some typos.
+     */
+    public ProgramTree makeTree() throws SyntaxError, LexerError {
+        tree = null;
+
+        var parser = new SyntaxAnalyzer(tokens);
+        var result = new ProgramTree(SyntaxComponent.PROGRAM, 0, 0);
+        int[] starts = new int[16];
+        int count = 0;
+        List<int[]> members = new ArrayList<>();
+
+        while (!parser.getCursor().isAtEnd()) {
+            starts = push(starts, count++, parser.getCursor().index());
+            result.addChild(parseClass(parser, members));
+        }
+
+        return commit(result, Arrays.copyOf(push(starts, count, tokens.size()), count + 1), members);
+    }
+
+    /**
+     * Applies an edit to the text and updates the AST.
+     * If the previous text could not be parsed, the whole new text is parsed.
+     * @param edit The edit.
+     * @return The AST of the edited text.
+     * @throws SyntaxError if any of the Syntax rules are broken.
+     * @throws LexerError if there are some typos.
+     */
+    public ProgramTree update(TextEdit edit) throws SyntaxError, LexerError {
+        IncrementalLexer.Result change = lexer.relex(tokens, edit);
+        tokens = change.tokens();
+
+        if (tree == null || !tokens.isSuccessful()) {
+            return makeTree();
+        }
+
+        ProgramTree oldTree = tree;
+        tree = null;
+
+        int classCount = classStarts.length - 1;
+        int delta = change.newTo() - change.oldTo();
+        int lines = change.lineDelta();
+
+        int first = 0;
+        while (first < classCount && classStarts[first + 1] <= change.from()) {
+            first++;
+        }
+
+        var parser = new SyntaxAnalyzer(tokens);
+        var cursor = parser.getCursor();
+        var result = new ProgramTree(SyntaxComponent.PROGRAM, 0, 0);
+        int[] starts = Arrays.copyOf(classStarts, first + 16);
+        int count = first;
+        List<int[]> members = new ArrayList<>(memberStarts.subList(0, first));
+        for (int i = 0; i < first; i++) {
+            result.addChild(oldTree.getChild(i));
+        }
+
+        cursor.seek(classStarts[first]);
+        if (first < classCount && isInsideMembers(first, change)) {
+            starts = push(starts, count++, classStarts[first]);
+            result.addChild(reparseMembers(parser, oldTree.getChild(first), first, change, members));
+        }
+
+        while (true) {
+            int index = cursor.index();
+            int old = index >= change.newTo()
+                    ? Arrays.binarySearch(classStarts, first, classCount + 1, index - delta)
+                    : -1;
+            if (old >= 0) {
+                for (int i = old; i < classCount; i++) {
+                    starts = push(starts, count++, classStarts[i] + delta);
+                    members.add(memberStarts.get(i));
+                    result.addChild(oldTree.getChild(i).shiftLines(lines));
+                }
+                break;
+            }
+            if (cursor.isAtEnd()) {
+                break;
+            }
+
+            starts = push(starts, count++, index);
+            result.addChild(parseClass(parser, members));
+        }
+
+        return commit(result, Arrays.copyOf(push(starts, count, tokens.size()), count + 1), members);
+    }
+
+    private ProgramTree commit(ProgramTree result, int[] starts, List<int[]> members) {
+        tree = result;
+        classStarts = starts;
+        memberStarts = members;
+        return result;
+    }
+
+    /**
+     * Checks that the changed tokens lie between the header and the closing "end" of a class.
+     */
+    private boolean isInsideMembers(int classIndex, IncrementalLexer.Result change) {
+        int start = classStarts[classIndex];
+        int[] offsets = memberStarts.get(classIndex);
+        return change.from() >= start + offsets[0] && change.oldTo() <= start + offsets[offsets.length - 1];
+    }
+
+    /**
+     * Parses a class, recording where its members start.
+     */
+    private static ProgramTree parseClass(SyntaxAnalyzer parser, List<int[]> members) {
+        var cursor = parser.getCursor();
+        int start = cursor.index();
+
+        var currentNode = parser.parseClassHeader();
+        var membersNode = parser.newNode(SyntaxComponent.MEMBER_DECLARATIONS);
+        int[] offsets = new int[4];
+        int count = 0;
+
+        while (!cursor.at(Token.TK_END)) {
+            offsets = push(offsets, count++, cursor.index() - start);
+            membersNode.addChild(parser.parseMember());
+        }
+        offsets = push(offsets, count++, cursor.index() - start);
+
+        currentNode.addChild(membersNode);
+        parser.checkToken(currentNode, Token.TK_END);
+
+        members.add(Arrays.copyOf(offsets, count));
+        return currentNode;
+    }
+
+    /**
+     * Parses the members of a class again from the member containing the first changed token.
+     * The header of the class is kept. If parsing reaches the boundary of an old member behind
+     * the change, the rest of the class is reused and the cursor is moved to the next class.
+     * Otherwise the class ends where parsing meets its "end".
+     */
+    private ProgramTree reparseMembers(SyntaxAnalyzer parser, ProgramTree classNode, int classIndex,
+                                       IncrementalLexer.Result change, List<int[]> members) {
+        var cursor = parser.getCursor();
+        int start = classStarts[classIndex];
+        int[] oldOffsets = memberStarts.get(classIndex);
+        int oldCount = oldOffsets.length - 1;
+        int delta = change.newTo() - change.oldTo();
+
+        // An expression ending a member takes its position from the token after it,
+        // so the member before the first changed token is parsed again too.
+        int first = 0;
+        while (first < oldCount && start + oldOffsets[first + 1] < change.from()) {
+            first++;
+        }
+
+        int headerSize = classNode.getChildrenCount() - 2;
+        var oldMembers = classNode.getChild(headerSize);
+        var result = new ProgramTree(classNode.getValue(), classNode.getLine(), classNode.getColumn());
+        for (int i = 0; i < headerSize; i++) {
+            result.addChild(classNode.getChild(i));
+        }
+
+        cursor.seek(start + oldOffsets[0]);
+        var membersNode = parser.newNode(SyntaxComponent.MEMBER_DECLARATIONS);
+        for (int i = 0; i < first; i++) {
+            membersNode.addChild(oldMembers.getChild(i));
+        }
+        result.addChild(membersNode);
+        cursor.seek(start + oldOffsets[first]);
+
+        int[] offsets = Arrays.copyOf(oldOffsets, first + 4);
+        int count = first;
+
+        while (true) {
+            int index = cursor.index();
+            int old = index >= change.newTo()
+                    ? Arrays.binarySearch(oldOffsets, first, oldCount + 1, index - delta - start)
+                    : -1;
+            if (old >= 0) {
+                for (int i = old; i < oldCount; i++) {
+                    offsets = push(offsets, count++, oldOffsets[i] + delta);
+                    membersNode.addChild(oldMembers.getChild(i).shiftLines(change.lineDelta()));
+                }
+                offsets = push(offsets, count++, oldOffsets[oldCount] + delta);
+                result.addChild(classNode.getChild(headerSize + 1).shiftLines(change.lineDelta()));
+                cursor.seek(classStarts[classIndex + 1] + delta);
+                break;
+            }
+            if (cursor.at(Token.TK_END)) {
+                offsets = push(offsets, count++, index - start);
+                parser.checkToken(result, Token.TK_END);
+                break;
+            }
+
+            offsets = push(offsets, count++, index - start);
+            membersNode.addChild(parser.parseMember());
+        }
+
+        members.add(Arrays.copyOf(offsets, count));
+        return result;
+    }
+
+    private static int[] push(int[] array, int size, int value) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, size * 2 + 1);
+        }
+        array[size] = value;
+        return array;
+    }
+}
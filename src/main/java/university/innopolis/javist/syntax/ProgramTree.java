@@ -3,6 +3,7 @@ package university.innopolis.javist.syntax;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 
 public class ProgramTree {
@@ -16,9 +17,15 @@ public class ProgramTree {
     @Setter
     private int column;
 
-    @Getter
     private final ArrayList<ProgramTree> children;
 
+    /**
+     * Node whose children are still to be copied, moved by {@link #shift} lines, or null.
+     */
+    private ProgramTree original;
+
+    private int shift;
+
     public ProgramTree(NodeValue value, int line, int column) {
         this.children = new ArrayList<>();
         this.value = value;
@@ -26,24 +33,61 @@ public class ProgramTree {
         this.column = column;
     }
 
+    /**
+     * Makes a copy of a node moved by a number of lines. A method declaration node keeps its line,
+     * as it holds the column of its parameter list. The children are copied and moved
+     * when they are first asked for, so the nodes of the subtree are only copied if they are visited.
+     */
+    private ProgramTree(ProgramTree node, int delta) {
+        this(node.value instanceof TokenLexemaPair pair ? pair.shifted(delta) : node.value,
+                node.value == SyntaxComponent.METHOD_DECLARATION ? node.line : node.line + delta, node.column);
+        if (node.original != null) {
+            original = node.original;
+            shift = node.shift + delta;
+        } else if (!node.children.isEmpty()) {
+            original = node;
+            shift = delta;
+        }
+    }
+
+    /**
+     * Gets the subtree moved by a number of lines, as after an edit that adds lines above it.
+     * The subtree itself is not changed.
+     * @param delta Number of lines added above the subtree.
+     * @return The moved subtree, or this one if the number is 0.
+     */
+    ProgramTree shiftLines(int delta) {
+        return delta == 0 ? this : new ProgramTree(this, delta);
+    }
+
+    public ArrayList<ProgramTree> getChildren() {
+        if (original != null) {
+            for (ProgramTree child : original.getChildren()) {
+                children.add(child.shiftLines(shift));
+            }
+            original = null;
+        }
+        return children;
+    }
+
     public ProgramTree getChild(int n) {
-        return children.get(n);
+        return getChildren().get(n);
     }
 
     public void addChild(ProgramTree child) {
-        children.add(child);
+        getChildren().add(child);
     }
 
     public void addChild(int n, ProgramTree child) {
-        children.add(n, child);
+        getChildren().add(n, child);
     }
 
     public int getChildrenCount() {
-        return children.size();
+        return getChildren().size();
     }
 
     public boolean hasChildren() {
-        return children.size() != 0;
+        return getChildrenCount() != 0;
     }
 
     public NodeValue getValue() {
@@ -66,11 +110,27 @@ public class ProgramTree {
         return result.toString();
     }
 
+    /**
+     * Copies the tree. The nodes are copied from an explicit stack rather than recursively,
+     * so deeply nested trees do not overflow the call stack.
+     * @return The copy.
+     */
     public ProgramTree clone(){
         ProgramTree clone = new ProgramTree(value, line, column);
 
-        for (int i = 0; i < children.size(); i++) {
-            clone.children.add(children.get(i).clone());
+        ArrayDeque<ProgramTree> originals = new ArrayDeque<>();
+        ArrayDeque<ProgramTree> copies = new ArrayDeque<>();
+        originals.push(this);
+        copies.push(clone);
+        while (!originals.isEmpty()) {
+            ProgramTree original = originals.pop();
+            ProgramTree copy = copies.pop();
+            for (ProgramTree child : original.getChildren()) {
+                ProgramTree childCopy = new ProgramTree(child.value, child.line, child.column);
+                copy.children.add(childCopy);
+                originals.push(child);
+                copies.push(childCopy);
+            }
         }
 
         return clone;
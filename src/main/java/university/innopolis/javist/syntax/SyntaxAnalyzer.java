@@ -4,16 +4,38 @@ import university.innopolis.javist.errors.LexerError;
 import university.innopolis.javist.errors.SyntaxError;
 import university.innopolis.javist.lexer.Lexer;
 import university.innopolis.javist.lexer.Token;
+import university.innopolis.javist.lexer.TokenBuffer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 public class SyntaxAnalyzer {
+    /**
+     * Precedence of the current token if it is not an infix operator.
+     */
+    private static final int NOT_AN_OPERATOR = -1;
+
+    private static final int COMPARISON = 0;
+
+    private static final int ADDITION = 1;
+
+    private static final int MULTIPLICATION = 2;
+
     private final ProgramTree tree;
     private final Lexer lexer;
+    private TokenCursor cursor;
 
     public SyntaxAnalyzer(Lexer lexer) {
         this.lexer = lexer;
         tree = new ProgramTree(SyntaxComponent.PROGRAM, 0, 0);
     }
 
+    public SyntaxAnalyzer(TokenBuffer tokens) {
+        this.lexer = null;
+        this.cursor = new TokenCursor(tokens);
+        tree = new ProgramTree(SyntaxComponent.PROGRAM, 0, 0);
+    }
+
     /**
      * The main method which executes the whole process.
      * It gets the chain of the methods started to work and returns the resulting AST
@@ -22,39 +44,36 @@ public class SyntaxAnalyzer {
      * @throws LexerError if there are some typos.
      */
     public ProgramTree makeTree() throws SyntaxError, LexerError {
-        while (lexer.currentPair() != null) {
+        if (cursor == null) {
+            cursor = new TokenCursor(lexer.tokenize());
+        }
+        while (!cursor.isAtEnd()) {
             tree.addChild(parseClass());
         }
         return tree;
     }
 
+    TokenCursor getCursor() {
+        return cursor;
+    }
+
     /**
-     * Checks if pair contains the token provided.
-     * If not, it throws an error. Adds the pair to the node as a child otherwise.
+     * Checks if the current token is the token provided.
+     * If not, it throws an error. Adds the token to the node as a child and moves to the next one otherwise.
      * @param currentNode The node of the tree being modified.
-     * @param pair        The pair of token and lexeme got from Lexer.
      * @param token       Expected token.
      */
-    private void checkToken(ProgramTree currentNode, TokenLexemaPair pair, Token token) {
-        if (pair.getToken() != token)
-            throw new SyntaxError(pair.getLexema(), pair.getLine(), pair.getPosition());
-
-        currentNode.addChild(new ProgramTree(pair, pair.getLine(), pair.getPosition()));
+    void checkToken(ProgramTree currentNode, Token token) {
+        currentNode.addChild(cursor.leaf(cursor.expect(token)));
     }
 
     /**
-     * Does the same thing as checkToken(ProgramTree currentNode, TokenLexemaPair pair, Token token),
-     * but for the array of tokens. Checks the whole provided sequence at a time.
-     * @param currentNode The node of the tree being modified.
-     * @param pair        The pair of token and lexeme got from Lexer.
-     * @param tokens      Expected sequence of tokens.
+     * Creates a node positioned at the current token.
+     * @param component Kind of the node.
+     * @return The new node.
      */
-    private void checkToken(ProgramTree currentNode, TokenLexemaPair pair,
-                            Token[] tokens) {
-        for (Token token : tokens) {
-            pair = lexer.nextPair();
-            checkToken(currentNode, pair, token);
-        }
+    ProgramTree newNode(SyntaxComponent component) {
+        return new ProgramTree(component, cursor.line(0), cursor.column(0));
     }
 
     /**
@@ -62,31 +81,35 @@ public class SyntaxAnalyzer {
      * @return An AST piece containing the class.
      */
     private ProgramTree parseClass() {
-        TokenLexemaPair pair = lexer.nextPair();
-        var currentNode = new ProgramTree(SyntaxComponent.CLASS_DECLARATION, pair.getLine(), pair.getPosition());
+        var currentNode = parseClassHeader();
 
-        checkToken(currentNode, pair, Token.TK_CLASS);
-        currentNode.addChild(parseClassName());
+        currentNode.addChild(parseMembers());
+        checkToken(currentNode, Token.TK_END);
 
-        pair = lexer.nextPair();
-        Token currentToken = pair.getToken();
+        return currentNode;
+    }
 
-        if (currentToken != Token.TK_EXTENDS && currentToken != Token.TK_IS)
-            throw new SyntaxError(pair.getLexema(), pair.getLine(), pair.getPosition());
+    /**
+     * Parses the part of a class before its members: the name and the parent class.
+     * @return The class node with the header tokens as children.
+     */
+    ProgramTree parseClassHeader() {
+        var currentNode = newNode(SyntaxComponent.CLASS_DECLARATION);
 
-        currentNode.addChild(new ProgramTree(pair, pair.getLine(), pair.getPosition()));
+        checkToken(currentNode, Token.TK_CLASS);
+        currentNode.addChild(parseClassName());
 
-        if (currentToken == Token.TK_EXTENDS) {
-            currentNode.addChild(parseClassName());
+        boolean extendsClass = cursor.at(Token.TK_EXTENDS);
 
-            pair = lexer.nextPair();
-            checkToken(currentNode, pair, Token.TK_IS);
-        }
+        if (!extendsClass && !cursor.at(Token.TK_IS))
+            throw cursor.unexpected();
 
-        currentNode.addChild(parseMembers());
-        pair = lexer.nextPair();
+        currentNode.addChild(cursor.leaf(cursor.advance()));
 
-        checkToken(currentNode, pair, Token.TK_END);
+        if (extendsClass) {
+            currentNode.addChild(parseClassName());
+            checkToken(currentNode, Token.TK_IS);
+        }
 
         return currentNode;
     }
@@ -96,24 +119,20 @@ public class SyntaxAnalyzer {
      * @return An AST piece containing the class name.
      */
     private ProgramTree parseClassName() {
-        TokenLexemaPair pair = lexer.nextPair();
-        var currentNode = new ProgramTree(SyntaxComponent.CLASS_NAME, pair.getLine(), pair.getPosition());
+        var currentNode = newNode(SyntaxComponent.CLASS_NAME);
 
-        if (pair.getToken() == Token.TK_INTEGER ||
-                pair.getToken() == Token.TK_REAL ||
-                pair.getToken() == Token.TK_ARRAY) {
-            checkToken(currentNode, pair, pair.getToken());
+        if (cursor.at(Token.TK_INTEGER) ||
+                cursor.at(Token.TK_REAL) ||
+                cursor.at(Token.TK_ARRAY)) {
+            currentNode.addChild(cursor.leaf(cursor.advance()));
         } else
-            checkToken(currentNode, pair, Token.TK_IDENTIFIER);
+            checkToken(currentNode, Token.TK_IDENTIFIER);
 
-        pair = lexer.currentPair();
-        if (pair.getToken() == Token.TK_OPEN_BRACKET) {
-            pair = lexer.nextPair();
-            currentNode.addChild(new ProgramTree(pair, pair.getLine(), pair.getPosition()));
+        if (cursor.at(Token.TK_OPEN_BRACKET)) {
+            currentNode.addChild(cursor.leaf(cursor.advance()));
             currentNode.addChild(parseClassName());
 
-            pair = lexer.nextPair();
-            checkToken(currentNode, pair, Token.TK_CLOSE_BRACKET);
+            checkToken(currentNode, Token.TK_CLOSE_BRACKET);
         }
 
         return currentNode;
@@ -124,12 +143,10 @@ public class SyntaxAnalyzer {
      * @return Returns the AST piece containing all of them.
      */
     private ProgramTree parseMembers() {
-        TokenLexemaPair pair = lexer.currentPair();
-        var currentNode = new ProgramTree(SyntaxComponent.MEMBER_DECLARATIONS, pair.getLine(), pair.getPosition());
+        var currentNode = newNode(SyntaxComponent.MEMBER_DECLARATIONS);
 
-        while (pair.getToken() != Token.TK_END) {
+        while (!cursor.at(Token.TK_END)) {
             currentNode.addChild(parseMember());
-            pair = lexer.currentPair();
         }
 
         return currentNode;
@@ -139,18 +156,17 @@ public class SyntaxAnalyzer {
      * Parses one field or method of the class.
      * @return An AST piece containing the member.
      */
-    private ProgramTree parseMember() {
-        TokenLexemaPair pair = lexer.currentPair();
-        var currentNode = new ProgramTree(SyntaxComponent.MEMBER_DECLARATION, pair.getLine(), pair.getPosition());
+    ProgramTree parseMember() {
+        var currentNode = newNode(SyntaxComponent.MEMBER_DECLARATION);
 
-        if (pair.getToken() == Token.TK_VAR) {
+        if (cursor.at(Token.TK_VAR)) {
             currentNode.addChild(parseVariableDeclaration());
-        } else if (pair.getToken() == Token.TK_METHOD) {
+        } else if (cursor.at(Token.TK_METHOD)) {
             currentNode.addChild(parseMethodDeclaration());
-        } else if (pair.getToken() == Token.TK_THIS) {
+        } else if (cursor.at(Token.TK_THIS)) {
             currentNode.addChild(parseConstructorDeclaration());
         } else
-            throw new SyntaxError(pair.getLexema(), pair.getLine(), pair.getPosition());
+            throw cursor.unexpected();
 
         return currentNode;
     }
@@ -161,11 +177,11 @@ public class SyntaxAnalyzer {
      * @return AST piece with variable declaration.
      */
     private ProgramTree parseVariableDeclaration() {
-        var currentNode = new ProgramTree(SyntaxComponent.VARIABLE_DECLARATION, lexer.currentPair().getLine(), lexer.currentPair().getPosition());
-        TokenLexemaPair pair = null;
+        var currentNode = newNode(SyntaxComponent.VARIABLE_DECLARATION);
 
-        Token[] tokens = {Token.TK_VAR, Token.TK_IDENTIFIER, Token.TK_COLON};
-        checkToken(currentNode, pair, tokens);
+        checkToken(currentNode, Token.TK_VAR);
+        checkToken(currentNode, Token.TK_IDENTIFIER);
+        checkToken(currentNode, Token.TK_COLON);
 
         currentNode.addChild(parseExpression());
 
@@ -177,28 +193,21 @@ public class SyntaxAnalyzer {
      * @return AST piece with variable declaration.
      */
     private ProgramTree parseConstructorDeclaration() {
-        var currentNode = new ProgramTree(SyntaxComponent.CONSTRUCTOR_DECLARATION, lexer.currentPair().getLine(), lexer.currentPair().getPosition());
-        TokenLexemaPair pair = null;
+        var currentNode = newNode(SyntaxComponent.CONSTRUCTOR_DECLARATION);
 
-        checkToken(currentNode, pair, new Token[]
-                {Token.TK_THIS, Token.TK_OPEN_PAREN});
+        checkToken(currentNode, Token.TK_THIS);
+        checkToken(currentNode, Token.TK_OPEN_PAREN);
 
-        pair = lexer.currentPair();
-
-        if (pair.getToken() != Token.TK_CLOSE_PAREN) {
+        if (!cursor.at(Token.TK_CLOSE_PAREN)) {
             currentNode.addChild(parseParameters());
         }
 
-        pair = lexer.nextPair();
-        checkToken(currentNode, pair, Token.TK_CLOSE_PAREN);
-
-        pair = lexer.nextPair();
-        checkToken(currentNode, pair, Token.TK_IS);
+        checkToken(currentNode, Token.TK_CLOSE_PAREN);
+        checkToken(currentNode, Token.TK_IS);
 
         currentNode.addChild(parseStatements());
 
-        pair = lexer.nextPair();
-        checkToken(currentNode, pair, Token.TK_END);
+        checkToken(currentNode, Token.TK_END);
 
         return currentNode;
     }
@@ -209,35 +218,30 @@ public class SyntaxAnalyzer {
      */
     private ProgramTree parseMethodDeclaration() {
         var currentNode = new ProgramTree(SyntaxComponent.METHOD_DECLARATION, 0, 0);
-        TokenLexemaPair pair = null;
 
-        checkToken(currentNode, pair, new Token[]
-                {Token.TK_METHOD, Token.TK_IDENTIFIER, Token.TK_OPEN_PAREN});
+        checkToken(currentNode, Token.TK_METHOD);
+        checkToken(currentNode, Token.TK_IDENTIFIER);
+        checkToken(currentNode, Token.TK_OPEN_PAREN);
 
-        pair = lexer.currentPair();
-        currentNode.setLine(pair.getLine());
-        currentNode.setLine(pair.getPosition());
+        currentNode.setLine(cursor.line(0));
+        currentNode.setLine(cursor.column(0));
 
-        if (pair.getToken() != Token.TK_CLOSE_PAREN) {
+        if (!cursor.at(Token.TK_CLOSE_PAREN)) {
             currentNode.addChild(parseParameters());
         }
 
-        pair = lexer.nextPair();
-        checkToken(currentNode, pair, Token.TK_CLOSE_PAREN);
+        checkToken(currentNode, Token.TK_CLOSE_PAREN);
 
-        if (lexer.currentPair().getToken() == Token.TK_COLON) {
-            pair = lexer.nextPair();
-            checkToken(currentNode, pair, Token.TK_COLON);
+        if (cursor.at(Token.TK_COLON)) {
+            checkToken(currentNode, Token.TK_COLON);
             currentNode.addChild(parseIdentifier());
         }
 
-        pair = lexer.nextPair();
-        checkToken(currentNode, pair, Token.TK_IS);
+        checkToken(currentNode, Token.TK_IS);
 
         currentNode.addChild(parseStatements());
 
-        pair = lexer.nextPair();
-        checkToken(currentNode, pair, Token.TK_END);
+        checkToken(currentNode, Token.TK_END);
 
         return currentNode;
     }
@@ -247,15 +251,13 @@ public class SyntaxAnalyzer {
      * @return Node with the pair.
      */
     private ProgramTree parseIdentifier() {
-        TokenLexemaPair pair = lexer.nextPair();
+        if (cursor.at(Token.TK_INTEGER) ||
+                cursor.at(Token.TK_REAL) ||
+                cursor.at(Token.TK_ARRAY) ||
+                cursor.at(Token.TK_IDENTIFIER))
+            return cursor.leaf(cursor.advance());
 
-        if (pair.getToken() == Token.TK_INTEGER ||
-                pair.getToken() == Token.TK_REAL ||
-                pair.getToken() == Token.TK_ARRAY ||
-                pair.getToken() == Token.TK_IDENTIFIER)
-            return new ProgramTree(pair, pair.getLine(), pair.getPosition());
-
-        throw new SyntaxError(pair.getLexema(), pair.getLine(), pair.getPosition());
+        throw cursor.unexpected();
     }
 
     /**
@@ -263,24 +265,20 @@ public class SyntaxAnalyzer {
      * @return node with type.
      */
     private ProgramTree parseType() {
-        TokenLexemaPair pair = lexer.nextPair();
-
-        if (pair.getToken() == Token.TK_INTEGER ||
-                pair.getToken() == Token.TK_REAL)
-            return new ProgramTree(pair, pair.getLine(), pair.getPosition());
+        if (cursor.at(Token.TK_INTEGER) ||
+                cursor.at(Token.TK_REAL))
+            return cursor.leaf(cursor.advance());
 
-        if (pair.getToken() != Token.TK_ARRAY)
-            throw new SyntaxError(pair.getLexema(), pair.getLine(), pair.getPosition());
+        if (!cursor.at(Token.TK_ARRAY))
+            throw cursor.unexpected();
 
-        var result = new ProgramTree(SyntaxComponent.ARRAY_TYPE, pair.getLine(), pair.getPosition());
-        result.addChild(new ProgramTree(pair, pair.getLine(), pair.getPosition()));
+        var result = newNode(SyntaxComponent.ARRAY_TYPE);
+        result.addChild(cursor.leaf(cursor.advance()));
 
-        pair = lexer.nextPair();
-        checkToken(result, pair, Token.TK_OPEN_BRACKET);
+        checkToken(result, Token.TK_OPEN_BRACKET);
         result.addChild(parseType());
 
-        pair = lexer.nextPair();
-        checkToken(result, pair, Token.TK_CLOSE_BRACKET);
+        checkToken(result, Token.TK_CLOSE_BRACKET);
 
         return result;
     }
@@ -290,17 +288,16 @@ public class SyntaxAnalyzer {
      * @return node containing all the parameters of a method.
      */
     private ProgramTree parseParameters() {
-        TokenLexemaPair pair = lexer.currentPair();
-        var currentNode = new ProgramTree(SyntaxComponent.PARAMETERS, pair.getLine(), pair.getPosition());
+        var currentNode = newNode(SyntaxComponent.PARAMETERS);
+        boolean hasNext = !cursor.at(Token.TK_CLOSE_PAREN);
 
-        while (pair.getToken() != Token.TK_CLOSE_PAREN) {
+        while (hasNext) {
             currentNode.addChild(parseParameter());
 
-            pair = lexer.currentPair();
-
-            if (pair.getToken() == Token.TK_COMMA) {
-                currentNode.addChild(new ProgramTree(pair, pair.getLine(), pair.getPosition()));
-                pair = lexer.nextPair();
+            if (cursor.at(Token.TK_COMMA)) {
+                currentNode.addChild(cursor.leaf(cursor.advance()));
+            } else {
+                hasNext = !cursor.at(Token.TK_CLOSE_PAREN);
             }
         }
 
@@ -312,11 +309,10 @@ public class SyntaxAnalyzer {
      * @return AST piece with a parameter.
      */
     public ProgramTree parseParameter() {
-        var currentNode = new ProgramTree(SyntaxComponent.VARIABLE_DECLARATION, lexer.currentPair().getLine(), lexer.currentPair().getPosition());
-        TokenLexemaPair pair = null;
+        var currentNode = newNode(SyntaxComponent.VARIABLE_DECLARATION);
 
-        Token[] tokens = {Token.TK_IDENTIFIER, Token.TK_COLON};
-        checkToken(currentNode, pair, tokens);
+        checkToken(currentNode, Token.TK_IDENTIFIER);
+        checkToken(currentNode, Token.TK_COLON);
 
         currentNode.addChild(parseClassName());
 
@@ -325,50 +321,67 @@ public class SyntaxAnalyzer {
 
 
     /**
-     * Parses statements inside a method.
+     * Parses statements inside a method. Ifs and loops nest without recursion: the ones whose bodies are
+     * being parsed are kept on a stack, so deeply nested statements do not overflow the call stack.
      * @return AST piece with all statements in a method.
      */
     private ProgramTree parseStatements() {
-        TokenLexemaPair pair = lexer.currentPair();
-        var currentNode = new ProgramTree(SyntaxComponent.STATEMENTS, pair.getLine(), pair.getPosition());
+        var outermost = newNode(SyntaxComponent.STATEMENTS);
+        Deque<ProgramTree> open = new ArrayDeque<>();
+        var statements = outermost;
+
+        while (true) {
+            if (!cursor.at(Token.TK_END) && !cursor.at(Token.TK_ELSE)) {
+                var statement = parseStatement();
+                statements.addChild(statement);
+                var compound = statement.getChild(0);
+                if (compound.getValue() == SyntaxComponent.WHILE_LOOP || compound.getValue() == SyntaxComponent.IF_STATEMENT) {
+                    open.push(compound);
+                    statements = newNode(SyntaxComponent.STATEMENTS);
+                    compound.addChild(statements);
+                }
+                continue;
+            }
+            if (open.isEmpty()) {
+                return outermost;
+            }
 
-        while (pair.getToken() != Token.TK_END &&
-                pair.getToken() != Token.TK_ELSE) {
-            currentNode.addChild(parseStatement());
-            pair = lexer.currentPair();
+            var compound = open.pop();
+            if (compound.getValue() == SyntaxComponent.IF_STATEMENT && compound.getChildrenCount() == 4
+                    && !cursor.at(Token.TK_END)) {
+                checkToken(compound, Token.TK_ELSE);
+                open.push(compound);
+                statements = newNode(SyntaxComponent.STATEMENTS);
+                compound.addChild(statements);
+                continue;
+            }
+            checkToken(compound, Token.TK_END);
+            statements = open.isEmpty() ? outermost : lastStatements(open.peek());
         }
+    }
 
-        return currentNode;
+    /**
+     * Gets the body of an if or a loop that is being parsed: its last child.
+     */
+    private static ProgramTree lastStatements(ProgramTree compound) {
+        return compound.getChild(compound.getChildrenCount() - 1);
     }
 
     /**
-     * Parses one statement.
+     * Parses one statement. Of an if or a loop only the head is parsed, up to "then" or "loop";
+     * {@link #parseStatements()} parses the rest.
      * @return AST piece with a statement.
      */
     private ProgramTree parseStatement() {
-        TokenLexemaPair pair = lexer.currentPair();
-        var currentNode = new ProgramTree(SyntaxComponent.STATEMENT, pair.getLine(), pair.getPosition());
-
-        if (pair.getToken() == Token.TK_VAR) {
-            ProgramTree varDecl = parseVariableDeclaration();
-
-//            if (varDecl.getChild(3).getValue() instanceof syntax.SyntaxComponent) {
-//                syntax.ProgramTree arrayType = varDecl.getChild(3);
-//                pair = lexer.nextPair();
-//                checkToken(arrayType, pair, lexer.Token.TK_OPEN_PAREN);
-//
-//                arrayType.addChild(parseExpression());
-//
-//                pair = lexer.nextPair();
-//                checkToken(arrayType, pair, lexer.Token.TK_CLOSE_PAREN);
-//            }
-
-            currentNode.addChild(varDecl);
-        } else if (pair.getToken() == Token.TK_WHILE) {
+        var currentNode = newNode(SyntaxComponent.STATEMENT);
+
+        if (cursor.at(Token.TK_VAR)) {
+            currentNode.addChild(parseVariableDeclaration());
+        } else if (cursor.at(Token.TK_WHILE)) {
             currentNode.addChild(parseWhile());
-        } else if (pair.getToken() == Token.TK_IF) {
+        } else if (cursor.at(Token.TK_IF)) {
             currentNode.addChild(parseIf());
-        } else if (pair.getToken() == Token.TK_RETURN) {
+        } else if (cursor.at(Token.TK_RETURN)) {
             currentNode.addChild(parseReturn());
         } else {
             currentNode.addChild(parseAssignment());
@@ -382,11 +395,10 @@ public class SyntaxAnalyzer {
      * @return Node containing the parts of an assignment.
      */
     private ProgramTree parseAssignment() {
-        var currentNode = new ProgramTree(SyntaxComponent.ASSIGNMENT, lexer.currentPair().getLine(), lexer.currentPair().getPosition());
-        TokenLexemaPair pair = null;
+        var currentNode = newNode(SyntaxComponent.ASSIGNMENT);
 
-        checkToken(currentNode, pair, new Token[]
-                {Token.TK_IDENTIFIER, Token.TK_ASSIGN});
+        checkToken(currentNode, Token.TK_IDENTIFIER);
+        checkToken(currentNode, Token.TK_ASSIGN);
 
         currentNode.addChild(parseExpression());
 
@@ -394,56 +406,35 @@ public class SyntaxAnalyzer {
     }
 
     /**
-     * Parses if-statement. It consists of a keyword "if", expression, "is", body and "end".
+     * Parses the head of an if-statement: a keyword "if", expression and "then".
+     * The body, an optional "else" with its body, and "end" follow, see {@link #parseStatements()}.
      * @return Node containing the if-statement.
      */
     private ProgramTree parseIf() {
-        TokenLexemaPair pair = lexer.nextPair();
-        var currentNode = new ProgramTree(SyntaxComponent.IF_STATEMENT, pair.getLine(), pair.getPosition());
+        var currentNode = newNode(SyntaxComponent.IF_STATEMENT);
 
-        checkToken(currentNode, pair, Token.TK_IF);
+        checkToken(currentNode, Token.TK_IF);
 
         currentNode.addChild(parseExpression());
 
-        pair = lexer.nextPair();
-        checkToken(currentNode, pair, Token.TK_THEN);
-
-        currentNode.addChild(parseStatements());
-
-        pair = lexer.nextPair();
-
-        if (pair.getToken() == Token.TK_END)
-            currentNode.addChild(new ProgramTree(pair, pair.getLine(), pair.getPosition()));
-        else {
-            checkToken(currentNode, pair, Token.TK_ELSE);
-            currentNode.addChild(parseStatements());
-
-            pair = lexer.nextPair();
-            checkToken(currentNode, pair, Token.TK_END);
-        }
+        checkToken(currentNode, Token.TK_THEN);
 
         return currentNode;
     }
 
     /**
-     * Parses while loop. It consists of a keyword "while", expression, "loop", body and "end".
+     * Parses the head of a while loop: a keyword "while", expression and "loop".
+     * The body and "end" follow, see {@link #parseStatements()}.
      * @return Node containing the while loop.
      */
     private ProgramTree parseWhile() {
-        TokenLexemaPair pair = lexer.nextPair();
-        var currentNode = new ProgramTree(SyntaxComponent.WHILE_LOOP, pair.getLine(), pair.getPosition());
+        var currentNode = newNode(SyntaxComponent.WHILE_LOOP);
 
-        checkToken(currentNode, pair, Token.TK_WHILE);
+        checkToken(currentNode, Token.TK_WHILE);
 
         currentNode.addChild(parseExpression());
 
-        pair = lexer.nextPair();
-        checkToken(currentNode, pair, Token.TK_LOOP);
-
-        currentNode.addChild(parseStatements());
-
-        pair = lexer.nextPair();
-        checkToken(currentNode, pair, Token.TK_END);
+        checkToken(currentNode, Token.TK_LOOP);
 
         return currentNode;
     }
@@ -453,133 +444,145 @@ public class SyntaxAnalyzer {
      * @return Node containing the parts of a return statement.
      */
     private ProgramTree parseReturn() {
-        TokenLexemaPair pair = lexer.nextPair();
-        var currentNode = new ProgramTree(SyntaxComponent.RETURN_STATEMENT, pair.getLine(), pair.getPosition());
+        var currentNode = newNode(SyntaxComponent.RETURN_STATEMENT);
 
-        checkToken(currentNode, pair, Token.TK_RETURN);
+        checkToken(currentNode, Token.TK_RETURN);
         currentNode.addChild(parseExpression());
 
         return currentNode;
     }
 
     /**
-     * Parses expression. It consists of a primary and possible method calls.
+     * Parses expression: operands joined by infix operators. From the loosest to the tightest, the operators are
+     * comparisons ({@code < <= > >= == !=}), {@code + -} and {@code * / mod}; a {@code -} before an operand negates it.
+     * An operator is a leaf with its operands as children, in an EXPRESSION node of its own.
      * @return Node containing the expression.
      */
     private ProgramTree parseExpression() {
-        var currentNode = new ProgramTree(SyntaxComponent.EXPRESSION, 0, 0);
-        currentNode.addChild(parsePrimary());
-
-        TokenLexemaPair pair = lexer.currentPair();
-        currentNode.setLine(pair.getLine());
-        currentNode.setColumn(pair.getPosition());
+        return parseExpression(COMPARISON);
+    }
 
-        if(pair.getToken() == Token.TK_OPEN_PAREN) {
-            currentNode.addChild(parseArguments());
-            return currentNode;
+    /**
+     * Parses operands joined by operators that bind at least as tight as the given precedence (precedence climbing).
+     * Operators of the same precedence are taken from left to right in a loop,
+     * so a long row of them does not go deeper into the call stack.
+     * @param minPrecedence The loosest precedence to take.
+     * @return Node containing the expression.
+     */
+    private ProgramTree parseExpression(int minPrecedence) {
+        ProgramTree left = parseUnary();
+
+        int precedence = precedence();
+        while (precedence >= minPrecedence) {
+            var currentNode = newNode(SyntaxComponent.EXPRESSION);
+            ProgramTree operator = cursor.leaf(cursor.advance());
+            operator.addChild(left);
+            operator.addChild(parseExpression(precedence + 1));
+            currentNode.addChild(operator);
+
+            left = currentNode;
+            precedence = precedence();
         }
 
-        while (pair.getToken() == Token.TK_DOT) {
-            pair = lexer.nextPair();
-            checkToken(currentNode, pair, Token.TK_DOT);
+        return left;
+    }
 
-            currentNode.addChild(parseIdentifier());
-            currentNode.addChild(parseArguments());
-            pair = lexer.currentPair();
+    /**
+     * Gets the precedence of the current token as an infix operator.
+     * @return The precedence, higher for tighter operators, or {@link #NOT_AN_OPERATOR}.
+     */
+    private int precedence() {
+        if (cursor.at(Token.TK_LT) || cursor.at(Token.TK_LTE) ||
+                cursor.at(Token.TK_GT) || cursor.at(Token.TK_GTE) ||
+                cursor.at(Token.TK_EQ) || cursor.at(Token.TK_NEQ)) {
+            return COMPARISON;
         }
-
-        return currentNode;
+        if (cursor.at(Token.TK_PLUS) || cursor.at(Token.TK_MINUS)) {
+            return ADDITION;
+        }
+        if (cursor.at(Token.TK_MUL) || cursor.at(Token.TK_DIV) || cursor.at(Token.TK_MOD)) {
+            return MULTIPLICATION;
+        }
+        return NOT_AN_OPERATOR;
     }
 
-    private ProgramTree parsePrimary() {
-        TokenLexemaPair pair = lexer.currentPair();
-
-        if (pair.getToken() == Token.TK_INTEGER_LITERAL ||
-                pair.getToken() == Token.TK_REAL_LITERAL ||
-                pair.getToken() == Token.TK_BOOLEAN_LITERAL ||
-                pair.getToken() == Token.TK_THIS) {
-            pair = lexer.nextPair();
-            return new ProgramTree(pair, pair.getLine(), pair.getPosition());
+    /**
+     * Parses an operand, negated if it follows a {@code -}.
+     * @return Node containing the operand.
+     */
+    private ProgramTree parseUnary() {
+        if (cursor.at(Token.TK_MINUS)) {
+            var currentNode = newNode(SyntaxComponent.EXPRESSION);
+            ProgramTree operator = cursor.leaf(cursor.advance());
+            operator.addChild(parseUnary());
+            currentNode.addChild(operator);
+            return currentNode;
         }
 
-        return parseClassName();
+        return parseOperand();
     }
 
-    private ProgramTree parseArguments() {
-        TokenLexemaPair pair = lexer.nextPair();
-        var currentNode = new ProgramTree(SyntaxComponent.ARGUMENTS, pair.getLine(), pair.getPosition());
-        checkToken(currentNode, pair, Token.TK_OPEN_PAREN);
-        pair = lexer.currentPair();
-        if (pair.getToken() != Token.TK_CLOSE_PAREN)
-            currentNode.addChild(parseExpression());
-
-        pair = lexer.nextPair();
-        while (pair.getToken() == Token.TK_COMMA) {
-            currentNode.addChild(parseExpression());
-            pair = lexer.nextPair();
+    /**
+     * Parses an operand. It consists of a primary, or an expression in parentheses, and possible method calls.
+     * Parentheses with no calls after them leave only the expression inside.
+     * @return Node containing the operand.
+     */
+    private ProgramTree parseOperand() {
+        var currentNode = new ProgramTree(SyntaxComponent.EXPRESSION, 0, 0);
+        if (cursor.at(Token.TK_OPEN_PAREN)) {
+            cursor.advance();
+            ProgramTree inner = parseExpression();
+            cursor.expect(Token.TK_CLOSE_PAREN);
+            if (!cursor.at(Token.TK_DOT)) {
+                return inner;
+            }
+            currentNode.addChild(inner);
+        } else {
+            currentNode.addChild(parsePrimary());
         }
 
-        checkToken(currentNode, pair, Token.TK_CLOSE_PAREN);
-
-        return currentNode;
-    }
+        currentNode.setLine(cursor.line(0));
+        currentNode.setColumn(cursor.column(0));
 
-    private ProgramTree parseExpression1() {
-        ProgramTree left = parseTerm();
-
-        TokenLexemaPair pair = lexer.currentPair();
-        var currentNode = new ProgramTree(SyntaxComponent.EXPRESSION, pair.getLine(), pair.getPosition());
+        if (cursor.at(Token.TK_OPEN_PAREN)) {
+            currentNode.addChild(parseArguments());
+            return currentNode;
+        }
 
-        while (pair.getToken() == Token.TK_PLUS ||
-                pair.getToken() == Token.TK_MINUS) {
-            pair = lexer.nextPair();
-            ProgramTree temp = new ProgramTree(pair, pair.getLine(), pair.getPosition());
-            temp.addChild(left);
-            temp.addChild(parseTerm());
-            left = temp;
+        while (cursor.at(Token.TK_DOT)) {
+            checkToken(currentNode, Token.TK_DOT);
 
-            pair = lexer.currentPair();
+            currentNode.addChild(parseIdentifier());
+            currentNode.addChild(parseArguments());
         }
 
-        currentNode.addChild(left);
-
         return currentNode;
     }
 
-    private ProgramTree parseTerm() {
-        ProgramTree left = parseFactor();
-
-        TokenLexemaPair pair = lexer.currentPair();
-        var currentNode = new ProgramTree(SyntaxComponent.TERM, pair.getLine(), pair.getPosition());
-
-        while (pair.getToken() == Token.TK_MUL ||
-                pair.getToken() == Token.TK_DIV) {
-            pair = lexer.nextPair();
-            ProgramTree temp = new ProgramTree(pair, pair.getLine(), pair.getPosition());
-            temp.addChild(left);
-            temp.addChild(parseFactor());
-            left = temp;
-
-            pair = lexer.currentPair();
+    private ProgramTree parsePrimary() {
+        if (cursor.at(Token.TK_INTEGER_LITERAL) ||
+                cursor.at(Token.TK_REAL_LITERAL) ||
+                cursor.at(Token.TK_BOOLEAN_LITERAL) ||
+                cursor.at(Token.TK_THIS)) {
+            return cursor.leaf(cursor.advance());
         }
 
-        currentNode.addChild(left);
-
-        return currentNode;
+        return parseClassName();
     }
 
-    private ProgramTree parseFactor() {
-        TokenLexemaPair pair = lexer.nextPair();
-        var currentNode = new ProgramTree(SyntaxComponent.FACTOR, pair.getLine(), pair.getPosition());
+    private ProgramTree parseArguments() {
+        var currentNode = newNode(SyntaxComponent.ARGUMENTS);
+        checkToken(currentNode, Token.TK_OPEN_PAREN);
 
-        if (pair.getToken() == Token.TK_OPEN_PAREN) {
+        if (!cursor.at(Token.TK_CLOSE_PAREN))
             currentNode.addChild(parseExpression());
 
-            pair = lexer.nextPair();
-            if (pair.getToken() != Token.TK_CLOSE_PAREN)
-                throw new SyntaxError(pair.getLexema(), pair.getLine(), pair.getPosition());
-        } else
-            checkToken(currentNode, pair, Token.TK_IDENTIFIER);
+        while (cursor.at(Token.TK_COMMA)) {
+            cursor.advance();
+            currentNode.addChild(parseExpression());
+        }
+
+        checkToken(currentNode, Token.TK_CLOSE_PAREN);
 
         return currentNode;
     }
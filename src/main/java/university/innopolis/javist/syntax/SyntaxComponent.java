@@ -19,6 +19,4 @@ public enum SyntaxComponent implements NodeValue {
     RETURN_STATEMENT,
     EXPRESSION,
     ARGUMENTS,
-    TERM,
-    FACTOR,
 }
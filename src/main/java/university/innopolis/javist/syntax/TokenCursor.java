@@ -0,0 +1,133 @@
+package university.innopolis.javist.syntax;
+
+import university.innopolis.javist.errors.LexerError;
+import university.innopolis.javist.errors.SyntaxError;
+import university.innopolis.javist.lexer.Token;
+import university.innopolis.javist.lexer.TokenBuffer;
+
+/**
+ * Lookahead over a {@link TokenBuffer} for the parser.
+ * Tokens are addressed by their index in the buffer, so peeking and moving forward
+ * do not allocate; a pair is made only for tokens that become AST leaves.
+ */
+public class TokenCursor {
+    /**
+     * Kind returned by {@link #peekKind(int)} past the last token.
+     */
+    public static final int END = -1;
+
+    private final TokenBuffer tokens;
+
+    private int index = 0;
+
+    public TokenCursor(TokenBuffer tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Gets the kind of a token ahead of the cursor.
+     * @param k Distance from the cursor, 0 for the current token.
+     * @return Ordinal of the {@link Token}, or {@link #END} past the last token.
+     * @throws LexerError if the position is past the last token and the source contains a lexical error.
+     */
+    public int peekKind(int k) throws LexerError {
+        int position = index + k;
+        if (position < tokens.size()) {
+            return tokens.kind(position);
+        }
+        if (!tokens.isSuccessful()) {
+            throw new LexerError(tokens.errorMessage());
+        }
+        return END;
+    }
+
+    /**
+     * Checks the kind of the current token.
+     * @param token Expected token.
+     * @return true if the current token is of the given kind.
+     */
+    public boolean at(Token token) {
+        return peekKind(0) == token.ordinal();
+    }
+
+    public boolean isAtEnd() {
+        return peekKind(0) == END;
+    }
+
+    /**
+     * Moves the cursor to the next token.
+     * @return Index of the token the cursor was on.
+     */
+    public int advance() {
+        if (peekKind(0) == END) {
+            throw unexpected();
+        }
+        return index++;
+    }
+
+    /**
+     * Moves the cursor past the current token if it is of the given kind.
+     * @param token Expected token.
+     * @return Index of the token the cursor was on.
+     * @throws SyntaxError if the current token is of another kind.
+     */
+    public int expect(Token token) throws SyntaxError {
+        if (!at(token)) {
+            throw unexpected();
+        }
+        return index++;
+    }
+
+    /**
+     * Makes the error for the token the cursor is on.
+     * @return Error reporting the current token as unexpected.
+     */
+    public SyntaxError unexpected() {
+        if (index < tokens.size()) {
+            return new SyntaxError(tokens.lexeme(index).toString(), line(0), column(0));
+        }
+        return new SyntaxError("end of file", line(0), column(0));
+    }
+
+    /**
+     * Gets the line of a token ahead of the cursor. Past the last token it is the line of the last token.
+     * @param k Distance from the cursor.
+     * @return The line number.
+     */
+    public int line(int k) {
+        int position = Math.min(index + k, tokens.size() - 1);
+        return position < 0 ? 0 : tokens.line(position);
+    }
+
+    /**
+     * Gets the column of a token ahead of the cursor. Past the last token it is the column of the last token.
+     * @param k Distance from the cursor.
+     * @return The column number.
+     */
+    public int column(int k) {
+        int position = Math.min(index + k, tokens.size() - 1);
+        return position < 0 ? 0 : tokens.column(position);
+    }
+
+    /**
+     * Makes the AST leaf for a token.
+     * @param tokenIndex Index returned by {@link #advance()} or {@link #expect(Token)}.
+     * @return Node holding the pair of the token.
+     */
+    public ProgramTree leaf(int tokenIndex) {
+        TokenLexemaPair pair = tokens.pair(tokenIndex);
+        return new ProgramTree(pair, pair.getLine(), pair.getPosition());
+    }
+
+    public int index() {
+        return index;
+    }
+
+    /**
+     * Moves the cursor to a token.
+     * @param index Index of the token.
+     */
+    void seek(int index) {
+        this.index = index;
+    }
+}
@@ -1,12 +1,15 @@
 package university.innopolis.javist.syntax;
 
 import lombok.Getter;
+import university.innopolis.javist.lexer.IdentifierTable;
 import university.innopolis.javist.lexer.Token;
 
 public class TokenLexemaPair implements NodeValue {
     private final Token token;
 
-    private final String lexema;
+    private CharSequence lexema;
+
+    private int id;
 
     @Getter
     private final int line;
@@ -14,18 +17,51 @@ public class TokenLexemaPair implements NodeValue {
     @Getter
     private final int position;
 
-    public TokenLexemaPair(Token token, String lexema, int line, int position) {
+    public TokenLexemaPair(Token token, CharSequence lexema, int line, int position) {
+        this(token, lexema, line, position, IdentifierTable.NO_ID);
+    }
+
+    public TokenLexemaPair(Token token, CharSequence lexema, int line, int position, int id) {
         this.token = token;
         this.lexema = lexema;
         this.line = line;
         this.position = position;
+        this.id = id;
+    }
+
+    /**
+     * Gets the token moved to another line, as after an edit of the text above it.
+     * @param delta Number of lines added above the token.
+     * @return The moved token.
+     */
+    TokenLexemaPair shifted(int delta) {
+        return new TokenLexemaPair(token, lexema, line + delta, position, id);
     }
 
     public Token getToken() {
         return token;
     }
 
+    /**
+     * Gets the lexeme. A lexeme given as a view into the source is copied into a string on the first call.
+     * @return The text of the token.
+     */
     public String getLexema() {
-        return lexema;
+        if (!(lexema instanceof String)) {
+            lexema = lexema.toString();
+        }
+        return (String) lexema;
+    }
+
+    /**
+     * Gets the id of the lexeme in {@link IdentifierTable#GLOBAL}, interning it on the first call
+     * if the lexer did not assign one.
+     * @return The id of the lexeme.
+     */
+    public int getId() {
+        if (id == IdentifierTable.NO_ID) {
+            id = IdentifierTable.GLOBAL.intern(getLexema());
+        }
+        return id;
     }
 }
@@ -0,0 +1,48 @@
+package university.innopolis.javist;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.symantic.SemanticAnalyzer;
+import university.innopolis.javist.symantic.symbol.ClassSymbol;
+import university.innopolis.javist.symantic.symbol.ParameterSymbol;
+import university.innopolis.javist.symantic.symbol.TypeRef;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ArrayTest {
+    private static final String PROGRAM = """
+            class Holder is
+              method second(a : Array[Integer]) : Integer is
+                return 1
+              end
+              method first(a : Array[Integer]) : Integer is
+                return this.second(a)
+              end
+              method local() : Integer is
+                var b : Array[Integer]
+                return this.second(b)
+              end
+            end
+            """;
+
+    @Test
+    void typesArrayParametersAndLocalsAsArrays() {
+        SemanticAnalyzer semanticAnalyzer = GeneratedClasses.analyze(PROGRAM);
+        ClassSymbol holder = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("Holder");
+
+        TypeRef integers = TypeRef.arrayOf(TypeRef.INTEGER);
+        assertEquals("[I", integers.getDescriptor());
+        assertNotNull(holder.methodLookup("second", List.of(new ParameterSymbol(integers))));
+    }
+
+    @Test
+    void passesArrayParametersAlong() throws Exception {
+        Class<?> holder = GeneratedClasses.compile(PROGRAM).get("Holder");
+        Object instance = holder.getConstructor().newInstance();
+
+        assertEquals(1, holder.getMethod("first", int[].class).invoke(instance, (Object) new int[]{7}));
+        assertEquals(1, holder.getMethod("local").invoke(instance));
+    }
+}
@@ -0,0 +1,61 @@
+package university.innopolis.javist;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConstructorTest {
+    private static final String PROGRAM = """
+            class Counter is
+              var count : 5
+              var step : Integer
+              var scale : 1.5
+              this(start : Integer) is
+                if start > 0 then
+                  count := count + start
+                end
+              end
+              method get() : Integer is
+                return count
+              end
+              method getStep() : Integer is
+                return step
+              end
+              method getScale() : Real is
+                return scale
+              end
+            end
+            class Plain is
+              var x : 3
+              method get() : Integer is
+                return x
+              end
+            end
+            class Maker is
+              method make() : Integer is
+                var plain : Plain()
+                return plain.get()
+              end
+            end
+            """;
+
+    @Test
+    void initializesFieldsInDeclaredConstructor() throws Exception {
+        Class<?> counter = GeneratedClasses.compile(PROGRAM).get("Counter");
+        Object instance = counter.getConstructor(int.class).newInstance(2);
+        assertEquals(7, counter.getMethod("get").invoke(instance));
+        assertEquals(0, counter.getMethod("getStep").invoke(instance));
+        assertEquals(1.5, counter.getMethod("getScale").invoke(instance));
+    }
+
+    @Test
+    void generatesDefaultConstructor() throws Exception {
+        Map<String, Class<?>> classes = GeneratedClasses.compile(PROGRAM);
+        Object plain = classes.get("Plain").getConstructor().newInstance();
+        assertEquals(3, classes.get("Plain").getMethod("get").invoke(plain));
+        Object maker = classes.get("Maker").getConstructor().newInstance();
+        assertEquals(3, classes.get("Maker").getMethod("make").invoke(maker));
+    }
+}
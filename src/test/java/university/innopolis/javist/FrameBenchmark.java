@@ -0,0 +1,84 @@
+package university.innopolis.javist;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import university.innopolis.javist.ast.ClassDeclaration;
+import university.innopolis.javist.symantic.Attribution;
+import university.innopolis.javist.symantic.SemanticAnalyzer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the code generation of a class with one large method when the frames and the maximum stack
+ * come from the {@link FrameTracker} and when the {@link ClassWriter} computes them with
+ * {@link ClassWriter#COMPUTE_FRAMES}. The method is a row of loops with an if and an else in each,
+ * so it has four frames per loop.
+ * <p>
+ * The program is analyzed once and only the generation is timed.
+ * With {@code COMPUTE_FRAMES} the frames of the tracker are still worked out and thrown away by the writer,
+ * so the difference is the cost of the analysis of the writer alone.
+ * <p>
+ * Run {@link #main} from the IDE, or {@code java -cp <classpath> org.openjdk.jmh.Main FrameBenchmark} after
+ * {@code mvn test-compile}, with {@code target/test-classes}, {@code target/classes} and the test dependencies
+ * {@code mvn dependency:build-classpath -Dmdep.includeScope=test} prints on the classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrameBenchmark {
+    @Param({"100", "200", "400", "800", "1600"})
+    private int loops;
+
+    private ClassDeclaration classDeclaration;
+
+    private Attribution attribution;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{FrameBenchmark.class.getName()});
+    }
+
+    @Setup
+    public void setUp() {
+        StringBuilder source = new StringBuilder("class Large is\n  var x : Integer\n  method f() : Integer is\n");
+        for (int i = 0; i < loops; i++) {
+            source.append("    while true loop\n      if false then\n        x := 1\n      else\n        x := 2\n      end\n    end\n");
+        }
+        source.append("    return x\n  end\nend\n");
+
+        SemanticAnalyzer semanticAnalyzer = GeneratedClasses.analyze(source.toString());
+        classDeclaration = semanticAnalyzer.getProgram().classes().get(0);
+        attribution = semanticAnalyzer.getAttribution();
+    }
+
+    @Benchmark
+    public byte[] explicit() throws Exception {
+        return generate(0);
+    }
+
+    @Benchmark
+    public byte[] computeFrames() throws Exception {
+        return generate(ClassWriter.COMPUTE_FRAMES);
+    }
+
+    private byte[] generate(int flags) throws Exception {
+        ClassWriter classWriter = new ClassWriter(flags);
+        classWriter.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "Large", null, "java/lang/Object", null);
+        JVMByteCodeGenerator.generateClassDeclaration(classDeclaration, attribution, classWriter);
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+}
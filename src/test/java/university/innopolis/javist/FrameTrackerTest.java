@@ -0,0 +1,30 @@
+package university.innopolis.javist;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FrameTrackerTest {
+    @Test
+    void mergesLabelsAtTheSameOffsetIntoOneFrame() throws Exception {
+        Class<?> a = GeneratedClasses.compile("""
+                class A is
+                  method f(n : Integer) : Integer is
+                    var acc : 0
+                    if n > 0 then
+                      var r : 1.5
+                    else
+                      var k : 2
+                      while k > 0 loop
+                        k := k - 1
+                      end
+                    end
+                    return acc
+                  end
+                end
+                """).get("A");
+        Object instance = a.getConstructor().newInstance();
+        assertEquals(0, a.getMethod("f", int.class).invoke(instance, 1));
+        assertEquals(0, a.getMethod("f", int.class).invoke(instance, 0));
+    }
+}
@@ -0,0 +1,75 @@
+package university.innopolis.javist;
+
+import university.innopolis.javist.ast.ClassDeclaration;
+import university.innopolis.javist.ast.Program;
+import university.innopolis.javist.errors.SemanticError;
+import university.innopolis.javist.lexer.ArrayCharSource;
+import university.innopolis.javist.lexer.Lexer;
+import university.innopolis.javist.symantic.Attribution;
+import university.innopolis.javist.symantic.SemanticAnalyzer;
+import university.innopolis.javist.syntax.ProgramTree;
+import university.innopolis.javist.syntax.SyntaxAnalyzer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiles programs for the tests and loads the generated classes, so that the JVM verifies them.
+ */
+public final class GeneratedClasses {
+    private GeneratedClasses() {
+    }
+
+    public static ProgramTree parse(String source) {
+        return new SyntaxAnalyzer(new Lexer(new ArrayCharSource(source.toCharArray()))).makeTree();
+    }
+
+    /**
+     * Analyzes a program with the predefined libraries.
+     *
+     * @throws SemanticError the error the analysis found.
+     */
+    public static SemanticAnalyzer analyze(String source) {
+        SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(parse(source));
+        semanticAnalyzer.analyzePredefinedLibraries();
+        semanticAnalyzer.analyze();
+        return semanticAnalyzer;
+    }
+
+    /**
+     * Compiles a program and loads its classes.
+     */
+    public static Map<String, Class<?>> compile(String source) throws Exception {
+        SemanticAnalyzer semanticAnalyzer = analyze(source);
+        return load(semanticAnalyzer.getProgram(), semanticAnalyzer.getAttribution());
+    }
+
+    /**
+     * Generates the classes of an analyzed program, then loads and initializes every one of them.
+     *
+     * @return The classes by name.
+     */
+    public static Map<String, Class<?>> load(Program program, Attribution attribution) throws Exception {
+        Map<String, byte[]> bytes = new HashMap<>();
+        for (ClassDeclaration classDeclaration : program.classes()) {
+            bytes.put(classDeclaration.name().name().name(),
+                    JVMByteCodeGenerator.generateClass(classDeclaration, attribution));
+        }
+
+        ClassLoader loader = new ClassLoader(GeneratedClasses.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] code = bytes.get(name);
+                if (code == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, code, 0, code.length);
+            }
+        };
+        Map<String, Class<?>> classes = new HashMap<>();
+        for (String name : bytes.keySet()) {
+            classes.put(name, Class.forName(name, true, loader));
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,44 @@
+package university.innopolis.javist;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NestingTest {
+    private static final long STACK_SIZE = 256 * 1024;
+
+    private static final int DEPTH = 5_000;
+
+    @Test
+    void compilesDeeplyNestedStatementsOnASmallStack() throws Throwable {
+        StringBuilder source = new StringBuilder("class Nesting is\n  method f(n : Integer) : Integer is\n");
+        for (int i = 0; i < DEPTH; i++) {
+            source.append(i % 2 == 0 ? "while n > 0 loop\n" : "if n > 0 then\n");
+        }
+        source.append("n := n - 1\n");
+        for (int i = 0; i < DEPTH; i++) {
+            source.append((DEPTH - 1 - i) % 2 == 0 ? "end\n" : "else\nn := 0\nend\n");
+        }
+        source.append("    return n\n  end\nend\n");
+
+        AtomicReference<Map<String, Class<?>>> classes = new AtomicReference<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                classes.set(GeneratedClasses.compile(source.toString()));
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "nesting", STACK_SIZE);
+        thread.start();
+        thread.join();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        assertEquals(int.class, classes.get().get("Nesting").getMethod("f", int.class).getReturnType());
+    }
+}
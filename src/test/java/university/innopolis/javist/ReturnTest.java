@@ -0,0 +1,93 @@
+package university.innopolis.javist;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.errors.SemanticError;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReturnTest {
+    @Test
+    void rejectsMethodThatCanEndWithoutReturn() {
+        SemanticError error = assertThrows(SemanticError.class, () -> GeneratedClasses.analyze("""
+                class A is
+                  method f(n : Integer) : Integer is
+                    if n > 0 then
+                      return n
+                    end
+                  end
+                end
+                """));
+        assertTrue(error.getMessage().startsWith("Method f can end without returning a value of type Integer"),
+                error.getMessage());
+    }
+
+    @Test
+    void rejectsMethodThatCanLeaveALoop() {
+        SemanticError error = assertThrows(SemanticError.class, () -> GeneratedClasses.analyze("""
+                class A is
+                  method f() : Integer is
+                    while true loop
+                      return 1
+                    end
+                  end
+                end
+                """));
+        assertTrue(error.getMessage().startsWith("Method f can end without returning a value of type Integer"),
+                error.getMessage());
+    }
+
+    @Test
+    void rejectsMethodWhoseNestedBranchCanEndWithoutReturn() {
+        SemanticError error = assertThrows(SemanticError.class, () -> GeneratedClasses.analyze("""
+                class A is
+                  method f(n : Integer) : Integer is
+                    if n > 0 then
+                      if n > 1 then
+                        return n
+                      else
+                        n := 1
+                      end
+                    else
+                      return 0
+                    end
+                  end
+                end
+                """));
+        assertTrue(error.getMessage().startsWith("Method f can end without returning a value of type Integer"),
+                error.getMessage());
+    }
+
+    @Test
+    void acceptsDeeplyNestedReturns() throws Exception {
+        StringBuilder source = new StringBuilder("class A is\n  method f(n : Integer) : Integer is\n");
+        for (int i = 0; i < 2000; i++) {
+            source.append("if n > ").append(i).append(" then\n");
+        }
+        source.append("return n\n");
+        for (int i = 0; i < 2000; i++) {
+            source.append("else\nreturn ").append(i).append("\nend\n");
+        }
+        source.append("  end\nend\n");
+
+        GeneratedClasses.analyze(source.toString());
+    }
+
+    @Test
+    void acceptsMethodThatReturnsOnEveryPath() throws Exception {
+        Class<?> a = GeneratedClasses.compile("""
+                class A is
+                  method f(n : Integer) : Integer is
+                    if n > 0 then
+                      return n
+                    else
+                      return 0 - n
+                    end
+                  end
+                end
+                """).get("A");
+        Object instance = a.getConstructor().newInstance();
+        assertEquals(3, a.getMethod("f", int.class).invoke(instance, -3));
+    }
+}
@@ -0,0 +1,134 @@
+package university.innopolis.javist;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import university.innopolis.javist.ast.Program;
+import university.innopolis.javist.symantic.SemanticAnalyzer;
+import university.innopolis.javist.syntax.ProgramTree;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the tree walkers on long call chains and deeply nested trees of growing size.
+ * The benchmarks run in a JVM whose threads have a small fixed stack, so a walker that recursed per link
+ * or per level would overflow it; the time as the size grows shows whether the walkers stay linear.
+ * <p>
+ * A chain {@code 1.Plus(1).Plus(1)...} and a method of nested loops are each parsed, copied, printed,
+ * analyzed and generated. The indentation of a printed nested tree grows with its depth,
+ * so printing it takes time in proportion to the square of the depth even though the walk is linear.
+ * <p>
+ * Run {@link #main} from the IDE, or {@code java -cp <classpath> org.openjdk.jmh.Main StressBenchmark} after
+ * {@code mvn test-compile}, with {@code target/test-classes}, {@code target/classes} and the test dependencies
+ * {@code mvn dependency:build-classpath -Dmdep.includeScope=test} prints on the classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss256k")
+@State(Scope.Benchmark)
+public class StressBenchmark {
+    @Param({"1000", "4000", "16000", "64000"})
+    private int size;
+
+    @Param({"chain", "nesting"})
+    private String shape;
+
+    private String source;
+
+    private ProgramTree tree;
+
+    private SemanticAnalyzer analyzed;
+
+    private PrintStream out;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{StressBenchmark.class.getName()});
+    }
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder;
+        if (shape.equals("chain")) {
+            builder = new StringBuilder("class Chain is\n  method f() : Integer is\n    return 1");
+            for (int i = 0; i < size; i++) {
+                builder.append(".Plus(1)");
+            }
+            builder.append("\n  end\nend\n");
+        } else {
+            builder = new StringBuilder("class Nesting is\n  method f() : Integer is\n");
+            for (int i = 0; i < size; i++) {
+                builder.append("while true loop\n");
+            }
+            for (int i = 0; i < size; i++) {
+                builder.append("end\n");
+            }
+            builder.append("    return 0\n  end\nend\n");
+        }
+        source = builder.toString();
+        tree = GeneratedClasses.parse(source);
+        analyzed = GeneratedClasses.analyze(source);
+    }
+
+    @Setup(Level.Iteration)
+    public void silence() {
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void restore() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public ProgramTree parse() {
+        return GeneratedClasses.parse(source);
+    }
+
+    @Benchmark
+    public ProgramTree copy() {
+        return tree.clone();
+    }
+
+    @Benchmark
+    public void print() {
+        Try.printAST(tree, 0);
+    }
+
+    @Benchmark
+    public Program analyze() {
+        SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(tree);
+        semanticAnalyzer.analyzePredefinedLibraries();
+        semanticAnalyzer.analyze();
+        return semanticAnalyzer.getProgram();
+    }
+
+    /**
+     * Generates the code of the class without assembling it, as the larger methods do not fit
+     * in the 64 KB of code the JVM allows a method.
+     */
+    @Benchmark
+    public ClassWriter generate() throws Exception {
+        ClassWriter classWriter = new ClassWriter(0);
+        classWriter.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "Stress", null, "java/lang/Object", null);
+        JVMByteCodeGenerator.generateClassDeclaration(analyzed.getProgram().classes().get(0),
+                analyzed.getAttribution(), classWriter);
+        return classWriter;
+    }
+}
@@ -0,0 +1,83 @@
+package university.innopolis.javist.ast;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.GeneratedClasses;
+import university.innopolis.javist.errors.SemanticError;
+import university.innopolis.javist.lexer.Token;
+import university.innopolis.javist.syntax.ProgramTree;
+import university.innopolis.javist.syntax.SyntaxComponent;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AstLoweringTest {
+    private static final String PROGRAM = """
+            class A extends B is
+              var x : Integer(1)
+              method f(p : Integer, q : Array[Integer]) : Integer is
+                while p.Less(2) loop
+                  p := p.Plus(1)
+                end
+                if true then return 1 end
+                return this.f(p, q)
+              end
+              this() is
+              end
+            end
+            """;
+
+    @Test
+    void lowersEveryConstruct() {
+        Program program = new AstLowering().lower(GeneratedClasses.parse(PROGRAM));
+
+        ClassDeclaration a = program.classes().get(0);
+        assertEquals("A", a.name().name().name());
+        assertEquals("B", a.parent().name().name());
+        assertEquals(3, a.members().size());
+
+        VariableDeclaration x = assertInstanceOf(VariableDeclaration.class, a.members().get(0));
+        assertEquals("x", x.name().name());
+        Call integer = assertInstanceOf(Call.class, x.value());
+        assertNull(integer.method());
+        assertEquals("Integer", assertInstanceOf(Reference.class, integer.target()).name().name().name());
+        assertEquals(List.of(Token.TK_INTEGER_LITERAL), integer.arguments().stream()
+                .map(argument -> ((Literal) argument).kind()).toList());
+
+        MethodDeclaration f = assertInstanceOf(MethodDeclaration.class, a.members().get(1));
+        assertEquals("f", f.name().name());
+        assertEquals("Integer", f.returnType().name());
+        assertEquals(List.of("p", "q"), f.parameters().stream().map(parameter -> parameter.name().name()).toList());
+        TypeName array = f.parameters().get(1).type();
+        assertEquals("Array", array.name().name());
+        assertEquals("Integer", array.argument().name().name());
+
+        WhileLoop loop = assertInstanceOf(WhileLoop.class, f.body().get(0));
+        assertEquals("Less", assertInstanceOf(Call.class, loop.condition()).method().name());
+        Assignment assignment = assertInstanceOf(Assignment.class, loop.body().get(0));
+        assertEquals("p", assignment.target().name());
+        assertEquals(5, assignment.line());
+
+        IfStatement ifStatement = assertInstanceOf(IfStatement.class, f.body().get(1));
+        assertInstanceOf(ReturnStatement.class, ifStatement.thenBody().get(0));
+        assertNull(ifStatement.elseBody());
+
+        Call call = assertInstanceOf(Call.class, assertInstanceOf(ReturnStatement.class, f.body().get(2)).value());
+        assertInstanceOf(This.class, call.target());
+        assertEquals("f", call.method().name());
+        assertEquals(2, call.arguments().size());
+
+        ConstructorDeclaration constructor = assertInstanceOf(ConstructorDeclaration.class, a.members().get(2));
+        assertEquals(List.of(), constructor.parameters());
+        assertThrows(UnsupportedOperationException.class, () -> a.members().clear());
+    }
+
+    @Test
+    void rejectsATreeThatIsNotAProgram() {
+        assertThrows(SemanticError.class,
+                () -> new AstLowering().lower(new ProgramTree(SyntaxComponent.CLASS_DECLARATION, 1, 1)));
+    }
+}
@@ -0,0 +1,69 @@
+package university.innopolis.javist.lexer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CharSourceTest {
+    private static final String PROGRAM = """
+            class Counter is
+              var count : 0
+              method add(step : Integer) : Integer is
+                count := count.Plus(step)
+                return count
+              end
+            end
+            """;
+
+    @Test
+    void readerWindowRejectsReleasedRange() {
+        ReaderCharSource source = new ReaderCharSource(new StringReader("abcdefghijklmnop"), 4);
+        assertEquals('c', source.charAt(2));
+        assertEquals("abc", source.substring(0, 3));
+
+        source.release(6);
+        assertEquals('i', source.charAt(8));
+        assertEquals("gh", source.substring(6, 8));
+        assertThrows(IllegalStateException.class, () -> source.substring(2, 8));
+        assertThrows(IllegalStateException.class, () -> source.substring(6, 15));
+    }
+
+    @Test
+    void readerGivesTheTokensOfTheWholeText() {
+        String expected = LexerGoldenTest.tokens(new Lexer(CharSource.of(PROGRAM.toCharArray())));
+        assertEquals(expected, LexerGoldenTest.tokens(new Lexer(new ReaderCharSource(new StringReader(PROGRAM), 8))));
+        assertEquals(expected, TokenBufferTest.tokens(new Lexer(new ReaderCharSource(new StringReader(PROGRAM), 8)).tokenize()));
+    }
+
+    @Test
+    void mappedAsciiFileKeepsItsText(@TempDir Path directory) throws Exception {
+        Path file = Files.writeString(directory.resolve("ascii.txt"), PROGRAM);
+        CharSource source = CharSource.map(file);
+        assertTrue(source.keepsReleased());
+        assertEquals(PROGRAM.length(), source.length());
+        assertEquals(LexerGoldenTest.tokens(new Lexer(CharSource.of(PROGRAM.toCharArray()))),
+                LexerGoldenTest.tokens(new Lexer(source)));
+    }
+
+    @Test
+    void mappedUtf8FileIsDecodedWhileRead(@TempDir Path directory) throws Exception {
+        String text = "class Zähler is\nend\n";
+        Path file = Files.write(directory.resolve("utf8.txt"), text.getBytes(StandardCharsets.UTF_8));
+        CharSource source = CharSource.map(file);
+        assertFalse(source.keepsReleased());
+        for (int i = 0; i < text.length(); i++) {
+            assertEquals(text.charAt(i), source.charAt(i));
+        }
+        assertEquals(CharSource.END, source.charAt(text.length()));
+        assertEquals("Zähler", source.substring(6, 12));
+    }
+}
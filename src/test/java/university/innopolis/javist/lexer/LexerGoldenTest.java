@@ -0,0 +1,54 @@
+package university.innopolis.javist.lexer;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import university.innopolis.javist.errors.LexerError;
+import university.innopolis.javist.syntax.TokenLexemaPair;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Lexes the example programs and a few lines of edge cases, and compares the tokens with the ones
+ * the regex lexer gave. Those are kept in {@code src/test/resources/lexer}, one line per token:
+ * the token, its line, its column and its lexeme.
+ */
+class LexerGoldenTest {
+    private static final Path GOLDEN = Path.of("src/test/resources/lexer");
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "src/main/resources/sources/Libraries.txt",
+            "src/main/resources/sources/lexerTests/CorrectTestCodeLexer.txt",
+            "src/main/resources/sources/lexerTests/WrongTestCodeLexer.txt",
+            "src/main/resources/sources/syntaxTests/CorrectTestCodeSyntax.txt",
+            "src/main/resources/sources/syntaxTests/WrongTestCodeSyntax.txt",
+            "src/main/resources/sources/SemanticTests/CorrectTestCodeSemantic.txt",
+            "src/main/resources/sources/SemanticTests/WrongTestCodeSemantic.txt",
+            "src/test/resources/lexer/Edges.txt"})
+    void matchesRegexLexer(String program) throws Exception {
+        Path golden = GOLDEN.resolve(Path.of(program).getFileName().toString().replace(".txt", ".tokens"));
+        assertEquals(Files.readString(golden), tokens(new Lexer(program)));
+    }
+
+    static String tokens(Lexer lexer) {
+        StringBuilder tokens = new StringBuilder();
+        while (true) {
+            TokenLexemaPair pair;
+            try {
+                pair = lexer.nextPair();
+            } catch (LexerError e) {
+                tokens.append("ERROR ").append(e.getMessage()).append('\n');
+                break;
+            }
+            if (pair == null) {
+                break;
+            }
+            tokens.append(pair.getToken()).append(' ').append(pair.getLine()).append(' ')
+                    .append(pair.getPosition()).append(' ').append(pair.getLexema()).append('\n');
+        }
+        return tokens.toString();
+    }
+}
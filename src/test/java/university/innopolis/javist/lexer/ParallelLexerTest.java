@@ -0,0 +1,58 @@
+package university.innopolis.javist.lexer;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Lexes texts in chunks of every size up to a few lines, so that the chunk bounds fall before, after and
+ * inside every token, and compares the tokens with the ones the {@link Lexer} gives for the whole text.
+ */
+class ParallelLexerTest {
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "src/main/resources/sources/lexerTests/CorrectTestCodeLexer.txt",
+            "src/main/resources/sources/lexerTests/WrongTestCodeLexer.txt",
+            "src/main/resources/sources/SemanticTests/CorrectTestCodeSemantic.txt",
+            "src/test/resources/lexer/Edges.txt"})
+    void matchesLexer(String program) throws Exception {
+        String text = Files.readString(Path.of(program));
+        assertMatchesLexer(text);
+        assertMatchesLexer(text.replace("\n", "\r\n"));
+        assertMatchesLexer(text.replace("\n", "\r"));
+        assertMatchesLexer("\n\n" + text.replace("\n", "\n\n\t "));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "class Long is\n  var aVeryLongNameThatSpansSeveralChunks : 123456789.987654321\nend\n",
+            "x := 1\ny := 2 ? 3\nz := 4\n",
+            "x := 1\n\n\n\ny := 2\n"})
+    void matchesLexerAcrossLongTokensAndErrors(String text) {
+        assertMatchesLexer(text);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "src/main/resources/sources/Libraries.txt",
+            "src/main/resources/sources/lexerTests/WrongTestCodeLexer.txt"})
+    void matchesLexerOnFiles(String program) {
+        ParallelLexer lexer = new ParallelLexer(ForkJoinPool.commonPool(), 64);
+        assertEquals(TokenBufferTest.tokens(new Lexer(program).tokenize()),
+                TokenBufferTest.tokens(lexer.tokenize(program)));
+    }
+
+    private static void assertMatchesLexer(String text) {
+        String expected = TokenBufferTest.tokens(new Lexer(CharSource.of(text.toCharArray())).tokenize());
+        for (int chunkSize = 1; chunkSize <= 80; chunkSize++) {
+            ParallelLexer lexer = new ParallelLexer(ForkJoinPool.commonPool(), chunkSize);
+            assertEquals(expected, TokenBufferTest.tokens(lexer.tokenize(CharSource.of(text.toCharArray()))),
+                    "chunks of " + chunkSize);
+        }
+    }
+}
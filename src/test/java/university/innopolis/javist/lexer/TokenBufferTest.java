@@ -0,0 +1,68 @@
+package university.innopolis.javist.lexer;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.errors.LexerError;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenBufferTest {
+    @Test
+    void holdsTheTokensTheLexerGives() throws Exception {
+        Path program = Path.of("src/main/resources/sources/SemanticTests/CorrectTestCodeSemantic.txt");
+        assertEquals(Files.readString(Path.of("src/test/resources/lexer/CorrectTestCodeSemantic.tokens")),
+                tokens(new Lexer(program.toString()).tokenize()));
+    }
+
+    @Test
+    void copiesLiteralsOfASourceThatDropsThem() {
+        StringBuilder source = new StringBuilder("class Numbers is\n");
+        for (int i = 0; i < 1_000; i++) {
+            source.append("  var v").append(i).append(" : ").append(i).append('.').append(i % 10).append('\n');
+        }
+        source.append("end\n");
+
+        TokenBuffer buffer = new Lexer(new ReaderCharSource(new StringReader(source.toString()), 16)).tokenize();
+
+        assertEquals(tokens(new Lexer(CharSource.of(source.toString().toCharArray())).tokenize()), tokens(buffer));
+        assertEquals("999.9", buffer.lexeme(buffer.size() - 2).toString());
+    }
+
+    @Test
+    void internsNames() {
+        TokenBuffer buffer = new Lexer(CharSource.of("count := count.Plus(Integer(1))".toCharArray())).tokenize();
+
+        assertEquals(buffer.id(0), buffer.id(2));
+        assertSame(IdentifierTable.GLOBAL.name(buffer.id(0)), buffer.lexeme(2));
+        assertEquals(IdentifierTable.GLOBAL.find("Integer"), buffer.id(6));
+        assertEquals(IdentifierTable.NO_ID, buffer.id(1));
+    }
+
+    @Test
+    void reportsTheErrorAfterTheLastToken() {
+        TokenBuffer buffer = new Lexer(CharSource.of("x := 1 ? 2".toCharArray())).tokenize();
+
+        assertEquals(3, buffer.size());
+        assertEquals("Unexpected symbol: '?'", buffer.errorMessage());
+        assertThrows(LexerError.class, () -> buffer.pair(3));
+        assertNull(new Lexer(CharSource.of("x".toCharArray())).tokenize().pair(1));
+    }
+
+    static String tokens(TokenBuffer buffer) {
+        StringBuilder tokens = new StringBuilder();
+        for (int i = 0; i < buffer.size(); i++) {
+            tokens.append(buffer.token(i)).append(' ').append(buffer.line(i)).append(' ')
+                    .append(buffer.column(i)).append(' ').append(buffer.lexeme(i)).append('\n');
+        }
+        if (!buffer.isSuccessful()) {
+            tokens.append("ERROR ").append(buffer.errorMessage()).append('\n');
+        }
+        return tokens.toString();
+    }
+}
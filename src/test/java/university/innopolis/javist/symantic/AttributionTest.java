@@ -0,0 +1,117 @@
+package university.innopolis.javist.symantic;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.GeneratedClasses;
+import university.innopolis.javist.ast.Assignment;
+import university.innopolis.javist.ast.Call;
+import university.innopolis.javist.ast.ClassDeclaration;
+import university.innopolis.javist.ast.ConstructorDeclaration;
+import university.innopolis.javist.ast.MethodDeclaration;
+import university.innopolis.javist.ast.Reference;
+import university.innopolis.javist.ast.ReturnStatement;
+import university.innopolis.javist.ast.VariableDeclaration;
+import university.innopolis.javist.symantic.symbol.ClassSymbol;
+import university.innopolis.javist.symantic.symbol.ParameterSymbol;
+import university.innopolis.javist.symantic.symbol.TypeRef;
+import university.innopolis.javist.symantic.symbol.VariableSymbol;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks what the analysis records about the nodes of a program: types, resolved calls and bound variables.
+ */
+class AttributionTest {
+    private static final String PROGRAM = """
+            class P is
+              var total : 0
+              this(start : Integer) is
+                total := start
+              end
+              method add(n : Integer) : Integer is
+                var sum : total.Plus(n)
+                total := sum
+                return sum
+              end
+            end
+            class Q is
+              method make() : Integer is
+                var p : P(2)
+                return p.add(3)
+              end
+            end
+            """;
+
+    private final SemanticAnalyzer semanticAnalyzer = GeneratedClasses.analyze(PROGRAM);
+
+    private final Attribution attribution = semanticAnalyzer.getAttribution();
+
+    private final ClassDeclaration p = semanticAnalyzer.getProgram().classes().get(0);
+
+    private final ClassDeclaration q = semanticAnalyzer.getProgram().classes().get(1);
+
+    @Test
+    void bindsFieldsEverywhereTheyAreUsed() {
+        VariableDeclaration field = (VariableDeclaration) p.members().get(0);
+        VariableSymbol total = attribution.variableOf(field);
+        Assignment assignment = (Assignment) ((ConstructorDeclaration) p.members().get(1)).body().get(0);
+        MethodDeclaration add = (MethodDeclaration) p.members().get(2);
+        Call plus = (Call) ((VariableDeclaration) add.body().get(0)).value();
+
+        assertFalse(total.isLocal());
+        assertSame(TypeRef.INTEGER, total.getType());
+        assertSame(total, attribution.variableOf(assignment));
+        assertSame(total, attribution.variableOf(plus.target()));
+        assertSame(total, attribution.variableOf(add.body().get(1)));
+    }
+
+    @Test
+    void bindsParametersAndLocalsToTheirSlots() {
+        MethodDeclaration add = (MethodDeclaration) p.members().get(2);
+        VariableDeclaration declaration = (VariableDeclaration) add.body().get(0);
+        Reference n = (Reference) ((Call) declaration.value()).arguments().get(0);
+        Reference returned = (Reference) ((ReturnStatement) add.body().get(2)).value();
+
+        VariableSymbol parameter = attribution.variableOf(n);
+        VariableSymbol sum = attribution.variableOf(declaration);
+        assertTrue(parameter.isLocal());
+        assertEquals(1, parameter.getSlot());
+        assertEquals(2, sum.getSlot());
+        assertSame(sum, attribution.variableOf(returned));
+        assertSame(TypeRef.INTEGER, attribution.typeOf(returned));
+    }
+
+    @Test
+    void resolvesMethodCalls() {
+        MethodDeclaration add = (MethodDeclaration) p.members().get(2);
+        Call plus = (Call) ((VariableDeclaration) add.body().get(0)).value();
+        Call call = (Call) ((ReturnStatement) ((MethodDeclaration) q.members().get(0)).body().get(1)).value();
+
+        ClassSymbol integer = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("Integer");
+        ClassSymbol pSymbol = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("P");
+        List<ParameterSymbol> integers = List.of(new ParameterSymbol(TypeRef.INTEGER));
+        assertSame(integer.methodLookup("Plus", integers), attribution.methodOf(plus));
+        assertSame(TypeRef.INTEGER, attribution.typeOf(plus));
+        assertSame(pSymbol.methodLookup("add", integers), attribution.methodOf(call));
+        assertNull(attribution.constructorOf(call));
+    }
+
+    @Test
+    void resolvesConstructorCalls() throws Exception {
+        Call construction = (Call) ((VariableDeclaration) ((MethodDeclaration) q.members().get(0)).body().get(0)).value();
+
+        ClassSymbol pSymbol = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("P");
+        assertSame(pSymbol.constructorLookup(List.of(new ParameterSymbol(TypeRef.INTEGER))),
+                attribution.constructorOf(construction));
+        assertNull(attribution.methodOf(construction));
+        assertSame(TypeRef.of("P"), attribution.typeOf(construction));
+
+        Class<?> generated = GeneratedClasses.load(semanticAnalyzer.getProgram(), attribution).get("Q");
+        assertEquals(5, generated.getMethod("make").invoke(generated.getConstructor().newInstance()));
+    }
+}
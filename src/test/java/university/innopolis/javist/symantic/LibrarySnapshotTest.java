@@ -0,0 +1,78 @@
+package university.innopolis.javist.symantic;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.symantic.symbol.ClassSymbol;
+import university.innopolis.javist.symantic.symbol.Symbol;
+import university.innopolis.javist.symantic.symbol.SymbolTable;
+import university.innopolis.javist.syntax.ProgramTree;
+import university.innopolis.javist.syntax.SyntaxComponent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LibrarySnapshotTest {
+    private static final Path LIBRARIES = Path.of("src/main/resources/sources/Libraries.txt");
+
+    @Test
+    void readsBackTheClassesItWrote() throws Exception {
+        byte[] libraries = Files.readAllBytes(LIBRARIES);
+        SymbolTable analyzed = analyze(libraries);
+        byte[] snapshot = snapshot(analyzed, LibrarySnapshot.hash(libraries));
+
+        List<ClassSymbol> classes = LibrarySnapshot.read(snapshot, LibrarySnapshot.hash(libraries));
+        assertEquals(analyzed.values().stream().map(Symbol::getName).toList(),
+                classes.stream().map(ClassSymbol::getName).toList());
+        for (ClassSymbol classSymbol : classes) {
+            ClassSymbol original = (ClassSymbol) analyzed.get(classSymbol.getName());
+            assertEquals(original.getMethods().size(), classSymbol.getMethods().size(), classSymbol.getName());
+            assertEquals(original.getConstructors().size(), classSymbol.getConstructors().size());
+        }
+    }
+
+    @Test
+    void rejectsASnapshotOfOtherLibraries() throws Exception {
+        byte[] libraries = Files.readAllBytes(LIBRARIES);
+        byte[] snapshot = snapshot(analyze(libraries), LibrarySnapshot.hash(libraries));
+        byte[] edited = (new String(libraries, StandardCharsets.UTF_8) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(LibrarySnapshot.isMadeFrom(snapshot, libraries));
+        assertTrue(LibrarySnapshot.isMadeFrom(snapshot, null));
+        assertFalse(LibrarySnapshot.isMadeFrom(snapshot, edited));
+        assertFalse(LibrarySnapshot.isMadeFrom(new byte[3], libraries));
+        assertThrows(IOException.class, () -> LibrarySnapshot.read(snapshot, LibrarySnapshot.hash(edited)));
+    }
+
+    @Test
+    void loadsTheBundledSnapshot() {
+        SymbolTable symbolTable = new SymbolTable();
+
+        assertTrue(LibrarySnapshot.load(symbolTable));
+        ClassSymbol integer = (ClassSymbol) symbolTable.get("Integer");
+        assertNotNull(integer);
+        assertFalse(integer.isLoaded());
+        assertFalse(integer.getMethods().isEmpty());
+    }
+
+    private static SymbolTable analyze(byte[] libraries) {
+        SemanticAnalyzer analyzer = new SemanticAnalyzer(new ProgramTree(SyntaxComponent.PROGRAM, 0, 0));
+        analyzer.analyzePredefinedLibraries(new String(libraries, StandardCharsets.UTF_8).toCharArray());
+        return analyzer.getSymbolTable();
+    }
+
+    private static byte[] snapshot(SymbolTable symbolTable, long hash) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        LibrarySnapshot.write(symbolTable, hash, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,90 @@
+package university.innopolis.javist.symantic;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.symantic.symbol.TypeRef;
+import university.innopolis.javist.symantic.symbol.VariableSymbol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScopeTest {
+    @Test
+    void givesSlotsAfterThis() {
+        Scope scope = new Scope();
+        VariableSymbol x = scope.declare("x", TypeRef.INTEGER);
+        VariableSymbol r = scope.declare("r", TypeRef.REAL);
+        VariableSymbol b = scope.declare("b", TypeRef.BOOLEAN);
+
+        assertEquals(1, x.getSlot());
+        assertEquals(2, r.getSlot());
+        assertEquals(4, b.getSlot());
+        assertEquals(5, scope.getMaxSlots());
+    }
+
+    @Test
+    void dropsTheVariablesOfABlockAndReusesTheirSlots() {
+        Scope scope = new Scope();
+        VariableSymbol x = scope.declare("x", TypeRef.INTEGER);
+
+        scope.enter();
+        VariableSymbol y = scope.declare("y", TypeRef.REAL);
+        assertEquals(1, scope.getLevel());
+        assertSame(y, scope.variableLookup("y"));
+        scope.exit();
+
+        assertEquals(0, scope.getLevel());
+        assertFalse(scope.isExist("y"));
+        assertSame(x, scope.variableLookup("x"));
+
+        scope.enter();
+        VariableSymbol z = scope.declare("z", TypeRef.INTEGER);
+        scope.exit();
+
+        assertEquals(y.getSlot(), z.getSlot());
+        assertEquals(4, scope.getMaxSlots());
+    }
+
+    @Test
+    void findsTheInnermostVariableOfAName() {
+        Scope scope = new Scope();
+        VariableSymbol outer = scope.declare("x", TypeRef.INTEGER);
+
+        scope.enter();
+        VariableSymbol inner = scope.declare("x", TypeRef.BOOLEAN);
+        assertSame(inner, scope.variableLookup("x"));
+        scope.exit();
+
+        assertSame(outer, scope.variableLookup("x"));
+    }
+
+    @Test
+    void keepsManyNamesAcrossNestedBlocks() {
+        Scope scope = new Scope();
+        VariableSymbol[] variables = new VariableSymbol[100];
+        for (int i = 0; i < variables.length; i++) {
+            scope.enter();
+            variables[i] = scope.declare("v" + i, TypeRef.INTEGER);
+        }
+        for (int i = 0; i < variables.length; i++) {
+            assertSame(variables[i], scope.variableLookup("v" + i));
+            assertEquals(i + 1, variables[i].getSlot());
+        }
+        for (int i = variables.length - 1; i >= 0; i--) {
+            scope.exit();
+            assertFalse(scope.isExist("v" + i));
+            assertTrue(i == 0 || scope.isExist("v" + (i - 1)));
+        }
+        assertEquals(variables.length + 1, scope.getMaxSlots());
+    }
+
+    @Test
+    void doesNotFindUnknownNames() {
+        Scope scope = new Scope();
+
+        assertNull(scope.variableLookup("neverDeclaredAnywhere"));
+        assertNull(scope.variableLookup(-1));
+    }
+}
@@ -0,0 +1,77 @@
+package university.innopolis.javist.symantic;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.GeneratedClasses;
+import university.innopolis.javist.errors.SemanticError;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks where a class name may stand: applied to arguments or alone as the value of a variable declaration,
+ * and nowhere a value is needed, as a class has none.
+ */
+class SemanticAnalyzerClassReferenceTest {
+    @Test
+    void rejectsACallOnAClass() {
+        SemanticError error = assertThrows(SemanticError.class, () -> GeneratedClasses.analyze("""
+                class B is
+                  method k() : Integer is
+                    return 1
+                  end
+                end
+                class A is
+                  method f() : Integer is
+                    return B.k()
+                  end
+                end
+                """));
+        assertEquals("Class B is not a value. Line: 8, Column: 13.", error.getMessage());
+    }
+
+    @Test
+    void rejectsAClassAsAnArgument() {
+        SemanticError error = assertThrows(SemanticError.class, () -> GeneratedClasses.analyze("""
+                class A is
+                  method f() : Integer is
+                    return 1.Plus(Integer)
+                  end
+                end
+                """));
+        assertEquals("Class Integer is not a value. Line: 3, Column: 26.", error.getMessage());
+    }
+
+    @Test
+    void rejectsAClassAsAValue() {
+        SemanticError error = assertThrows(SemanticError.class, () -> GeneratedClasses.analyze("""
+                class A is
+                  var x : Integer
+                  method f() : Integer is
+                    x := Integer
+                    return x
+                  end
+                end
+                """));
+        assertEquals("Class Integer is not a value. Line: 4, Column: 17.", error.getMessage());
+    }
+
+    @Test
+    void acceptsClassesAppliedToArgumentsAndDeclaringVariables() throws Exception {
+        Class<?> a = GeneratedClasses.compile("""
+                class A is
+                  var x : Integer
+                  method g() : Integer is
+                    return 1
+                  end
+                  method f(n : Integer) : Integer is
+                    var y : Integer
+                    var other : A()
+                    y := Integer(n)
+                    return other.g().Plus(y).Plus(x)
+                  end
+                end
+                """).get("A");
+
+        assertEquals(3, a.getMethod("f", int.class).invoke(a.getConstructor().newInstance(), 2));
+    }
+}
@@ -0,0 +1,60 @@
+package university.innopolis.javist.symantic;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.GeneratedClasses;
+import university.innopolis.javist.errors.SemanticError;
+import university.innopolis.javist.symantic.symbol.ClassSymbol;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Links the classes of a program and of the libraries to their parents, named in brackets after the class name.
+ */
+class SemanticAnalyzerHierarchyTest {
+    @Test
+    void linksLibraryClassesToTheirParents() {
+        SemanticAnalyzer semanticAnalyzer = GeneratedClasses.analyze("");
+
+        ClassSymbol integer = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("Integer");
+        assertSame(semanticAnalyzer.getSymbolTable().get("AnyValue"), integer.getParentClass());
+        assertSame(semanticAnalyzer.getSymbolTable().get("Class"), integer.getParentClass().getParentClass());
+    }
+
+    @Test
+    void resolvesInheritedMethods() {
+        SemanticAnalyzer semanticAnalyzer = GeneratedClasses.analyze("""
+                class A is
+                  method f() : Integer is
+                    return 1
+                  end
+                end
+                class B[A] is
+                  method g() : Integer is
+                    return this.f()
+                  end
+                end
+                """);
+
+        ClassSymbol a = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("A");
+        ClassSymbol b = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("B");
+        assertSame(a, b.getParentClass());
+        assertSame(a.methodLookup("f", List.of()), b.methodLookup("f", List.of()));
+    }
+
+    @Test
+    void rejectsACycle() {
+        SemanticError error = assertThrows(SemanticError.class, () -> GeneratedClasses.analyze("""
+                class A[C] is
+                end
+                class B[A] is
+                end
+                class C[B] is
+                end
+                """));
+        assertEquals("Class A inherits from itself. Line: 1, Column: 5.", error.getMessage());
+    }
+}
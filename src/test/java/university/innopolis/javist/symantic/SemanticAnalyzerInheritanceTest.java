@@ -0,0 +1,161 @@
+package university.innopolis.javist.symantic;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.GeneratedClasses;
+import university.innopolis.javist.errors.SemanticError;
+import university.innopolis.javist.symantic.symbol.ClassSymbol;
+import university.innopolis.javist.symantic.symbol.ParameterSymbol;
+import university.innopolis.javist.symantic.symbol.TypeRef;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Analyzes and generates classes that extend other classes with {@code extends}.
+ */
+class SemanticAnalyzerInheritanceTest {
+    private static final String PROGRAM = """
+            class A is
+              var x : 1
+              method f() : Integer is
+                return x
+              end
+            end
+            class B extends A is
+              var y : 2
+              this() is
+              end
+              this(n : Integer) is
+                x := n
+              end
+              method g() : Integer is
+                return this.f().Plus(y)
+              end
+            end
+            class C extends B is
+              this() is
+              end
+              method h() : Integer is
+                return this.g().Plus(x)
+              end
+            end
+            """;
+
+    @Test
+    void generatesSubclassesOfTheirParents() throws Exception {
+        Map<String, Class<?>> classes = GeneratedClasses.compile(PROGRAM);
+        Class<?> a = classes.get("A");
+        Class<?> b = classes.get("B");
+
+        assertSame(a, b.getSuperclass());
+        assertSame(b, classes.get("C").getSuperclass());
+
+        Object instance = b.getConstructor(int.class).newInstance(5);
+        assertEquals(5, b.getMethod("f").invoke(instance));
+        assertEquals(7, b.getMethod("g").invoke(instance));
+    }
+
+    @Test
+    void initializesTheFieldsOfEveryAncestor() throws Exception {
+        Class<?> c = GeneratedClasses.compile("""
+                class A is
+                  var x : 1
+                end
+                class B extends A is
+                  var y : 2
+                end
+                class C extends B is
+                  method h() : Integer is
+                    return x.Plus(y)
+                  end
+                end
+                """).get("C");
+
+        assertEquals(3, c.getMethod("h").invoke(c.getConstructor().newInstance()));
+    }
+
+    @Test
+    void checksParentsDeclaredAfterTheirSubclasses() throws Exception {
+        Class<?> b = GeneratedClasses.compile("""
+                class B extends A is
+                  var y : x.Plus(1)
+                  method g() : Integer is
+                    return this.f().Plus(y)
+                  end
+                end
+                class A is
+                  var x : 1
+                  method f() : Integer is
+                    return x
+                  end
+                end
+                """).get("B");
+
+        assertEquals(3, b.getMethod("g").invoke(b.getConstructor().newInstance()));
+    }
+
+    @Test
+    void analyzesSubclassesOnUpdate() throws Exception {
+        SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(GeneratedClasses.parse(""));
+        semanticAnalyzer.analyzePredefinedLibraries();
+        semanticAnalyzer.update(GeneratedClasses.parse(PROGRAM));
+
+        Class<?> b = GeneratedClasses.load(semanticAnalyzer.getProgram(), semanticAnalyzer.getAttribution()).get("B");
+        assertEquals(7, b.getMethod("g").invoke(b.getConstructor(int.class).newInstance(5)));
+
+        String changed = PROGRAM.replace("method f() : Integer is\n    return x", "method f() : Real is\n    return 1.5");
+        SemanticError error = assertThrows(SemanticError.class,
+                () -> semanticAnalyzer.update(GeneratedClasses.parse(changed)));
+        assertEquals("Unexpected return statement of type Real, expected: Integer. Line: 15, Column: 11.", error.getMessage());
+    }
+
+    @Test
+    void doesNotInheritConstructors() {
+        SemanticAnalyzer semanticAnalyzer = GeneratedClasses.analyze(PROGRAM);
+        ClassSymbol a = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("A");
+        ClassSymbol b = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("B");
+
+        assertNotNull(a.constructorLookup(List.of()));
+        assertNull(a.constructorLookup(List.of(new ParameterSymbol(TypeRef.INTEGER))));
+        assertNotNull(b.constructorLookup(List.of(new ParameterSymbol(TypeRef.INTEGER))));
+    }
+
+    @Test
+    void rejectsExtendingAPredefinedClass() {
+        SemanticError error = assertThrows(SemanticError.class, () -> GeneratedClasses.analyze("""
+                class Foo extends Integer is
+                end
+                """));
+        assertEquals("Class Foo cannot extend Integer: only classes of the program can be extended. "
+                + "Line: 1, Column: 25.", error.getMessage());
+    }
+
+    @Test
+    void rejectsExtendingAnUndefinedClass() {
+        SemanticError error = assertThrows(SemanticError.class, () -> GeneratedClasses.analyze("""
+                class Foo extends Bar is
+                end
+                """));
+        assertEquals("Type Bar not defined. Line: 1, Column: 21.", error.getMessage());
+    }
+
+    @Test
+    void rejectsAParentWithoutAConstructorToCall() {
+        SemanticError error = assertThrows(SemanticError.class, () -> GeneratedClasses.analyze("""
+                class A is
+                  this(n : Integer) is
+                  end
+                end
+                class B extends A is
+                end
+                """));
+        assertEquals("Class B cannot extend A: A has no constructor without parameters. Line: 5, Column: 18.",
+                error.getMessage());
+    }
+}
@@ -0,0 +1,80 @@
+package university.innopolis.javist.symantic;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.GeneratedClasses;
+import university.innopolis.javist.ast.Call;
+import university.innopolis.javist.ast.ClassDeclaration;
+import university.innopolis.javist.ast.Expression;
+import university.innopolis.javist.ast.MethodDeclaration;
+import university.innopolis.javist.ast.ReturnStatement;
+import university.innopolis.javist.ast.VariableDeclaration;
+import university.innopolis.javist.symantic.symbol.ClassSymbol;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Analyzes the bodies of many classes in parallel while the library classes they use are loaded,
+ * and checks that every call of the program is resolved and that the classes nobody uses stay unloaded.
+ */
+class SemanticAnalyzerLazyLibrariesTest {
+    private static final int LIBRARY_CLASSES = 20;
+
+    private static final int CLASSES = 64;
+
+    @Test
+    void loadsLibraryClassesWhileBodiesAreCheckedInParallel() throws Exception {
+        StringBuilder libraries = new StringBuilder(Files.readString(Path.of("src/main/resources/sources/Libraries.txt")));
+        for (int i = 0; i < LIBRARY_CLASSES; i++) {
+            libraries.append("\nclass Library").append(i).append(" is\n")
+                    .append("  var base : Integer(").append(i).append(")\n")
+                    .append("  method value(x : Integer) : Integer is\n")
+                    .append("    var doubled : x.Mult(2)\n")
+                    .append("    return doubled.Plus(base)\n")
+                    .append("  end\n")
+                    .append("end\n");
+        }
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < CLASSES; i++) {
+            source.append("class User").append(i).append(" is\n")
+                    .append("  method f(x : Integer) : Integer is\n")
+                    .append("    var library : Library").append(i % (LIBRARY_CLASSES - 1)).append("()\n")
+                    .append("    return library.value(x).Plus(1)\n")
+                    .append("  end\n")
+                    .append("end\n");
+        }
+
+        for (int run = 0; run < 10; run++) {
+            SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(GeneratedClasses.parse(source.toString()));
+            semanticAnalyzer.setParallel(true);
+            semanticAnalyzer.analyzePredefinedLibraries(libraries.toString().toCharArray());
+            semanticAnalyzer.analyze();
+
+            Attribution attribution = semanticAnalyzer.getAttribution();
+            for (ClassDeclaration declaration : semanticAnalyzer.getProgram().classes()) {
+                MethodDeclaration method = (MethodDeclaration) declaration.members().get(0);
+                Call constructor = (Call) ((VariableDeclaration) method.body().get(0)).value();
+                Call plus = (Call) ((ReturnStatement) method.body().get(1)).value();
+                Call value = (Call) plus.target();
+                assertNotNull(attribution.methodOf(plus));
+                assertEquals("value", attribution.methodOf(value).getName());
+                assertTrue(typeName(attribution, constructor).startsWith("Library"));
+                assertEquals("Integer", typeName(attribution, plus));
+            }
+
+            ClassSymbol used = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("Library0");
+            ClassSymbol unused = (ClassSymbol) semanticAnalyzer.getSymbolTable().get("Library" + (LIBRARY_CLASSES - 1));
+            assertTrue(used.isLoaded());
+            assertFalse(unused.isLoaded());
+        }
+    }
+
+    private static String typeName(Attribution attribution, Expression expression) {
+        return attribution.typeOf(expression).getName();
+    }
+}
@@ -0,0 +1,122 @@
+package university.innopolis.javist.symantic;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.GeneratedClasses;
+import university.innopolis.javist.JVMByteCodeGenerator;
+import university.innopolis.javist.ast.ClassDeclaration;
+import university.innopolis.javist.errors.SemanticError;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Analyzes programs with the bodies checked in parallel and compares the code generated from the attribution,
+ * and the error reported, with the ones of a sequential analysis.
+ */
+class SemanticAnalyzerParallelTest {
+    @Test
+    void generatesTheSameCodeAsSequentialAnalysis() throws Exception {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            source.append("class C").append(i).append(" is\n")
+                    .append("  var x : ").append(i).append('\n')
+                    .append("  method f(n : Integer) : Integer is\n")
+                    .append("    var y : n.Plus(x)\n")
+                    .append("    while y > 0 loop\n")
+                    .append("      y := y.Minus(1)\n")
+                    .append("    end\n")
+                    .append("    return y\n")
+                    .append("  end\n");
+            if (i > 0) {
+                source.append("  method g() : Integer is\n")
+                        .append("    var other : C").append(i - 1).append("()\n")
+                        .append("    return other.f(x)\n")
+                        .append("  end\n");
+            }
+            source.append("end\n");
+        }
+
+        Map<String, byte[]> sequential = generate(analyze(source.toString(), false));
+        Map<String, byte[]> parallel = generate(analyze(source.toString(), true));
+
+        assertEquals(sequential.keySet(), parallel.keySet());
+        for (String name : sequential.keySet()) {
+            assertArrayEquals(sequential.get(name), parallel.get(name), name);
+        }
+    }
+
+    @Test
+    void letsABodyCallAMethodDeclaredAfterIt() {
+        String source = """
+                class A is
+                  method f() : Integer is
+                    return this.g()
+                  end
+                  method g() : Integer is
+                    return 1
+                  end
+                end
+                """;
+
+        analyze(source, true);
+        assertEquals("Cannot resolve method g. Line: 3, Column: 19.",
+                assertThrows(SemanticError.class, () -> analyze(source, false)).getMessage());
+    }
+
+    @Test
+    void reportsTheErrorOfTheFirstClassEveryTime() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 64; i++) {
+            source.append("class C").append(i).append(" is\n")
+                    .append("  method f() : Integer is\n")
+                    .append("    return undefined").append(i).append('\n')
+                    .append("  end\n")
+                    .append("end\n");
+        }
+        String expected = assertThrows(SemanticError.class, () -> analyze(source.toString(), false)).getMessage();
+
+        for (int run = 0; run < 20; run++) {
+            assertEquals(expected,
+                    assertThrows(SemanticError.class, () -> analyze(source.toString(), true)).getMessage());
+        }
+    }
+
+    @Test
+    void reportsDeclarationErrorsBeforeBodyErrors() {
+        SemanticError error = assertThrows(SemanticError.class, () -> analyze("""
+                class A is
+                  method f() : Integer is
+                    return undefined
+                  end
+                end
+                class B is
+                  method g() : Undefined is
+                    return 1
+                  end
+                end
+                """, true));
+
+        assertEquals("Type Undefined not defined. Line: 13, Column: 0.", error.getMessage());
+    }
+
+    private static SemanticAnalyzer analyze(String source, boolean parallel) {
+        SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(GeneratedClasses.parse(source));
+        semanticAnalyzer.setParallel(parallel);
+        semanticAnalyzer.analyzePredefinedLibraries();
+        semanticAnalyzer.analyze();
+        return semanticAnalyzer;
+    }
+
+    private static Map<String, byte[]> generate(SemanticAnalyzer semanticAnalyzer) throws Exception {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (ClassDeclaration declaration : semanticAnalyzer.getProgram().classes()) {
+            classes.put(declaration.name().name().name(),
+                    JVMByteCodeGenerator.generateClass(declaration, semanticAnalyzer.getAttribution()));
+        }
+        return classes;
+    }
+}
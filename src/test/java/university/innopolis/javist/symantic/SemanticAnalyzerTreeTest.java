@@ -0,0 +1,71 @@
+package university.innopolis.javist.symantic;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.GeneratedClasses;
+import university.innopolis.javist.errors.SemanticError;
+import university.innopolis.javist.syntax.ProgramTree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the analyzer only reads the tree it is given, so one tree can be analyzed again without copying it.
+ */
+class SemanticAnalyzerTreeTest {
+    private static final String PROGRAM = """
+            class A is
+              var total : Integer(0)
+              method add(x : Integer, y : Integer) : Integer is
+                var sum : x.Plus(y).Mult(2)
+                while sum.Greater(10) loop
+                  sum := sum.Minus(1)
+                end
+                return sum
+              end
+            end
+            """;
+
+    @Test
+    void leavesTheTreeAsItWas() {
+        ProgramTree tree = GeneratedClasses.parse(PROGRAM);
+        String printed = tree(tree);
+
+        SemanticAnalyzer first = analyze(tree);
+        assertEquals(printed, tree(tree));
+
+        SemanticAnalyzer second = analyze(tree);
+        assertEquals(first.getProgram(), second.getProgram());
+        assertEquals(printed, tree(tree));
+    }
+
+    @Test
+    void leavesTheTreeAsItWasOnAnError() {
+        ProgramTree tree = GeneratedClasses.parse(PROGRAM.replace("sum.Minus(1)", "sum.Minus(true)"));
+        String printed = tree(tree);
+
+        assertThrows(SemanticError.class, () -> analyze(tree));
+        assertEquals(printed, tree(tree));
+        assertThrows(SemanticError.class, () -> analyze(tree));
+    }
+
+    private static SemanticAnalyzer analyze(ProgramTree tree) {
+        SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(tree);
+        semanticAnalyzer.analyzePredefinedLibraries();
+        semanticAnalyzer.analyze();
+        return semanticAnalyzer;
+    }
+
+    private static String tree(ProgramTree root) {
+        StringBuilder tree = new StringBuilder();
+        print(root, 0, tree);
+        return tree.toString();
+    }
+
+    private static void print(ProgramTree node, int depth, StringBuilder tree) {
+        tree.append("  ".repeat(depth)).append(node).append(node.getLine()).append(':').append(node.getColumn())
+                .append('\n');
+        for (int i = 0; i < node.getChildrenCount(); i++) {
+            print(node.getChild(i), depth + 1, tree);
+        }
+    }
+}
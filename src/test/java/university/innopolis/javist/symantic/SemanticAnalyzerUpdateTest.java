@@ -0,0 +1,47 @@
+package university.innopolis.javist.symantic;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.GeneratedClasses;
+import university.innopolis.javist.ast.ClassDeclaration;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SemanticAnalyzerUpdateTest {
+    private static final String A = """
+            class A is
+              method f(x : Integer) : Integer is
+                return x + 1
+              end
+            end
+            """;
+
+    @Test
+    void generatesCodeForKeptClassesAfterUpdate() throws Exception {
+        SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(GeneratedClasses.parse(""));
+        semanticAnalyzer.analyzePredefinedLibraries();
+        semanticAnalyzer.update(GeneratedClasses.parse(A + """
+                class B is
+                  method g(y : Integer) : Boolean is
+                    return y > 2
+                  end
+                end
+                """));
+        ClassDeclaration a = semanticAnalyzer.getProgram().classes().get(0);
+
+        semanticAnalyzer.update(GeneratedClasses.parse(A + """
+                class B is
+                  method g(y : Integer) : Boolean is
+                    return y < 2
+                  end
+                end
+                """));
+
+        assertSame(a, semanticAnalyzer.getProgram().classes().get(0));
+        Map<String, Class<?>> classes = GeneratedClasses.load(semanticAnalyzer.getProgram(), semanticAnalyzer.getAttribution());
+        assertEquals(int.class, classes.get("A").getMethod("f", int.class).getReturnType());
+        assertEquals(boolean.class, classes.get("B").getMethod("g", int.class).getReturnType());
+    }
+}
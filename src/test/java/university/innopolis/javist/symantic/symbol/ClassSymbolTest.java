@@ -0,0 +1,58 @@
+package university.innopolis.javist.symantic.symbol;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ClassSymbolTest {
+    private static final List<ParameterSymbol> INTEGER = List.of(new ParameterSymbol(TypeRef.INTEGER));
+
+    @Test
+    void findsInheritedMembersNearestFirst() {
+        ClassSymbol top = new ClassSymbol("Top", null);
+        ClassSymbol middle = new ClassSymbol("Middle", "Top");
+        ClassSymbol bottom = new ClassSymbol("Bottom", "Middle");
+        middle.setParentClass(top);
+        bottom.setParentClass(middle);
+
+        MethodSymbol topF = new MethodSymbol("f", TypeRef.INTEGER, INTEGER);
+        MethodSymbol topG = new MethodSymbol("g", TypeRef.INTEGER, INTEGER);
+        MethodSymbol middleF = new MethodSymbol("f", TypeRef.REAL, INTEGER);
+        top.addMethod(topF);
+        top.addMethod(topG);
+        middle.addMethod(middleF);
+        VariableSymbol field = new VariableSymbol("field", TypeRef.INTEGER);
+        top.addVariable(field);
+
+        assertSame(middleF, bottom.methodLookup("f", INTEGER));
+        assertSame(topG, bottom.methodLookup("g", INTEGER));
+        assertSame(topF, top.methodLookup("f", INTEGER));
+        assertSame(field, bottom.variableLookup("field"));
+        assertNull(top.methodLookup("h", INTEGER));
+    }
+
+    @Test
+    void seesMembersAddedAndParentsChangedAfterALookup() {
+        ClassSymbol parent = new ClassSymbol("Parent", null);
+        ClassSymbol child = new ClassSymbol("Child", "Parent");
+        ClassSymbol grandchild = new ClassSymbol("Grandchild", "Child");
+        child.setParentClass(parent);
+        grandchild.setParentClass(child);
+        assertNull(grandchild.methodLookup("late", INTEGER));
+
+        MethodSymbol late = new MethodSymbol("late", TypeRef.INTEGER, INTEGER);
+        parent.addMethod(late);
+        assertSame(late, grandchild.methodLookup("late", INTEGER));
+
+        MethodSymbol closer = new MethodSymbol("late", TypeRef.BOOLEAN, INTEGER);
+        child.addMethod(closer);
+        assertSame(closer, grandchild.methodLookup("late", INTEGER));
+
+        child.setParentClass(null);
+        grandchild.setParentClass(parent);
+        assertSame(late, grandchild.methodLookup("late", INTEGER));
+    }
+}
@@ -0,0 +1,50 @@
+package university.innopolis.javist.symantic.symbol;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.lexer.IdentifierTable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SignatureTest {
+    private static final int PLUS = IdentifierTable.GLOBAL.intern("Plus");
+
+    @Test
+    void equalsBySameNameAndParameterTypes() {
+        Signature integer = Signature.of(PLUS, List.of(new ParameterSymbol(TypeRef.INTEGER)));
+
+        assertEquals(integer, Signature.of(PLUS, List.of(new ParameterSymbol("other", TypeRef.INTEGER))));
+        assertEquals(integer.hashCode(), Signature.of(PLUS, List.of(new ParameterSymbol(TypeRef.INTEGER))).hashCode());
+        assertNotEquals(integer, Signature.of(PLUS, List.of(new ParameterSymbol(TypeRef.REAL))));
+        assertNotEquals(integer, Signature.of(PLUS, List.of()));
+        assertNotEquals(integer, Signature.of(IdentifierTable.NO_ID, List.of(new ParameterSymbol(TypeRef.INTEGER))));
+        assertSame(integer.intern(), Signature.of(PLUS, List.of(new ParameterSymbol(TypeRef.INTEGER))).intern());
+    }
+
+    @Test
+    void resolvesOverloadsByParameterTypes() {
+        ClassSymbol number = new ClassSymbol("SignatureNumber", null);
+        MethodSymbol plusInteger = new MethodSymbol("Plus", TypeRef.INTEGER, List.of(new ParameterSymbol("p", TypeRef.INTEGER)));
+        MethodSymbol plusReal = new MethodSymbol("Plus", TypeRef.REAL, List.of(new ParameterSymbol("p", TypeRef.REAL)));
+        number.addMethod(plusInteger);
+        number.addMethod(plusReal);
+        number.addMethod(new MethodSymbol("Plus", TypeRef.BOOLEAN, List.of(new ParameterSymbol("q", TypeRef.INTEGER))));
+        ConstructorSymbol empty = new ConstructorSymbol(List.of());
+        number.addConstructor(empty);
+
+        assertSame(plusInteger, number.methodLookup("Plus", List.of(new ParameterSymbol(TypeRef.INTEGER))));
+        assertSame(plusReal, number.methodLookup("Plus", List.of(new ParameterSymbol(TypeRef.REAL))));
+        assertNull(number.methodLookup("Plus", List.of(new ParameterSymbol(TypeRef.BOOLEAN))));
+        assertNull(number.methodLookup("Minus", List.of(new ParameterSymbol(TypeRef.INTEGER))));
+        assertSame(empty, number.constructorLookup(List.of()));
+        assertNull(number.constructorLookup(List.of(new ParameterSymbol(TypeRef.INTEGER))));
+
+        assertEquals(2, number.getMethods().size());
+        assertThrows(UnsupportedOperationException.class, () -> number.getMethods().clear());
+    }
+}
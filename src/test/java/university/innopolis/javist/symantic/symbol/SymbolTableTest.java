@@ -0,0 +1,71 @@
+package university.innopolis.javist.symantic.symbol;
+
+import org.junit.jupiter.api.Test;
+import university.innopolis.javist.lexer.IdentifierTable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SymbolTableTest {
+    @Test
+    void findsTheSymbolsOfNamesInternedLongApart() {
+        SymbolTable symbolTable = new SymbolTable();
+        List<ClassSymbol> classes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            IdentifierTable.GLOBAL.intern("Unused" + i);
+            ClassSymbol classSymbol = new ClassSymbol("Table" + i, null);
+            symbolTable.put(classSymbol.getName(), classSymbol);
+            classes.add(classSymbol);
+        }
+
+        for (ClassSymbol classSymbol : classes) {
+            assertSame(classSymbol, symbolTable.get(classSymbol.getName()));
+            assertSame(classSymbol, symbolTable.get(classSymbol.getId()));
+        }
+        assertNull(symbolTable.get("Unused0"));
+        assertNull(symbolTable.get("NeverInterned"));
+        assertNull(symbolTable.get(IdentifierTable.NO_ID));
+        assertEquals(classes, symbolTable.values());
+    }
+
+    @Test
+    void replacesAndRemovesSymbols() {
+        SymbolTable symbolTable = new SymbolTable();
+        ClassSymbol first = new ClassSymbol("First", null);
+        ClassSymbol second = new ClassSymbol("Second", null);
+        ClassSymbol third = new ClassSymbol("Third", null);
+        symbolTable.put("First", first);
+        symbolTable.put("Second", second);
+        symbolTable.put("Third", third);
+
+        ClassSymbol other = new ClassSymbol("Second", "First");
+        symbolTable.put("Second", other);
+        assertSame(other, symbolTable.get("Second"));
+
+        symbolTable.put(first.getId(), null);
+        assertNull(symbolTable.get("First"));
+        assertSame(third, symbolTable.get("Third"));
+        assertEquals(new HashSet<>(List.of(other, third)), new HashSet<>(symbolTable.values()));
+
+        symbolTable.put("First", first);
+        assertSame(first, symbolTable.get("First"));
+        assertEquals(3, symbolTable.values().size());
+    }
+
+    @Test
+    void cannotBeChangedWhileFrozen() {
+        SymbolTable symbolTable = new SymbolTable();
+        symbolTable.freeze();
+
+        assertThrows(IllegalStateException.class, () -> symbolTable.put("Frozen", new ClassSymbol("Frozen", null)));
+        symbolTable.unfreeze();
+        symbolTable.put("Frozen", new ClassSymbol("Frozen", null));
+        assertEquals("Frozen", symbolTable.get("Frozen").getName());
+    }
+}
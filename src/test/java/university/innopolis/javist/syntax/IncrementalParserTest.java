@@ -0,0 +1,136 @@
+package university.innopolis.javist.syntax;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import university.innopolis.javist.errors.LexerError;
+import university.innopolis.javist.errors.SyntaxError;
+import university.innopolis.javist.lexer.CharSource;
+import university.innopolis.javist.lexer.Lexer;
+import university.innopolis.javist.lexer.TextEdit;
+import university.innopolis.javist.lexer.TokenBuffer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Edits the example programs over and over and compares the tokens and the tree {@link IncrementalParser} gives
+ * after every edit with the ones of a full parse of the edited text, the lines and columns of every node included.
+ * An edit that breaks the program is taken back by the next one, so most edits are made to a valid program.
+ */
+class IncrementalParserTest {
+    private static final String[] INSERTIONS = {
+            "\n", "\n\n", "  ", "x", "1", ".", "(", ")", " end", "var", "\n    var added : Integer\n",
+            "\n    method added() : Integer is\n        return 1\n    end\n", "\nclass Added is\nend\n"};
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "src/main/resources/sources/Libraries.txt",
+            "src/main/resources/sources/SemanticTests/CorrectTestCodeSemantic.txt"})
+    void matchesFullReparse(String program) throws Exception {
+        String text = Files.readString(Path.of(program));
+        IncrementalParser parser = new IncrementalParser(tokenize(text));
+        parser.makeTree();
+
+        Random random = new Random(7);
+        TextEdit undo = null;
+        for (int i = 0; i < 400; i++) {
+            TextEdit edit = undo != null ? undo : randomEdit(text, random);
+            String edited = text.substring(0, edit.offset()) + edit.inserted() + text.substring(edit.end());
+            String expected = parse(() -> new SyntaxAnalyzer(tokenize(edited)).makeTree());
+
+            assertEquals(expected, parse(() -> parser.update(edit)), "edit " + i + ": " + edit);
+            assertEquals(tokens(tokenize(edited)), tokens(parser.getTokens()), "edit " + i + ": " + edit);
+
+            undo = undo == null && expected.startsWith("ERROR")
+                    ? new TextEdit(edit.offset(), edit.inserted().length(), text.substring(edit.offset(), edit.end()))
+                    : null;
+            text = edited;
+        }
+    }
+
+    @Test
+    void keepsTheOldTree() {
+        String text = """
+                class A is
+                  method f() : Integer is
+                    return 1
+                  end
+                  method g() : Integer is
+                    return 2
+                  end
+                end
+                class B is
+                end
+                """;
+        IncrementalParser parser = new IncrementalParser(tokenize(text));
+        ProgramTree before = parser.makeTree();
+        String printed = tree(before);
+
+        int offset = text.indexOf("return 1");
+        ProgramTree after = parser.update(new TextEdit(offset, 0, "var x : Integer\n    "));
+        text = text.substring(0, offset) + "var x : Integer\n    " + text.substring(offset);
+
+        assertEquals(printed, tree(before));
+        assertEquals(tree(new SyntaxAnalyzer(tokenize(text)).makeTree()), tree(after));
+
+        ProgramTree last = parser.update(new TextEdit(text.indexOf("return 2") + 7, 1, "22"));
+
+        assertSame(after.getChild(0).getChild(3).getChild(0), last.getChild(0).getChild(3).getChild(0));
+        assertSame(after.getChild(1), last.getChild(1));
+    }
+
+    private static TextEdit randomEdit(String text, Random random) {
+        int offset = random.nextInt(text.length() + 1);
+        return switch (random.nextInt(3)) {
+            case 0 -> new TextEdit(offset, 0, INSERTIONS[random.nextInt(INSERTIONS.length)]);
+            case 1 -> new TextEdit(offset, Math.min(random.nextInt(12), text.length() - offset), "");
+            default -> new TextEdit(offset, Math.min(random.nextInt(4), text.length() - offset),
+                    INSERTIONS[random.nextInt(INSERTIONS.length)]);
+        };
+    }
+
+    private static TokenBuffer tokenize(String text) {
+        return new Lexer(CharSource.of(text.toCharArray())).tokenize();
+    }
+
+    private static String parse(Supplier<ProgramTree> parse) {
+        try {
+            return tree(parse.get());
+        } catch (LexerError | SyntaxError e) {
+            return "ERROR " + e.getClass().getSimpleName() + " " + e.getMessage();
+        }
+    }
+
+    private static String tokens(TokenBuffer buffer) {
+        StringBuilder tokens = new StringBuilder();
+        for (int i = 0; i < buffer.size(); i++) {
+            tokens.append(buffer.token(i)).append(' ').append(buffer.start(i)).append('-').append(buffer.end(i))
+                    .append(' ').append(buffer.line(i)).append(':').append(buffer.column(i))
+                    .append(' ').append(buffer.lexeme(i)).append('\n');
+        }
+        return tokens.append(buffer.errorMessage()).toString();
+    }
+
+    private static String tree(ProgramTree root) {
+        StringBuilder tree = new StringBuilder();
+        print(root, 0, tree);
+        return tree.toString();
+    }
+
+    private static void print(ProgramTree node, int depth, StringBuilder tree) {
+        tree.append("  ".repeat(depth)).append(node).append(node.getLine()).append(':').append(node.getColumn());
+        if (node.getValue() instanceof TokenLexemaPair pair) {
+            tree.append(' ').append(pair.getLine()).append(':').append(pair.getPosition());
+        }
+        tree.append('\n');
+        for (int i = 0; i < node.getChildrenCount(); i++) {
+            print(node.getChild(i), depth + 1, tree);
+        }
+    }
+}
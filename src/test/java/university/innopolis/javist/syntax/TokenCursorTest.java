@@ -0,0 +1,99 @@
+package university.innopolis.javist.syntax;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import university.innopolis.javist.errors.LexerError;
+import university.innopolis.javist.errors.SyntaxError;
+import university.innopolis.javist.lexer.CharSource;
+import university.innopolis.javist.lexer.Lexer;
+import university.innopolis.javist.lexer.Token;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Moves a cursor over a few tokens, and parses the example programs and compares the trees with the ones
+ * the parser gave before it read the tokens through the cursor. Those are kept in
+ * {@code src/test/resources/syntax}, printed the way {@link university.innopolis.javist.Try#printAST} prints them.
+ */
+class TokenCursorTest {
+    private static final Path GOLDEN = Path.of("src/test/resources/syntax");
+
+    @Test
+    void peeksWithoutMoving() {
+        TokenCursor cursor = cursor("x := 1");
+
+        assertEquals(Token.TK_IDENTIFIER.ordinal(), cursor.peekKind(0));
+        assertEquals(Token.TK_ASSIGN.ordinal(), cursor.peekKind(1));
+        assertEquals(Token.TK_INTEGER_LITERAL.ordinal(), cursor.peekKind(2));
+        assertEquals(TokenCursor.END, cursor.peekKind(3));
+        assertEquals(0, cursor.index());
+        assertTrue(cursor.at(Token.TK_IDENTIFIER));
+    }
+
+    @Test
+    void expectsTheCurrentToken() {
+        TokenCursor cursor = cursor("x := 1");
+
+        assertEquals(0, cursor.expect(Token.TK_IDENTIFIER));
+        assertEquals(new SyntaxError(":=", 1, 4).getMessage(),
+                assertThrows(SyntaxError.class, () -> cursor.expect(Token.TK_COLON)).getMessage());
+        assertEquals(1, cursor.advance());
+        assertEquals("{TK_INTEGER_LITERAL : 1} ", cursor.leaf(cursor.advance()).toString());
+
+        assertTrue(cursor.isAtEnd());
+        assertEquals(new SyntaxError("end of file", 1, 6).getMessage(),
+                assertThrows(SyntaxError.class, cursor::advance).getMessage());
+    }
+
+    @Test
+    void reportsTheLexicalErrorOnlyPastTheLastToken() {
+        TokenCursor cursor = cursor("x := 1 ? 2");
+
+        assertEquals(Token.TK_INTEGER_LITERAL.ordinal(), cursor.peekKind(2));
+        assertEquals("Unexpected symbol: '?'",
+                assertThrows(LexerError.class, () -> cursor.peekKind(3)).getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "src/main/resources/sources/Libraries.txt",
+            "src/main/resources/sources/lexerTests/CorrectTestCodeLexer.txt",
+            "src/main/resources/sources/lexerTests/WrongTestCodeLexer.txt",
+            "src/main/resources/sources/syntaxTests/CorrectTestCodeSyntax.txt",
+            "src/main/resources/sources/syntaxTests/WrongTestCodeSyntax.txt",
+            "src/main/resources/sources/SemanticTests/CorrectTestCodeSemantic.txt",
+            "src/main/resources/sources/SemanticTests/WrongTestCodeSemantic.txt"})
+    void parsesAsBefore(String program) throws Exception {
+        Path golden = GOLDEN.resolve(Path.of(program).getFileName().toString().replace(".txt", ".tree"));
+        String tree;
+        try {
+            tree = tree(new SyntaxAnalyzer(new Lexer(program)).makeTree());
+        } catch (LexerError | SyntaxError e) {
+            tree = "ERROR " + e.getClass().getSimpleName() + " " + e.getMessage() + "\n";
+        }
+        assertEquals(Files.readString(golden), tree);
+    }
+
+    private static TokenCursor cursor(String source) {
+        return new TokenCursor(new Lexer(CharSource.of(source.toCharArray())).tokenize());
+    }
+
+    private static String tree(ProgramTree root) {
+        StringBuilder tree = new StringBuilder();
+        print(root, 0, tree);
+        return tree.toString();
+    }
+
+    private static void print(ProgramTree node, int depth, StringBuilder tree) {
+        tree.append("  ".repeat(depth)).append(node).append('\n');
+        for (int i = 0; i < node.getChildrenCount(); i++) {
+            print(node.getChild(i), depth + 1, tree);
+        }
+    }
+}